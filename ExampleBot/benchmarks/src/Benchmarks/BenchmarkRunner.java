@@ -0,0 +1,35 @@
+package Benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs the ProductionQueue benchmarks with JMH and saves the results as JMH's JSON, so runs can be compared between versions.
+ * The benchmarks have to be compiled with jmh-generator-annprocess on the classpath, which writes the code JMH runs them with.
+ * Takes JMH's own command line arguments, with the result format set to JSON and the file to benchmark-results.json unless given. Common ones:
+ *   -rff file   Where to save the results.
+ *   -wi count   Warmup iterations. 3 by default.
+ *   -i count    Measured iterations. 5 by default.
+ *   -f count    JVMs to fork for each benchmark. 1 by default.
+ *   -p name=v   Only run with these values of a parameter, such as -p orders=1000.
+ *   regex       Only run benchmarks whose name matches, such as unitStructure.
+ * Run with -h for the rest.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception
+    {
+        ArrayList<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add("benchmark-results.json");
+        }
+        Main.main(jmhArgs.toArray(new String[jmhArgs.size()]));
+    }
+}
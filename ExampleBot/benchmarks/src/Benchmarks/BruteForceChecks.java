@@ -0,0 +1,51 @@
+package Benchmarks;
+
+import BuilderManager.WorkerGridCheck;
+import BuildingPlacer.TileLayerCheck;
+import ProductionQueue.TechTreeCheck;
+import ProductionQueue.TimerWheelCheck;
+
+import java.util.Random;
+
+/**
+ * Checks the bot's indexed data structures against brute force on random inputs, headless like the benchmarks.
+ * Each check drives a structure and a plain scan or model of the same data with the same random calls, and stops at the first answer they disagree on.
+ * The checks for package-private structures live in the structure's own package under this source root.
+ * Takes the random seed and how many rounds to run, 1 and 200 by default, so a failure can be run again.
+ */
+public class BruteForceChecks {
+
+    public static void main(String[] args)
+    {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Random random = new Random(seed);
+
+        for (int round = 0; round < rounds; round++) {
+            WorkerGridCheck.run(random);
+            TileLayerCheck.run(random);
+            LatencyHistogramCheck.run(random);
+            TimerWheelCheck.run(random);
+        }
+        //The tree is the same every game, so one pass over every type is enough
+        TechTreeCheck.run(random);
+        System.out.println("Brute force checks passed, seed " + seed + ", " + rounds + " rounds");
+    }
+
+    /**
+     * Stops the checks if an answer is wrong
+     * @param correct True if the answer matched brute force
+     * @param message What was wrong, shown if it didn't
+     */
+    public static void expect(boolean correct, String message)
+    {
+        if (!correct)
+            fail(message);
+    }
+
+    /**
+     * Stops the checks because an answer was wrong. For when the message is only worth making once something has failed.
+     * @param message What was wrong
+     */
+    public static void fail(String message) {throw new IllegalStateException(message);}
+}
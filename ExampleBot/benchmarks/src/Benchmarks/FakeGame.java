@@ -0,0 +1,171 @@
+package Benchmarks;
+
+import GameModel.GameModel;
+import GameModel.TypeData;
+import Simulator.SimTypeData;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * An in memory Terran game for the benchmarks to set up by hand. Nothing happens in it unless a benchmark changes it.
+ * Units are added and removed directly and their idle and completed flags set as needed, so a queue can be put in any state without StarCraft.
+ * Type data is the Simulator's Terran tables.
+ */
+public class FakeGame implements GameModel {
+
+    private static class FakeUnit {
+        final UnitType type;
+        boolean completed;
+        boolean idle;
+        UnitType training = UnitType.None;
+
+        FakeUnit(UnitType type, boolean completed)
+        {
+            this.type = type;
+            this.completed = completed;
+            this.idle = completed;
+        }
+    }
+
+    private final TypeData typeData = new SimTypeData();
+    private final LinkedHashMap<Integer, FakeUnit> units = new LinkedHashMap<>();
+    private final HashSet<TechType> researched = new HashSet<>();
+    private final HashMap<UpgradeType, Integer> upgradeLevels = new HashMap<>();
+    private int nextUnitID = 0;
+    private int frame = 0;
+    private int minerals = 0;
+    private int gas = 0;
+    private int supplyUsed = 0;
+    private int supplyTotal = 400;
+
+    /**
+     * Adds a unit to the player
+     * @param type The type of unit
+     * @param completed True if it is already finished. Finished units are idle to begin with.
+     * @return The ID of the new unit
+     */
+    public int addUnit(UnitType type, boolean completed)
+    {
+        int id = nextUnitID++;
+        units.put(id, new FakeUnit(type, completed));
+        return id;
+    }
+
+    public void removeUnit(int unitID) {units.remove(unitID);}
+
+    public void setIdle(int unitID, boolean idle) {units.get(unitID).idle = idle;}
+
+    /**
+     * Sets what a unit is training, so a unit started for the order it was given can be matched to it. UnitType.None when it is done.
+     */
+    public void setTraining(int unitID, UnitType training) {units.get(unitID).training = training;}
+
+    public void setResources(int minerals, int gas)
+    {
+        this.minerals = minerals;
+        this.gas = gas;
+    }
+
+    public void setSupply(int supplyUsed, int supplyTotal)
+    {
+        this.supplyUsed = supplyUsed;
+        this.supplyTotal = supplyTotal;
+    }
+
+    public void setFrame(int frame) {this.frame = frame;}
+
+    public void nextFrame() {frame++;}
+
+    @Override
+    public int getFrameCount() {return frame;}
+
+    @Override
+    public TypeData getTypeData() {return typeData;}
+
+    @Override
+    public Race getRace() {return Race.Terran;}
+
+    @Override
+    public int minerals() {return minerals;}
+
+    @Override
+    public int gas() {return gas;}
+
+    @Override
+    public int supplyUsed() {return supplyUsed;}
+
+    @Override
+    public int supplyTotal() {return supplyTotal;}
+
+    @Override
+    public int gatheredMinerals() {return 0;}
+
+    @Override
+    public int gatheredGas() {return 0;}
+
+    @Override
+    public boolean hasResearched(TechType tech) {return researched.contains(tech);}
+
+    @Override
+    public boolean isResearching(TechType tech) {return false;}
+
+    @Override
+    public int getUpgradeLevel(UpgradeType upgrade)
+    {
+        Integer level = upgradeLevels.get(upgrade);
+        return level == null ? 0 : level;
+    }
+
+    @Override
+    public boolean isUpgrading(UpgradeType upgrade) {return false;}
+
+    @Override
+    public Collection<Integer> getOwnUnitIDs() {return units.keySet();}
+
+    @Override
+    public boolean isOwned(int unitID) {return units.containsKey(unitID);}
+
+    @Override
+    public UnitType getUnitType(int unitID)
+    {
+        FakeUnit unit = units.get(unitID);
+        return unit == null ? UnitType.None : unit.type;
+    }
+
+    @Override
+    public boolean exists(int unitID) {return units.containsKey(unitID);}
+
+    @Override
+    public boolean isCompleted(int unitID)
+    {
+        FakeUnit unit = units.get(unitID);
+        return (unit != null) && unit.completed;
+    }
+
+    @Override
+    public boolean isIdle(int unitID)
+    {
+        FakeUnit unit = units.get(unitID);
+        return (unit != null) && unit.completed && unit.idle;
+    }
+
+    @Override
+    public UnitType getTraining(int unitID)
+    {
+        FakeUnit unit = units.get(unitID);
+        return unit == null ? UnitType.None : unit.training;
+    }
+
+    @Override
+    public TechType getTech(int unitID) {return TechType.None;}
+
+    @Override
+    public UpgradeType getUpgrade(int unitID) {return UpgradeType.None;}
+}
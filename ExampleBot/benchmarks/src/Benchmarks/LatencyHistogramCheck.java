@@ -0,0 +1,51 @@
+package Benchmarks;
+
+import FrameProfiler.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks LatencyHistogram's count, mean, max and percentiles against the sorted list of recorded times.
+ * A percentile can be rounded up to the top of its bucket, so it has to be at least the exact percentile and within a 32nd of it.
+ */
+public class LatencyHistogramCheck {
+
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+
+    /**
+     * Records a random number of times, spread from under a microsecond to about ten seconds, and checks every statistic
+     * @param random Where the times come from
+     */
+    public static void run(Random random)
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int count = random.nextInt(2000);
+        long[] micros = new long[count];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            //Even over the powers of two, so every bucket size is used
+            micros[i] = (long) Math.pow(2, random.nextDouble() * 23) - 1;
+            histogram.record((micros[i] * 1000) + random.nextInt(1000));
+            total += micros[i];
+        }
+        Arrays.sort(micros);
+
+        BruteForceChecks.expect(histogram.getCount() == count, "LatencyHistogram counted " + histogram.getCount() + " times but " + count + " were recorded");
+        long max = count == 0 ? 0 : micros[count - 1];
+        BruteForceChecks.expect(histogram.getMaxMicros() == max, "LatencyHistogram max is " + histogram.getMaxMicros() + " but should be " + max);
+        double mean = count == 0 ? 0 : (double) total / count;
+        BruteForceChecks.expect(Math.abs(histogram.getMeanMicros() - mean) < 1e-6 * Math.max(1, mean), "LatencyHistogram mean is " + histogram.getMeanMicros() + " but should be " + mean);
+
+        for (double percent : PERCENTILES) {
+            long found = histogram.getPercentileMicros(percent);
+            if (count == 0) {
+                BruteForceChecks.expect(found == 0, "LatencyHistogram p" + percent + " is " + found + " with nothing recorded");
+                continue;
+            }
+            long exact = micros[(int) Math.max(1, (long) Math.ceil(percent / 100.0 * count)) - 1];
+            BruteForceChecks.expect((found >= exact) && (found - exact <= exact / 32) && (found <= max),
+                    "LatencyHistogram p" + percent + " is " + found + " but the exact time is " + exact);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package Benchmarks;
+
+import ProductionQueue.ProductionQueue;
+import bwapi.UnitType;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A FakeGame and ProductionQueue for a benchmark in QueueBenchmarks to run against, made fresh for every iteration by setUp.
+ * Every combination of queue size and units owned is run, each in a forked JVM so one benchmark's JIT profile doesn't affect the next.
+ * The timed methods put the queue back how they found it before returning, so every call sees the queue in the same state and nothing has to be reset between calls.
+ * The defaults here can be changed from the command line, see BenchmarkRunner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public abstract class QueueBenchmark {
+
+    //Producers the fake player owns, one in every PRODUCER_SPACING units
+    private static final UnitType[] PRODUCERS = {UnitType.Terran_Barracks, UnitType.Terran_Factory, UnitType.Terran_Command_Center};
+    private static final int PRODUCER_SPACING = 10;
+    //Orders put on the queue, in turn
+    private static final UnitType[] ORDERED = {UnitType.Terran_Marine, UnitType.Terran_SCV, UnitType.Terran_Vulture, UnitType.Terran_Siege_Tank_Tank_Mode,
+            UnitType.Terran_Supply_Depot, UnitType.Terran_Medic, UnitType.Terran_Goliath, UnitType.Terran_Missile_Turret};
+    private static final int PRIORITIES = 5;
+
+    //How many orders to put on the queue
+    @Param({"10", "100", "1000"})
+    public int orders;
+
+    //How many units the player owns
+    @Param({"50", "100", "200", "400"})
+    public int units;
+
+    protected FakeGame game;
+    protected ProductionQueue queue;
+
+    /**
+     * Makes a new game with the number of units and a queue holding the number of orders, then calls prepare.
+     * The player owns the tech buildings for every ordered type but not a Starport, so a Battlecruiser has prerequisites to add.
+     * Half the production buildings are busy.
+     */
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        game = new FakeGame();
+        game.addUnit(UnitType.Terran_Academy, true);
+        game.addUnit(UnitType.Terran_Engineering_Bay, true);
+        game.addUnit(UnitType.Terran_Armory, true);
+        game.addUnit(UnitType.Terran_Machine_Shop, true);
+        for (int i = 4; i < units; i++) {
+            if (i % PRODUCER_SPACING == 0) {
+                int producer = game.addUnit(PRODUCERS[(i / PRODUCER_SPACING) % PRODUCERS.length], true);
+                game.setIdle(producer, (i / PRODUCER_SPACING) % 2 == 0);
+            }
+            else {
+                int unit = game.addUnit(i % 2 == 0 ? UnitType.Terran_SCV : UnitType.Terran_Marine, true);
+                game.setIdle(unit, false);
+            }
+        }
+
+        queue = new ProductionQueue(false, false);
+        queue.onGameStart(game);
+        for (int i = 0; i < orders; i++)
+            queue.AddToQueue(ORDERED[i % ORDERED.length], i % PRIORITIES, false);
+        prepare();
+    }
+
+    /**
+     * Sets up anything else the benchmark needs once the queue is made. Nothing by default.
+     */
+    protected void prepare() {}
+}
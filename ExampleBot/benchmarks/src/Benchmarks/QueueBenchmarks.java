@@ -0,0 +1,190 @@
+package Benchmarks;
+
+import ProductionQueue.ProductionOrder;
+import ProductionQueue.ProductionQueue;
+import ProductionQueue.UnitBuildingOrder;
+import bwapi.UnitType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+
+import java.util.function.Predicate;
+
+/**
+ * The ProductionQueue benchmarks, one for each of the queue's hot paths.
+ * Each timed method does its operation and then undoes it, so its score is the cost of both. What undoes it is given with each, and is kept as cheap as the queue allows.
+ * Cancelled orders are only taken off the queue by a RemoveIf, which looks at every order, so the benchmarks that cancel do BATCH operations before taking them all off at once.
+ * Their score is still per operation.
+ */
+public class QueueBenchmarks {
+
+    private static final int PLENTY = 100000;
+    //Above every priority set up by QueueBenchmark, so these orders are always at the top
+    private static final int TOP_PRIORITY = 10;
+    //Operations done between each RemoveIf by the benchmarks that cancel orders
+    private static final int BATCH = 16;
+    //Matches no orders, so RemoveIf only takes cancelled orders off, as the start of the next Update would
+    private static final Predicate<ProductionOrder> NONE = new Predicate<ProductionOrder>() {
+        @Override
+        public boolean test(ProductionOrder order) {return false;}
+    };
+
+    /**
+     * Update on a frame where the top order can be afforded and is passed back. The order is then put back to commissioned.
+     */
+    public static class Update extends QueueBenchmark {
+        @Override
+        protected void prepare() {game.setResources(PLENTY, PLENTY);}
+
+        @Benchmark
+        public ProductionOrder update()
+        {
+            game.nextFrame();
+            ProductionOrder passedBack = queue.Update();
+            if (passedBack != null)
+                passedBack.setStatus(ProductionOrder.OrderStatus.commissioned);
+            return passedBack;
+        }
+    }
+
+    /**
+     * Adding a Battlecruiser with autoBuildPrereq on, which walks its prerequisites. It is then cancelled, and taken off at the end of the batch.
+     * The prerequisites added by the first call stay on the queue, so later calls find them already there.
+     */
+    public static class AddWithPrerequisites extends QueueBenchmark {
+        @Benchmark
+        @OperationsPerInvocation(BATCH)
+        public ProductionOrder addToQueueWithPrerequisites()
+        {
+            ProductionOrder added = null;
+            for (int i = 0; i < BATCH; i++) {
+                added = queue.AddToQueue(UnitType.Terran_Battlecruiser, TOP_PRIORITY, true);
+                queue.Cancel(added);
+            }
+            queue.RemoveIf(NONE);
+            return added;
+        }
+    }
+
+    /**
+     * Removing one Marine order by its type. The cancelled orders are taken off at the end of the batch and the Marines added back.
+     */
+    public static class Remove extends QueueBenchmark {
+        @Override
+        protected void prepare()
+        {
+            for (int i = 0; i < BATCH; i++)
+                queue.AddToQueue(UnitType.Terran_Marine, 0, false);
+        }
+
+        @Benchmark
+        @OperationsPerInvocation(BATCH)
+        public ProductionOrder removeFromQueue()
+        {
+            for (int i = 0; i < BATCH; i++)
+                queue.RemoveFromQueue(UnitType.Terran_Marine, false);
+            queue.RemoveIf(NONE);
+            ProductionOrder added = null;
+            for (int i = 0; i < BATCH; i++)
+                added = queue.AddToQueue(UnitType.Terran_Marine, 0, false);
+            return added;
+        }
+    }
+
+    /**
+     * Cancelling one Marine order by its handle. The cancelled orders are taken off at the end of the batch and the Marines added back.
+     */
+    public static class Cancel extends QueueBenchmark {
+        private ProductionOrder[] handles;
+
+        @Override
+        protected void prepare()
+        {
+            handles = new ProductionOrder[BATCH];
+            for (int i = 0; i < BATCH; i++)
+                handles[i] = queue.AddToQueue(UnitType.Terran_Marine, 0, false);
+        }
+
+        @Benchmark
+        @OperationsPerInvocation(BATCH)
+        public int cancel()
+        {
+            int cancelled = 0;
+            for (int i = 0; i < BATCH; i++) {
+                if (queue.Cancel(handles[i]))
+                    cancelled++;
+            }
+            queue.RemoveIf(NONE);
+            for (int i = 0; i < BATCH; i++)
+                handles[i] = queue.AddToQueue(UnitType.Terran_Marine, 0, false);
+            return cancelled;
+        }
+    }
+
+    /**
+     * Sets up a Marine order that has been passed back, and the Marine unit that will start it.
+     */
+    public abstract static class StartedUnitBenchmark extends QueueBenchmark {
+        protected UnitBuildingOrder order;
+        protected int unitID;
+        protected int producerID;
+
+        @Override
+        protected void prepare()
+        {
+            producerID = -1;
+            queue.AddToQueue(UnitType.Terran_Marine, TOP_PRIORITY, false);
+            passBack();
+            unitID = game.addUnit(UnitType.Terran_Marine, false);
+        }
+
+        //Has the queue pass the Marine order back, and its Barracks start training it, so the Marine can be matched to the order's producer
+        protected void passBack()
+        {
+            if (producerID != -1) {
+                game.setIdle(producerID, true);
+                game.setTraining(producerID, UnitType.None);
+            }
+            game.setResources(PLENTY, PLENTY);
+            order = (UnitBuildingOrder) queue.Update();
+            game.setResources(0, 0);
+            producerID = order.getProducerID();
+            game.setIdle(producerID, false);
+            game.setTraining(producerID, UnitType.Terran_Marine);
+        }
+    }
+
+    /**
+     * unitStructureStarted for a unit made for a passed back order. The order is then set back to ordered, keeping its producer.
+     */
+    public static class UnitStarted extends StartedUnitBenchmark {
+        @Benchmark
+        public UnitBuildingOrder unitStructureStarted()
+        {
+            UnitBuildingOrder started = queue.unitStructureStarted(unitID);
+            order.setStatus(ProductionOrder.OrderStatus.ordered);
+            return started;
+        }
+    }
+
+    /**
+     * unitStructureDestroyed for a unit being made for an order, which puts the order back on the queue.
+     * The order is then passed back again by an Update and started again, so the score includes an update and a unitStructureStarted.
+     */
+    public static class UnitDestroyed extends StartedUnitBenchmark {
+        @Override
+        protected void prepare()
+        {
+            super.prepare();
+            queue.unitStructureStarted(unitID);
+        }
+
+        @Benchmark
+        public UnitBuildingOrder unitStructureDestroyed()
+        {
+            queue.unitStructureDestroyed(unitID);
+            passBack();
+            queue.unitStructureStarted(unitID);
+            return order;
+        }
+    }
+}
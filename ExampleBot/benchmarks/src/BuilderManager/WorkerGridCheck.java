@@ -0,0 +1,105 @@
+package BuilderManager;
+
+import Benchmarks.BruteForceChecks;
+import bwapi.Unit;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks WorkerGrid's nearest worker search against a scan of every worker, on random maps and layouts.
+ * Ties can be broken either way, so the distance of the worker found is compared rather than the worker.
+ */
+public class WorkerGridCheck {
+
+    private static final int QUERIES = 50;
+
+    private static Constructor<Unit> unitConstructor;
+    private static long nextPointer = 1;
+
+    /**
+     * Fills a grid with random workers, some clustered, then finds and takes workers near random points, on and off the map.
+     * @param random Where the map, workers and points come from
+     */
+    public static void run(Random random)
+    {
+        int width = 32 * (16 + random.nextInt(240));
+        int height = 32 * (16 + random.nextInt(240));
+        WorkerGrid grid = new WorkerGrid(width, height);
+        int workerCount = random.nextInt(150);
+
+        for (int frame = 0; frame < 2; frame++) {
+            grid.clear();
+            ArrayList<Unit> workers = new ArrayList<>();
+            HashMap<Unit, int[]> positions = new HashMap<>();
+            HashMap<Unit, Boolean> carrying = new HashMap<>();
+            int clusterX = random.nextInt(width);
+            int clusterY = random.nextInt(height);
+            for (int i = 0; i < workerCount; i++) {
+                Unit worker = newUnit();
+                boolean clustered = random.nextBoolean();
+                int x = clustered ? clamp(clusterX + random.nextInt(200) - 100, width) : random.nextInt(width);
+                int y = clustered ? clamp(clusterY + random.nextInt(200) - 100, height) : random.nextInt(height);
+                boolean isCarrying = random.nextInt(4) == 0;
+                grid.add(worker, x, y, isCarrying);
+                workers.add(worker);
+                positions.put(worker, new int[]{x, y});
+                carrying.put(worker, isCarrying);
+            }
+
+            for (int query = 0; query < QUERIES; query++) {
+                int x = random.nextInt(width + 512) - 256;
+                int y = random.nextInt(height + 512) - 256;
+                boolean allowCarrying = random.nextBoolean();
+                long expected = nearestDistance(workers, positions, carrying, x, y, allowCarrying);
+                boolean take = random.nextBoolean();
+                Unit found = take ? grid.takeNearest(x, y, allowCarrying) : grid.findNearest(x, y, allowCarrying);
+
+                if (found == null) {
+                    BruteForceChecks.expect(expected == -1, "WorkerGrid found no worker near " + x + "," + y + " but one is " + expected + " away squared");
+                    continue;
+                }
+                BruteForceChecks.expect(workers.contains(found), "WorkerGrid found a worker already taken near " + x + "," + y);
+                BruteForceChecks.expect(allowCarrying || !carrying.get(found), "WorkerGrid found a worker carrying minerals near " + x + "," + y);
+                int[] at = positions.get(found);
+                long distance = MineralPatches.distanceSquared(x, y, at[0], at[1]);
+                BruteForceChecks.expect(distance == expected, "WorkerGrid found a worker " + distance + " from " + x + "," + y + " but the nearest is " + expected + " away squared");
+                if (take)
+                    workers.remove(found);
+            }
+        }
+    }
+
+    //Squared distance of the nearest worker not taken. -1 if there isn't one.
+    private static long nearestDistance(ArrayList<Unit> workers, HashMap<Unit, int[]> positions, HashMap<Unit, Boolean> carrying, int x, int y, boolean allowCarrying)
+    {
+        long best = -1;
+        for (Unit worker : workers) {
+            if (carrying.get(worker) && !allowCarrying)
+                continue;
+            int[] at = positions.get(worker);
+            long distance = MineralPatches.distanceSquared(x, y, at[0], at[1]);
+            if ((best == -1) || (distance < best))
+                best = distance;
+        }
+        return best;
+    }
+
+    private static int clamp(int value, int size) {return Math.max(0, Math.min(size - 1, value));}
+
+    //BWMirror only makes Units for a running game, but WorkerGrid only needs them to be distinct, so one is made around a made up pointer
+    private static Unit newUnit()
+    {
+        try {
+            if (unitConstructor == null) {
+                unitConstructor = Unit.class.getDeclaredConstructor(long.class);
+                unitConstructor.setAccessible(true);
+            }
+            return unitConstructor.newInstance(nextPointer++);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not make a Unit to check with", e);
+        }
+    }
+}
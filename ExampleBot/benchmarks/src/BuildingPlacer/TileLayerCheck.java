@@ -0,0 +1,82 @@
+package BuildingPlacer;
+
+import Benchmarks.BruteForceChecks;
+
+import java.util.Random;
+
+/**
+ * Checks TileLayer's summed-area counts against counting each tile of a plain array, after random changes.
+ * The changes are mixed with counts, so the table is checked both freshly rebuilt and after being marked stale.
+ */
+public class TileLayerCheck {
+
+    private static final int STEPS = 300;
+
+    /**
+     * Makes random footprints, tile changes and clears on a random sized layer, counting random rectangles between them
+     * @param random Where the layer size, changes and rectangles come from
+     */
+    public static void run(Random random)
+    {
+        int width = 1 + random.nextInt(64);
+        int height = 1 + random.nextInt(64);
+        TileLayer layer = new TileLayer(width, height);
+        int[][] counts = new int[width][height];
+
+        for (int step = 0; step < STEPS; step++) {
+            int action = random.nextInt(20);
+            if (action == 0) {
+                layer.clear();
+                counts = new int[width][height];
+            }
+            else if (action < 6) {
+                int x = random.nextInt(width + 4) - 2;
+                int y = random.nextInt(height + 4) - 2;
+                int count = random.nextInt(3);
+                boolean wasSet = (inside(x, y, width, height) && (counts[x][y] > 0));
+                boolean flipped = layer.set(x, y, count);
+                if (inside(x, y, width, height))
+                    counts[x][y] = count;
+                boolean nowSet = (inside(x, y, width, height) && (counts[x][y] > 0));
+                BruteForceChecks.expect(flipped == (wasSet != nowSet), "TileLayer set " + x + "," + y + " said flipped was " + flipped);
+            }
+            else if (action < 12) {
+                //Footprints are taken away again as often as they are added, so counts go up and down through zero
+                int x = random.nextInt(width + 8) - 4;
+                int y = random.nextInt(height + 8) - 4;
+                int w = random.nextInt(6);
+                int h = random.nextInt(6);
+                int change = random.nextBoolean() ? 1 : -1;
+                layer.add(x, y, w, h, change);
+                for (int column = Math.max(0, x); column < Math.min(width, x + w); column++) {
+                    for (int row = Math.max(0, y); row < Math.min(height, y + h); row++)
+                        counts[column][row] += change;
+                }
+            }
+            else {
+                int x = random.nextInt(width + 8) - 4;
+                int y = random.nextInt(height + 8) - 4;
+                int w = random.nextInt(width + 4);
+                int h = random.nextInt(height + 4);
+                int expected = 0;
+                for (int column = Math.max(0, x); column < Math.min(width, x + w); column++) {
+                    for (int row = Math.max(0, y); row < Math.min(height, y + h); row++) {
+                        if (counts[column][row] > 0)
+                            expected++;
+                    }
+                }
+                int counted = layer.countSet(x, y, w, h);
+                BruteForceChecks.expect(counted == expected, "TileLayer counted " + counted + " set tiles in " + x + "," + y + " " + w + "x" + h + " but there are " + expected);
+            }
+        }
+
+        for (int x = -1; x <= width; x++) {
+            for (int y = -1; y <= height; y++) {
+                int expected = inside(x, y, width, height) ? counts[x][y] : 0;
+                BruteForceChecks.expect(layer.get(x, y) == expected, "TileLayer has " + layer.get(x, y) + " on " + x + "," + y + " but should have " + expected);
+            }
+        }
+    }
+
+    private static boolean inside(int x, int y, int width, int height) {return (x >= 0) && (y >= 0) && (x < width) && (y < height);}
+}
@@ -0,0 +1,190 @@
+package ProductionQueue;
+
+import Benchmarks.BruteForceChecks;
+import Benchmarks.FakeGame;
+import GameModel.TypeData;
+import UnitCensus.UnitCensus;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+/**
+ * Checks TechTree's prerequisite closures and masks against walking the type data's prerequisites recursively.
+ * Every unit, technology and upgrade level is checked, those of other races included, as they are added to the tree the first time they are asked for.
+ */
+public class TechTreeCheck {
+
+    private static final int OWNED_SETS = 200;
+
+    /**
+     * Builds a Terran tree and checks every closure, then checks every order's prerequisites against random sets of owned types
+     * @param random Where the owned types come from
+     */
+    public static void run(Random random)
+    {
+        FakeGame game = new FakeGame();
+        TypeData typeData = game.getTypeData();
+        TechTree tree = new TechTree(Race.Terran, new UnitCensus(game), typeData);
+
+        ArrayList<UnitType> units = constantsOf(UnitType.class);
+        ArrayList<TechType> techs = constantsOf(TechType.class);
+        ArrayList<UpgradeType> upgrades = constantsOf(UpgradeType.class);
+        ArrayList<ProductionOrder> orders = new ArrayList<>();
+
+        for (UnitType type : units) {
+            checkClosure(tree, typeData, tree.getClosure(type), direct(typeData, type), type, typeData.getName(type));
+            orders.add(new UnitBuildingOrder(type, 0));
+        }
+        for (TechType type : techs) {
+            checkClosure(tree, typeData, tree.getClosure(type), direct(typeData, type), UnitType.None, typeData.getName(type));
+            orders.add(new ResearchOrder(type, 0));
+        }
+        for (UpgradeType type : upgrades) {
+            int maxLevel = Math.max(1, typeData.maxRepeats(type));
+            for (int level = 1; level <= maxLevel + 1; level++) {
+                LinkedHashSet<UnitType> direct = level <= maxLevel ? direct(typeData, type, level) : new LinkedHashSet<UnitType>();
+                checkClosure(tree, typeData, tree.getClosure(type, level), direct, UnitType.None, typeData.getName(type) + " level " + level);
+                orders.add(new UpgradeOrder(type, 0, level));
+            }
+        }
+
+        //Owned types are changed a few at a time, so the masks are checked as they are kept up to date rather than only fresh
+        ArrayList<UnitType> terranUnits = new ArrayList<>();
+        for (UnitType type : units) {
+            if (typeData.getRace(type) == Race.Terran)
+                terranUnits.add(type);
+        }
+        HashSet<UnitType> owned = new HashSet<>();
+        for (int set = 0; set < OWNED_SETS; set++) {
+            for (int change = 0; change < 4; change++) {
+                UnitType type = terranUnits.get(random.nextInt(terranUnits.size()));
+                if (owned.remove(type))
+                    tree.completedTypeLost(type);
+                else {
+                    owned.add(type);
+                    tree.completedTypeGained(type);
+                }
+            }
+            for (ProductionOrder order : orders) {
+                boolean expected = owned.containsAll(direct(typeData, order));
+                if (tree.hasAllPrereq(order) != expected)
+                    BruteForceChecks.fail("TechTree says " + nameOf(typeData, order) + " has all its prerequisites is " + !expected);
+            }
+        }
+    }
+
+    //Checks the closure holds every type found by walking the direct prerequisites, other than the type itself, once each and after its own prerequisites.
+    //Workers and what makes them need each other, so a prerequisite that needs the type itself can come either side of it.
+    private static void checkClosure(TechTree tree, TypeData typeData, int[] closure, LinkedHashSet<UnitType> direct, UnitType self, String name)
+    {
+        LinkedHashSet<UnitType> expected = new LinkedHashSet<>();
+        for (UnitType type : direct)
+            walk(typeData, type, expected);
+        expected.remove(self);
+
+        HashSet<UnitType> before = new HashSet<>();
+        for (int id : closure) {
+            UnitType type = tree.getUnitType(id);
+            for (UnitType needed : direct(typeData, type)) {
+                if (!before.contains(needed) && !needs(typeData, needed, type))
+                    BruteForceChecks.fail("TechTree has " + typeData.getName(type) + " before " + typeData.getName(needed) + " in the closure of " + name);
+            }
+            if (!before.add(type))
+                BruteForceChecks.fail("TechTree has " + typeData.getName(type) + " twice in the closure of " + name);
+        }
+        if (!before.equals(expected))
+            BruteForceChecks.fail("TechTree closure of " + name + " has " + before.size() + " types but should have " + expected.size());
+    }
+
+    //BWAPI's own names can't be had without StarCraft running
+    private static String nameOf(TypeData typeData, ProductionOrder order)
+    {
+        if (order instanceof UnitBuildingOrder)
+            return typeData.getName(((UnitBuildingOrder) order).getToProduce());
+        if (order instanceof ResearchOrder)
+            return typeData.getName(((ResearchOrder) order).getToProduce());
+        return typeData.getName(((UpgradeOrder) order).getToProduce()) + " level " + ((UpgradeOrder) order).getUpgradeLevel();
+    }
+
+    private static boolean needs(TypeData typeData, UnitType type, UnitType needed)
+    {
+        LinkedHashSet<UnitType> found = new LinkedHashSet<>();
+        walk(typeData, type, found);
+        return found.contains(needed);
+    }
+
+    private static void walk(TypeData typeData, UnitType type, LinkedHashSet<UnitType> found)
+    {
+        if (found.contains(type))
+            return;
+        found.add(type);
+        for (UnitType needed : direct(typeData, type))
+            walk(typeData, needed, found);
+    }
+
+    private static LinkedHashSet<UnitType> direct(TypeData typeData, ProductionOrder order)
+    {
+        if (order instanceof UnitBuildingOrder)
+            return direct(typeData, ((UnitBuildingOrder) order).getToProduce());
+        if (order instanceof ResearchOrder)
+            return direct(typeData, ((ResearchOrder) order).getToProduce());
+        UpgradeOrder upgrade = (UpgradeOrder) order;
+        if (upgrade.getUpgradeLevel() > Math.max(1, typeData.maxRepeats(upgrade.getToProduce())))
+            return new LinkedHashSet<>();
+        return direct(typeData, upgrade.getToProduce(), upgrade.getUpgradeLevel());
+    }
+
+    private static LinkedHashSet<UnitType> direct(TypeData typeData, UnitType type)
+    {
+        LinkedHashSet<UnitType> direct = new LinkedHashSet<>();
+        addIfType(direct, typeData.whatBuilds(type));
+        for (UnitType required : typeData.requiredUnits(type).keySet())
+            addIfType(direct, required);
+        return direct;
+    }
+
+    private static LinkedHashSet<UnitType> direct(TypeData typeData, TechType type)
+    {
+        LinkedHashSet<UnitType> direct = new LinkedHashSet<>();
+        addIfType(direct, typeData.whatResearches(type));
+        addIfType(direct, typeData.requiredUnit(type));
+        return direct;
+    }
+
+    private static LinkedHashSet<UnitType> direct(TypeData typeData, UpgradeType type, int level)
+    {
+        LinkedHashSet<UnitType> direct = new LinkedHashSet<>();
+        addIfType(direct, typeData.whatUpgrades(type));
+        addIfType(direct, typeData.whatsRequired(type, level));
+        return direct;
+    }
+
+    private static void addIfType(LinkedHashSet<UnitType> types, UnitType type)
+    {
+        if (type != UnitType.None)
+            types.add(type);
+    }
+
+    private static <T> ArrayList<T> constantsOf(Class<T> typeClass)
+    {
+        ArrayList<T> constants = new ArrayList<>();
+        for (Field field : typeClass.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && (field.getType() == typeClass)) {
+                try {
+                    constants.add(typeClass.cast(field.get(null)));
+                } catch (IllegalAccessException e) {
+                    //Public fields, so this doesn't happen
+                }
+            }
+        }
+        return constants;
+    }
+}
@@ -0,0 +1,79 @@
+package ProductionQueue;
+
+import Benchmarks.BruteForceChecks;
+import bwapi.UnitType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Checks TimerWheel against a plain map of each order's due frame, with every timer looked at on every advance.
+ * Orders are scheduled further ahead than the wheel is big, rescheduled and cancelled, and the wheel is sometimes moved on by more than a turn at once.
+ */
+public class TimerWheelCheck {
+
+    private static final int ORDERS = 40;
+    private static final int STEPS = 400;
+    private static final int WHEEL_SIZE = 256; //Same as TimerWheel
+
+    /**
+     * Makes random schedules, cancels and advances, checking the orders that expire each advance
+     * @param random Where the frames and orders come from
+     */
+    public static void run(Random random)
+    {
+        int frame = random.nextInt(10000);
+        TimerWheel wheel = new TimerWheel(frame);
+        ArrayList<ProductionOrder> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++)
+            orders.add(new UnitBuildingOrder(UnitType.Terran_Marine, 0));
+        HashMap<ProductionOrder, Integer> dueFrames = new HashMap<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            ProductionOrder order = orders.get(random.nextInt(ORDERS));
+            int action = random.nextInt(10);
+            if (action < 5) {
+                int dueFrame = frame + random.nextInt(2 * WHEEL_SIZE) - 20;
+                wheel.schedule(order, dueFrame);
+                dueFrames.put(order, Math.max(dueFrame, frame + 1));
+            }
+            else if (action < 6) {
+                wheel.cancel(order);
+                dueFrames.remove(order);
+            }
+            else {
+                int skip = random.nextInt(20) == 0 ? random.nextInt(3 * WHEEL_SIZE) : random.nextInt(5);
+                frame += skip;
+                final ArrayList<ProductionOrder> expired = new ArrayList<>();
+                wheel.advance(frame, new TimerWheel.TimerListener() {
+                    @Override
+                    public void timerExpired(ProductionOrder expiredOrder) {expired.add(expiredOrder);}
+                });
+
+                HashSet<ProductionOrder> expected = new HashSet<>();
+                for (ProductionOrder waiting : orders) {
+                    if (dueFrames.containsKey(waiting) && (dueFrames.get(waiting) <= frame))
+                        expected.add(waiting);
+                }
+                BruteForceChecks.expect(new HashSet<>(expired).equals(expected) && (expired.size() == expected.size()),
+                        "TimerWheel expired " + expired.size() + " orders on frame " + frame + " but " + expected.size() + " were due");
+
+                //A skip of a whole turn or more looks at each slot once, so orders from different turns come out by slot rather than by frame.
+                //Orders due on the same frame can come out either way round.
+                if (skip < WHEEL_SIZE) {
+                    for (int i = 1; i < expired.size(); i++)
+                        BruteForceChecks.expect(dueFrames.get(expired.get(i - 1)) <= dueFrames.get(expired.get(i)), "TimerWheel expired orders out of order on frame " + frame);
+                }
+                for (ProductionOrder done : expected)
+                    dueFrames.remove(done);
+            }
+
+            for (ProductionOrder waiting : orders) {
+                int expectedDue = dueFrames.containsKey(waiting) ? dueFrames.get(waiting) : -1;
+                BruteForceChecks.expect(waiting.timerDueFrame == expectedDue, "TimerWheel has an order due on " + waiting.timerDueFrame + " but it should be " + expectedDue);
+            }
+        }
+    }
+}
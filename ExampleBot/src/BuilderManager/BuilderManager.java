@@ -1,19 +1,38 @@
 package BuilderManager;
 
 
+import BuildingPlacer.BuildingPlacer;
 import bwapi.Position;
 import bwapi.TilePosition;
 import bwapi.Unit;
 import bwapi.UnitType;
+import bwta.BWTA;
 import main.BaseAPI;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * BUILDER MANAGER
  * Manages the constructing of buildings and looks after keeping idle workers mining minerals.
  * You can pass in jobs of what to build and where to build it and the manager will get a builder for it, send them mining, and will look after replacing builders if they are destroyed.
  * If the building is destroyed that was being constructed, the builder will be returned to mining.
+ * Idle workers are spread over the mineral patches of the base they are at, two to a patch, from a table of every base's patches made at game start.
+ * Bases with one of the player's finished resource depots are owned. Idle workers go to the nearest owned base with room, and each frame a worker is moved from a base over two to a patch,
+ * or from a base that has lost its depot, to the owned base furthest under it.
+ * Game start means after BWTA has analysed the map, which BaseAPI does in its onStart.
+ * Builders are picked from a grid of the mining workers' positions, filled once a frame, so picking one doesn't get slower as the number of workers grows.
+ * If given a BuildingPlacer, the tiles of each job are held in it from when the job is added until the building is started or the job is cancelled.
+ * Jobs can also be reserved before they can be paid for, with the frame the money is expected on. A builder is sent to the site just early enough to get there on that frame, and waits there.
+ * When the job is then added, the builder that is already there is told to build straight away.
+ * Jobs are indexed by their builder, their building and the building and tile they are for, so unit events find their job straight away. A builder on a job, or waiting at a reserved job's site, is never handed out to another.
+ * A job that can't get a builder when it is added, or loses its builder with none to replace it, waits in a queue and is given the next spare builder.
+ * Finished refineries are staffed with up to three workers each. Every second the number of workers on gas is moved toward a share of all the workers set by a mineral to gas ratio,
+ * taken from the costs still to be paid on the production queue when given them with setPendingCosts, or from setMineralGasRatio when nothing waiting needs gas.
+ * Each job is watched until its building is started. A builder that hasn't got to the site well after it should have, such as one that is trapped or whose build order was refused, is replaced.
+ * A builder that is at the site but hasn't started the building in time has the job moved to another tile from the placer, or is told to build again if there is no placer.
+ * How long jobs take to get a builder, get to the site, be started and be finished is kept in the ConstructionStats, to be written out with writeReport at the end of the game.
  *
  * REQUIRED USER BOT CALLS
  * onGameStart: call Constructor
@@ -22,13 +41,46 @@ import java.util.ArrayList;
  * onUnitMorph: call unitBuildingStarted
  * onUnitComplete: call unitBuildingComplete
  * onUnitDestroy: call unitBuildingKilled
+ * onEnd: call getConstructionStats().writeReport, if the construction times are wanted
  *
  */
 public class BuilderManager {
 
 
-    ArrayList<ConstructionJob> allJobs;
+    //Frames early a reserved job's builder aims to get to the site, to allow for the travel estimate being off
+    static final int ARRIVAL_MARGIN_FRAMES = 24;
+    //Frames a reserved job's builder waits at the site past the expected frame before it is sent back to mining
+    static final int RESERVED_WAIT_FRAMES = 480;
+    //Frames between moving workers on or off gas
+    static final int GAS_REBALANCE_FRAMES = 24;
+    //Workers moved between bases each frame, so a new base is filled over a few frames rather than by a crowd all at once
+    static final int BASE_TRANSFERS_PER_FRAME = 1;
+    //Limits on the mineral to gas ratio taken from the queue's costs, so the queue can never take every worker off minerals or gas
+    static final double MIN_MINERAL_GAS_RATIO = 1;
+    static final double MAX_MINERAL_GAS_RATIO = 8;
+    //A builder is replaced if it hasn't got to the site after this many times the straight line walk, plus the grace frames
+    static final int TRAVEL_SLACK = 2;
+    static final int TRAVEL_GRACE_FRAMES = 96;
+    //How close a builder has to get to the edge of the building to count as at the site, in pixels
+    static final int ARRIVAL_RANGE = 64;
+    //Frames a builder can be at the site without the building being started before the job is moved
+    static final int START_TIMEOUT_FRAMES = 96;
+
+    JobIndex jobs;
+    JobIndex reservedJobs;
+    //Jobs waiting for a builder, oldest first
+    ArrayDeque<ConstructionJob> pendingJobs;
     ArrayList<Unit> allBuilders;
+    HashMap<Integer, Unit> buildersByID;
+    private MineralPatches mineralPatches;
+    private WorkerGrid spareBuilders;
+    private BuildingPlacer placer;
+    private GasStaffing gasStaffing;
+    private double mineralGasRatio;
+    private int pendingMinerals;
+    private int pendingGas;
+    private int nextGasRebalance;
+    private ConstructionStats stats;
 
     private boolean debugMessagesOn;
 
@@ -36,11 +88,28 @@ public class BuilderManager {
      * Constructor. Initializes the two Arrays of Jobs and Builders.
      * @param debugMessagesOn True if you want the console output debug messages detailing the workings of the production queue. False if you don't.
      */
-    public BuilderManager(boolean debugMessagesOn)
+    public BuilderManager(boolean debugMessagesOn) {this(debugMessagesOn, null);}
+
+    /**
+     * Constructor. Initializes the two Arrays of Jobs and Builders.
+     * @param debugMessagesOn True if you want the console output debug messages detailing the workings of the production queue. False if you don't.
+     * @param placer The placer to hold the tiles of jobs in. NULL for none.
+     */
+    public BuilderManager(boolean debugMessagesOn, BuildingPlacer placer)
     {
         this.debugMessagesOn = debugMessagesOn;
-        allJobs = new ArrayList<>();
+        this.placer = placer;
+        jobs = new JobIndex();
+        reservedJobs = new JobIndex();
+        pendingJobs = new ArrayDeque<>();
         allBuilders = new ArrayList<>();
+        buildersByID = new HashMap<>();
+        gasStaffing = new GasStaffing();
+        mineralGasRatio = 3;
+        stats = new ConstructionStats();
+        mineralPatches = new MineralPatches(BWTA.getBaseLocations());
+        spareBuilders = new WorkerGrid(BaseAPI.baseAPI.game.mapWidth() * 32, BaseAPI.baseAPI.game.mapHeight() * 32);
+        debugMessage("Mineral patches found: " + mineralPatches.getPatchCount());
     }
 
     /**
@@ -49,60 +118,397 @@ public class BuilderManager {
      */
     public ArrayList<Unit> getBuilders() {return allBuilders;}
 
+    /**
+     * Sets the ratio of mineral to gas income to staff refineries for when the production queue has nothing waiting that needs gas. 3 by default.
+     * @param mineralsPerGas How many workers on minerals for each one on gas
+     */
+    public void setMineralGasRatio(double mineralsPerGas) {this.mineralGasRatio = mineralsPerGas;}
+
+    /**
+     * Tells the manager what the production queue still has to pay for, so workers can be moved on or off gas to match. See ProductionQueue.getPendingMinerals and getPendingGas.
+     * @param minerals The minerals still to be spent
+     * @param gas The gas still to be spent
+     */
+    public void setPendingCosts(int minerals, int gas)
+    {
+        this.pendingMinerals = minerals;
+        this.pendingGas = gas;
+    }
+
+    /**
+     * Gets how many workers are gathering gas
+     */
+    public int getGasWorkerCount() {return gasStaffing.getWorkerCount();}
+
+    /**
+     * Gets how long construction jobs have taken this game, and how many were recovered from being stuck
+     */
+    public ConstructionStats getConstructionStats() {return stats;}
+
 
     /**
      * Tells the manager to get a builder and start constructing the required building at the location. Assumption is made that the player has the resources to do so when this method is called.
      * @param toBuild The building to construct
      * @param position The location to build it at
+     * @return The job, which can be checked with hasJob to see if the manager is still working on it. The job already there if one was added for the same building and location. NULL if there was no location.
      */
-    public void addJob(UnitType toBuild, TilePosition position)
+    public ConstructionJob addJob(UnitType toBuild, TilePosition position)
     {
         debugMessage("Adding Job");
+        if (position == null) {
+            debugMessage("No location for job");
+            return null;
+        }
+        ConstructionJob existing = jobs.getBySite(toBuild, position);
+        if (existing != null) {
+            debugMessage("Job already added");
+            return existing;
+        }
+
+        ConstructionJob job = reservedJobs.getBySite(toBuild, position);
+        if (job != null) {
+            reservedJobs.remove(job);
+            job.setCommissionedFrame(BaseAPI.baseAPI.game.getFrameCount());
+            jobs.add(job);
+            if (job.getAssignedBuilder() != null) {
+                debugMessage("Reserved job's builder told to build");
+                giveBuilder(job, job.getAssignedBuilder());
+                return job;
+            }
+        }
+        else {
+            job = new ConstructionJob(null, toBuild, position);
+            job.setCommissionedFrame(BaseAPI.baseAPI.game.getFrameCount());
+            jobs.add(job);
+            if (placer != null)
+                placer.reserve(toBuild, position);
+        }
+
         Unit newBuilder = getSpareBuilderCloseTo(position.toPosition());
+        if (newBuilder == null) {
+            debugMessage("No spare builder for job, waiting for one");
+            pendingJobs.add(job);
+            return job;
+        }
         debugMessage("Got Builder");
-        allJobs.add(new ConstructionJob(newBuilder, toBuild, position));
-        newBuilder.build(toBuild,position);
+        giveBuilder(job, newBuilder);
+        return job;
     }
 
+    /**
+     * Checks whether the manager is still working on a job, so it isn't added a second time. A job is let go of once its building is finished, or it is cancelled.
+     * @param job A job given by addJob
+     * @return True if the job hasn't been finished or cancelled
+     */
+    public boolean hasJob(ConstructionJob job) {return jobs.contains(job);}
+
     /**
      * Cancels a previously requested job.
+     * A job that hasn't been started is taken off and its builder let go. A started building has its construction halted.
      * @param toCancel The type of building to cancel
      * @param position The location it as to be built
      */
     public void cancelJob(UnitType toCancel, TilePosition position)
     {
-        for (ConstructionJob currentJob : allJobs)
+        ConstructionJob currentJob = jobs.getBySite(toCancel, position);
+        if (currentJob == null)
+            return;
+
+        if (currentJob.getStartedBuilding() != null)
         {
-            if ((currentJob.getToBuild() == toCancel) && (currentJob.getLocation() == position))
-            {
-                if (currentJob.getStartedBuilding() != null)
-                {
-                    currentJob.getStartedBuilding().haltConstruction();
-                }
-                else
-                {
-                    currentJob.getAssignedBuilder().cancelConstruction();
-                }
-            }
+            currentJob.getStartedBuilding().haltConstruction();
+        }
+        else
+        {
+            if (currentJob.getAssignedBuilder() != null)
+                currentJob.getAssignedBuilder().cancelConstruction();
+            pendingJobs.remove(currentJob);
+            jobs.remove(currentJob);
+            if (placer != null)
+                placer.release(currentJob.getLocation());
+            debugMessage("Job Cancelled");
+        }
+    }
+
+    /**
+     * Reserves a job that can't be paid for yet. A builder is sent to the site so that it gets there as the money is expected, and the tiles are held in the placer.
+     * Call again with the same building and location to change the expected frame. Call addJob with them when the money is there to have the builder start.
+     * A job whose builder waited too long at the site has no builder sent again until it is given a new expected frame here.
+     * @param toBuild The building to construct
+     * @param position The location to build it at
+     * @param expectedStartFrame The frame the building is expected to be paid for on. -1 if it isn't known, in which case no builder is sent.
+     */
+    public void reserveJob(UnitType toBuild, TilePosition position, int expectedStartFrame)
+    {
+        if (jobs.getBySite(toBuild, position) != null)
+            return;
+        ConstructionJob reservedJob = reservedJobs.getBySite(toBuild, position);
+        if (reservedJob == null) {
+            reservedJob = new ConstructionJob(null, toBuild, position);
+            reservedJobs.add(reservedJob);
+            if (placer != null)
+                placer.reserve(toBuild, position);
+            debugMessage("Job Reserved");
         }
+        reservedJob.setExpectedStartFrame(expectedStartFrame);
+    }
+
+    /**
+     * Cancels a reserved job that hasn't been added yet. Its builder is sent back to mining.
+     * @param toCancel The type of building that was reserved
+     * @param position The location it was to be built
+     */
+    public void cancelReservedJob(UnitType toCancel, TilePosition position)
+    {
+        ConstructionJob reservedJob = reservedJobs.getBySite(toCancel, position);
+        if (reservedJob == null)
+            return;
+        reservedJobs.remove(reservedJob);
+        if (reservedJob.getAssignedBuilder() != null)
+            sendMining(reservedJob.getAssignedBuilder());
+        if (placer != null)
+            placer.release(position);
+        debugMessage("Reserved Job Cancelled");
     }
 
     /**
      * Call Every frame.
-     * Catches any idle workers and sends them mining to their closest mineral source.
+     * Catches any idle workers and sends them mining the least mined patch at their nearest base.
+     * Every other worker that is mining minerals and isn't on a job is put in the grid of spare builders.
+     * Then gives builders to the jobs waiting for one, moves a worker from an oversaturated base to an undersaturated one, and sends builders to the sites of reserved jobs that need to set off.
+     * Last, checks every job that hasn't been started for a builder that is stuck.
      */
     public void onFrame()
     {
+        spareBuilders.clear();
         for (Unit currentBuilder : allBuilders)
         {
+            if (reservedJobs.hasBuilder(currentBuilder.getID()))
+                continue;
             if (currentBuilder.isIdle()) {
-                currentBuilder.gather(getClosestMineralToUnit(currentBuilder));
-                debugMessage("Idle Worker sent mining");
+                GasStaffing.Refinery refinery = gasStaffing.getRefineryOf(currentBuilder.getID());
+                if (refinery != null)
+                    currentBuilder.gather(refinery.unit);
+                else {
+                    sendMining(currentBuilder);
+                    debugMessage("Idle Worker sent mining");
+                }
+            }
+            else if (currentBuilder.isGatheringMinerals() && !jobs.hasBuilder(currentBuilder.getID())) {
+                Position at = currentBuilder.getPosition();
+                spareBuilders.add(currentBuilder, at.getX(), at.getY(), currentBuilder.isCarryingMinerals());
+            }
+
+        }
+
+        while (!pendingJobs.isEmpty()) {
+            ConstructionJob currentJob = pendingJobs.peek();
+            Unit newBuilder = getSpareBuilderCloseTo(currentJob.getLocation().toPosition());
+            if (newBuilder == null)
+                break;
+            pendingJobs.poll();
+            giveBuilder(currentJob, newBuilder);
+            debugMessage("Waiting job given a builder");
+        }
+
+        int frame = BaseAPI.baseAPI.game.getFrameCount();
+        if (frame >= nextGasRebalance) {
+            nextGasRebalance = frame + GAS_REBALANCE_FRAMES;
+            rebalanceGas();
+        }
+
+        for (int i = 0; i < BASE_TRANSFERS_PER_FRAME; i++) {
+            int movedID = mineralPatches.transferOne();
+            if (movedID == -1)
+                break;
+            Unit moved = buildersByID.get(movedID);
+            if (moved != null) {
+                moved.gather(mineralPatches.getPatchOf(movedID).unit);
+                debugMessage("Worker moved to another base");
+            }
+        }
+
+        for (ConstructionJob currentJob : reservedJobs.getJobs()) {
+            if (currentJob.getAssignedBuilder() == null)
+                dispatchIfDue(currentJob, frame);
+            else if (frame > currentJob.getExpectedStartFrame() + RESERVED_WAIT_FRAMES) {
+                //The money never came. The builder goes back to mining, and no other is sent until reserveJob gives a new expected frame.
+                sendMining(currentJob.getAssignedBuilder());
+                reservedJobs.setBuilder(currentJob, null);
+                currentJob.setExpectedStartFrame(-1);
+                debugMessage("Reserved job's builder waited too long");
+            }
+        }
+
+        for (ConstructionJob currentJob : jobs.getJobs()) {
+            if ((currentJob.getAssignedBuilder() != null) && (currentJob.getStartedBuilding() == null))
+                watchJob(currentJob, frame);
+        }
+    }
+
+    /**
+     * Notes when a job's builder gets to the site, and recovers the job if the builder is taking too long to get there or, once there, to start the building.
+     */
+    private void watchJob(ConstructionJob job, int frame)
+    {
+        Unit builder = job.getAssignedBuilder();
+        if (job.getArrivedFrame() == -1) {
+            Position at = builder.getPosition();
+            Position site = siteCentre(job);
+            long range = ARRIVAL_RANGE + (Math.max(job.getToBuild().tileWidth(), job.getToBuild().tileHeight()) * 16);
+            if (MineralPatches.distanceSquared(at.getX(), at.getY(), site.getX(), site.getY()) <= range * range) {
+                boolean first = job.getFirstArrivedFrame() == -1;
+                job.setArrivedFrame(frame);
+                if (first)
+                    stats.arrived(job);
+            }
+            else if (frame > job.getArrivalDeadlineFrame()) {
+                //Trapped, blocked or its order was refused. Another builder is tried.
+                sendMining(builder);
+                jobs.setBuilder(job, null);
+                stats.builderReplaced();
+                Unit newBuilder = getSpareBuilderCloseTo(site);
+                if (newBuilder == null)
+                    pendingJobs.add(job);
+                else
+                    giveBuilder(job, newBuilder);
+                debugMessage("Builder didn't reach the site in time, replaced");
             }
+        }
+        else if (frame > job.getArrivedFrame() + START_TIMEOUT_FRAMES) {
+            //The builder is there but can't start, so something the placer can't see is on the tile
+            replanJob(job);
+            giveBuilder(job, builder);
+        }
+    }
+
+    /**
+     * Moves a job to the nearest other tile the placer can find for it. The old tile is still held while the new one is looked for, so it isn't given back.
+     * The job stays where it is if there is no placer or nowhere else to put it.
+     */
+    private void replanJob(ConstructionJob job)
+    {
+        if (placer == null)
+            return;
+        TilePosition oldTile = job.getLocation();
+        TilePosition newTile = placer.getBuildTile(job.getToBuild(), oldTile);
+        if ((newTile == null) || newTile.equals(oldTile) || (jobs.getBySite(job.getToBuild(), newTile) != null))
+            return;
+        placer.release(oldTile);
+        placer.reserve(job.getToBuild(), newTile);
+        jobs.setLocation(job, newTile);
+        stats.siteReplanned();
+        debugMessage("Job not started in time, moved to " + newTile);
+    }
+
+    /**
+     * Sends the nearest spare builder to a reserved job's site if, going by how far it has to walk, it has to set off now to get there by the expected frame.
+     * The straight line distance is checked first, as the walk can't be any shorter, so the ground distance is only worked out once it is nearly time to go.
+     * Jobs with no expected frame, such as one whose builder waited too long, are left alone.
+     */
+    private void dispatchIfDue(ConstructionJob job, int frame)
+    {
+        if (job.getExpectedStartFrame() < 0)
+            return;
+        Position site = siteCentre(job);
+        Unit nearest = spareBuilders.findNearest(site.getX(), site.getY(), false);
+        if (nearest == null)
+            nearest = spareBuilders.findNearest(site.getX(), site.getY(), true);
+        if (nearest == null)
+            return;
+
+        double speed = nearest.getType().topSpeed();
+        Position at = nearest.getPosition();
+        double straightLine = Math.sqrt(MineralPatches.distanceSquared(at.getX(), at.getY(), site.getX(), site.getY()));
+        if (frame + (straightLine / speed) + ARRIVAL_MARGIN_FRAMES < job.getExpectedStartFrame())
+            return;
+        double ground = BWTA.getGroundDistance(nearest.getTilePosition(), job.getLocation());
+        if ((ground >= 0) && (frame + (ground / speed) + ARRIVAL_MARGIN_FRAMES < job.getExpectedStartFrame()))
+            return;
 
+        Unit builder = getSpareBuilderCloseTo(site);
+        if (builder == null)
+            return;
+        reservedJobs.setBuilder(job, builder);
+        builder.move(site);
+        debugMessage("Builder sent ahead to reserved job");
+    }
+
+    private static Position siteCentre(ConstructionJob job)
+    {
+        TilePosition location = job.getLocation();
+        return new Position((location.getX() * 32) + (job.getToBuild().tileWidth() * 16), (location.getY() * 32) + (job.getToBuild().tileHeight() * 16));
+    }
+
+    /**
+     * Moves workers between minerals and gas toward the mineral to gas ratio. Workers put on gas are the spare builders nearest each refinery.
+     * Workers are counted as equal earners on either, so the ratio of workers is the ratio of income.
+     */
+    private void rebalanceGas()
+    {
+        if (gasStaffing.getRefineryCount() == 0)
+            return;
+        double ratio = mineralGasRatio;
+        if (pendingGas > 0)
+            ratio = Math.max(MIN_MINERAL_GAS_RATIO, Math.min(MAX_MINERAL_GAS_RATIO, pendingMinerals / (double) pendingGas));
+        int target = Math.min(gasStaffing.getCapacity(), (int) Math.round(allBuilders.size() / (1 + ratio)));
+
+        while (gasStaffing.getWorkerCount() < target) {
+            GasStaffing.Refinery refinery = gasStaffing.leastStaffed();
+            Unit worker = getSpareBuilderCloseTo(refinery.position);
+            if (worker == null)
+                break;
+            gasStaffing.assign(worker, refinery);
+            worker.gather(refinery.unit);
+            debugMessage("Worker sent to gas");
+        }
+        while (gasStaffing.getWorkerCount() > target) {
+            Unit worker = gasStaffing.unassignOne(gasStaffing.mostStaffed());
+            sendMining(worker);
+            debugMessage("Worker taken off gas");
         }
     }
 
+    //Sends a lost refinery's workers back to minerals, and has the rest rebalanced on the next frame
+    private void refineryLost(int refineryID)
+    {
+        for (Unit currentWorker : gasStaffing.refineryRemoved(refineryID))
+            sendMining(currentWorker);
+        nextGasRebalance = 0;
+        debugMessage("Refinery Removed");
+    }
+
+    //Puts a builder on a job, to carry on with the building if it was started or start it if not. The builder is given until its walk there should take to arrive.
+    private void giveBuilder(ConstructionJob job, Unit builder)
+    {
+        int frame = BaseAPI.baseAPI.game.getFrameCount();
+        Position at = builder.getPosition();
+        Position site = siteCentre(job);
+        double walk = Math.sqrt(MineralPatches.distanceSquared(at.getX(), at.getY(), site.getX(), site.getY())) / builder.getType().topSpeed();
+        boolean first = job.getAssignedFrame() == -1;
+        jobs.setBuilder(job, builder);
+        job.setAssignedFrame(frame, frame + (int) (walk * TRAVEL_SLACK) + TRAVEL_GRACE_FRAMES);
+        if (first)
+            stats.assigned(job);
+        if (job.getStartedBuilding() != null)
+            builder.rightClick(job.getStartedBuilding());
+        else
+            builder.build(job.getToBuild(), job.getLocation());
+    }
+
+    /**
+     * Sends a worker to mine the least mined patch at the base nearest to it. Falls back to the closest mineral if the table has no patches left.
+     * @param worker The worker to send
+     */
+    private void sendMining(Unit worker)
+    {
+        Position at = worker.getPosition();
+        MineralPatches.Patch patch = mineralPatches.assign(worker.getID(), at.getX(), at.getY());
+        Unit mineral = (patch != null) ? patch.unit : getClosestMineralToUnit(worker);
+        if (mineral != null)
+            worker.gather(mineral);
+    }
+
     /**
      * Call to let the manager know that a unit has been started. The manager will then ascertain if it is relevant to the builder manager or not.
      * If it is relevant then the construction job will be marked as started.
@@ -110,14 +516,18 @@ public class BuilderManager {
      */
     public void unitBuildingStarted(Unit started)
     {
+        //A destroyed refinery can turn back into its geyser rather than be destroyed
+        if (gasStaffing.isRefinery(started.getID()) && !started.getType().isRefinery())
+            refineryLost(started.getID());
+
         if(started.getPlayer().getID() == BaseAPI.baseAPI.self.getID()) {
             if (started.getType().isBuilding()) {
-                for (ConstructionJob currentJob : allJobs){
-                    if ((currentJob.getToBuild() == started.getType()) && (currentJob.getStartedBuilding() == null)) {
-                        currentJob.setStartedBuilding(started);
-                        debugMessage("Building Started");
-                        return;
-                    }
+                ConstructionJob currentJob = jobs.getBySite(started.getType(), started.getTilePosition());
+                if ((currentJob != null) && (currentJob.getStartedBuilding() == null)) {
+                    jobs.setStartedBuilding(currentJob, started);
+                    currentJob.setStartedFrame(BaseAPI.baseAPI.game.getFrameCount());
+                    stats.started(currentJob);
+                    debugMessage("Building Started");
                 }
             }
         }
@@ -133,26 +543,33 @@ public class BuilderManager {
     {
         if(completed.getPlayer().getID() == BaseAPI.baseAPI.self.getID()) {
             if (completed.getType().isWorker()){
-                for (Unit currentBuilder : allBuilders) {
-                    if (currentBuilder.getID() == completed.getID())
-                        return;
-                }
+                if (buildersByID.containsKey(completed.getID()))
+                    return;
                 allBuilders.add(completed);
+                buildersByID.put(completed.getID(), completed);
                 debugMessage("Builder Added");
             }
 
+            if (completed.getType().isRefinery()) {
+                gasStaffing.refineryAdded(completed);
+                nextGasRebalance = 0;
+                debugMessage("Refinery Added");
+            }
+
+            if (completed.getType().isResourceDepot()) {
+                Position at = completed.getPosition();
+                mineralPatches.depotAdded(completed.getID(), at.getX(), at.getY());
+                debugMessage("Resource depot added");
+            }
+
             if (completed.getType().isBuilding())
             {
-                ConstructionJob toRemove = null;
-                for (ConstructionJob currentJob : allJobs){
-                    if (currentJob.getStartedBuilding().getID() == completed.getID()){
-                        debugMessage("Found completed job");
-                        toRemove = currentJob;
-                        break;
-                    }
-                }
-                if (toRemove!=null) {
-                    allJobs.remove(toRemove);
+                ConstructionJob toRemove = jobs.getByBuilding(completed.getID());
+                if (toRemove != null) {
+                    debugMessage("Found completed job");
+                    stats.completed(toRemove, BaseAPI.baseAPI.game.getFrameCount());
+                    pendingJobs.remove(toRemove);
+                    jobs.remove(toRemove);
                     debugMessage("Job Removed");
                 }
             }
@@ -163,66 +580,92 @@ public class BuilderManager {
     /**
      * Call to inform the manager that a unit or building has been destroyed. The manager will then ascertain if it is relevant to it.
      * If it was a unit relevant to the manager then the manager will either retrieve a new builder or will cancel the job if it was the building destroyed.
+     * A killed builder that can't be replaced straight away leaves its job waiting for the next spare builder.
      * @param killedUnitBuilding The unit destroyed.
      */
     public void unitBuildingKilled(Unit killedUnitBuilding)
     {
+        if (mineralPatches.isPatch(killedUnitBuilding.getID())) {
+            //Mined out. The workers on it are moved to another patch.
+            for (int currentID : mineralPatches.patchRemoved(killedUnitBuilding.getID())) {
+                Unit currentBuilder = buildersByID.get(currentID);
+                if (currentBuilder != null)
+                    sendMining(currentBuilder);
+            }
+            debugMessage("Mineral patch mined out");
+            return;
+        }
+
+        if (gasStaffing.isRefinery(killedUnitBuilding.getID()))
+            refineryLost(killedUnitBuilding.getID());
+
         if(killedUnitBuilding.getPlayer().getID() == BaseAPI.baseAPI.self.getID()) {
+            if (killedUnitBuilding.getType().isResourceDepot()) {
+                mineralPatches.depotRemoved(killedUnitBuilding.getID());
+                debugMessage("Resource depot lost");
+            }
+
             if (killedUnitBuilding.getType().isWorker()){
-                for (ConstructionJob currentJob : allJobs){
-                    if (currentJob.getAssignedBuilder().getID() == killedUnitBuilding.getID()) {
-
-                        if (currentJob.getStartedBuilding() != null) {
-                            Unit newBuilder = getSpareBuilderCloseTo(currentJob.getLocation().toPosition());
-                            newBuilder.rightClick(currentJob.getStartedBuilding());
-                            currentJob.setAssignedBuilder(newBuilder);
-                        }
-                        else{
-                            Unit newBuilder = getSpareBuilderCloseTo(currentJob.getLocation().toPosition());
-                            currentJob.setAssignedBuilder(newBuilder);
-                            newBuilder.build(currentJob.getToBuild(),currentJob.getLocation());
-                        }
-                    }
-                }
+                mineralPatches.unassign(killedUnitBuilding.getID());
+                gasStaffing.workerRemoved(killedUnitBuilding.getID());
+                Unit killedBuilder = buildersByID.remove(killedUnitBuilding.getID());
+                if (killedBuilder != null)
+                    allBuilders.remove(killedBuilder);
 
-            }
+                ConstructionJob reservedJob = reservedJobs.getByBuilder(killedUnitBuilding.getID());
+                //Another builder is sent when it is next due
+                if (reservedJob != null)
+                    reservedJobs.setBuilder(reservedJob, null);
 
-            if (killedUnitBuilding.getType().whatBuilds().first.isWorker())
-            {
-                ConstructionJob toRemove = null;
-                for (ConstructionJob currentJob : allJobs){
-                    if (currentJob.getStartedBuilding().getID() == killedUnitBuilding.getID())
-                    {
-                        toRemove = currentJob;
+                ConstructionJob currentJob = jobs.getByBuilder(killedUnitBuilding.getID());
+                if (currentJob != null) {
+                    jobs.setBuilder(currentJob, null);
+                    Unit newBuilder = getSpareBuilderCloseTo(currentJob.getLocation().toPosition());
+                    if (newBuilder == null) {
+                        debugMessage("No spare builder to replace killed builder, waiting for one");
+                        pendingJobs.add(currentJob);
                     }
-                }
-                if (toRemove != null) {
-                    debugMessage("Job Removed");
-                    allJobs.remove(toRemove);
+                    else
+                        giveBuilder(currentJob, newBuilder);
                 }
             }
+
+            ConstructionJob toRemove = jobs.getByBuilding(killedUnitBuilding.getID());
+            if (toRemove != null) {
+                debugMessage("Job Removed");
+                pendingJobs.remove(toRemove);
+                jobs.remove(toRemove);
+            }
         }
     }
 
     /**
-     * Retrieves the closest builder that is only mining minerals
+     * Retrieves the closest builder that is only mining minerals, isn't on a job or waiting at a reserved job's site and hasn't already been taken this frame.
+     * Builders taking minerals back are only picked if there is no one else, so their load isn't lost. The builder is let go from its mineral patch.
+     * Searches the grid filled by onFrame, so builders that started mining since the last onFrame aren't found until the next.
      * @param closeTo What you are getting the closest builder to
-     * @return the builder
+     * @return the builder. NULL if no builder is mining minerals.
      */
     public Unit getSpareBuilderCloseTo(Position closeTo)
     {
-        Unit closestBuilder = null;
-        for (Unit builder : allBuilders)
-        {
-            if ((closestBuilder == null) || (builder.getDistance(closeTo) < closestBuilder.getDistance(closeTo)))
-            {
-                if (builder.isGatheringMinerals())
-                    closestBuilder = builder;
-            }
-        }
+        Unit closestBuilder = takeFreeBuilder(closeTo, false);
+        if (closestBuilder == null)
+            closestBuilder = takeFreeBuilder(closeTo, true);
+        if (closestBuilder != null)
+            mineralPatches.unassign(closestBuilder.getID());
         return closestBuilder;
     }
 
+    //The nearest builder in the grid that hasn't been put on a job since the grid was filled
+    private Unit takeFreeBuilder(Position closeTo, boolean allowCarrying)
+    {
+        Unit builder;
+        do {
+            builder = spareBuilders.takeNearest(closeTo.getX(), closeTo.getY(), allowCarrying);
+        } while ((builder != null) && (jobs.hasBuilder(builder.getID()) || reservedJobs.hasBuilder(builder.getID())));
+        return builder;
+    }
+
     /**
      * Finds the closest mineral patch
      * @param closestTo What you are finding the closest mineral patch to
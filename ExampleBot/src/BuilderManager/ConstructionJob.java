@@ -6,6 +6,9 @@ import bwapi.UnitType;
 
 /**
  * Storage for the different Construction jobs that are ordered. Holds the details of what to build, the builder assigned, and the building once started.
+ * A reserved job also holds the frame the building is expected to be paid for on. It has no builder until one is sent to the site ahead of that frame.
+ * The frames the job was added on, last given a builder on, its builder got to the site on and the building was started on are kept for timing construction, and for catching jobs that are stuck.
+ * Each is -1 until it has happened.
  */
 public class ConstructionJob {
 
@@ -13,6 +16,13 @@ public class ConstructionJob {
     private UnitType toBuild;
     private TilePosition location;
     private Unit startedBuilding;
+    private int expectedStartFrame;
+    private int commissionedFrame;
+    private int assignedFrame;
+    private int arrivalDeadlineFrame;
+    private int arrivedFrame;
+    private int firstArrivedFrame;
+    private int startedFrame;
 
     public ConstructionJob(Unit assignedBuilder, UnitType toBuild, TilePosition location)
     {
@@ -20,15 +30,53 @@ public class ConstructionJob {
         this.assignedBuilder = assignedBuilder;
         this.toBuild = toBuild;
         this.location = location;
+        this.expectedStartFrame = -1;
+        this.commissionedFrame = -1;
+        this.assignedFrame = -1;
+        this.arrivalDeadlineFrame = -1;
+        this.arrivedFrame = -1;
+        this.firstArrivedFrame = -1;
+        this.startedFrame = -1;
     }
 
     public Unit getAssignedBuilder() {return assignedBuilder;}
     public UnitType getToBuild() {return toBuild;}
     public TilePosition getLocation() {return location;}
     public Unit getStartedBuilding() {return startedBuilding;}
+    public int getExpectedStartFrame() {return expectedStartFrame;}
+    public int getCommissionedFrame() {return commissionedFrame;}
+    public int getAssignedFrame() {return assignedFrame;}
+    public int getArrivalDeadlineFrame() {return arrivalDeadlineFrame;}
+    public int getArrivedFrame() {return arrivedFrame;}
+    public int getFirstArrivedFrame() {return firstArrivedFrame;}
+    public int getStartedFrame() {return startedFrame;}
 
     public void setStartedBuilding(Unit startedBuilding){this.startedBuilding = startedBuilding;}
     public void setAssignedBuilder(Unit builder) {this.assignedBuilder = builder;}
+    public void setExpectedStartFrame(int frame) {this.expectedStartFrame = frame;}
+    public void setLocation(TilePosition location) {this.location = location;}
+    public void setCommissionedFrame(int frame) {this.commissionedFrame = frame;}
+
+    /**
+     * Records the frame the job's builder got to the site. The first frame any builder got there is kept as well.
+     */
+    public void setArrivedFrame(int frame)
+    {
+        this.arrivedFrame = frame;
+        if (firstArrivedFrame == -1)
+            firstArrivedFrame = frame;
+    }
+    public void setStartedFrame(int frame) {this.startedFrame = frame;}
+
+    /**
+     * Records the frame a builder was given to the job, and the frame it should have got to the site by. The builder is counted as not there yet.
+     */
+    public void setAssignedFrame(int frame, int arrivalDeadlineFrame)
+    {
+        this.assignedFrame = frame;
+        this.arrivalDeadlineFrame = arrivalDeadlineFrame;
+        this.arrivedFrame = -1;
+    }
 
 
 }
@@ -0,0 +1,113 @@
+package BuilderManager;
+
+import FrameProfiler.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * How long the BuilderManager's construction jobs took over a game, in frames, and how often stuck jobs had to be recovered.
+ * Times are kept in LatencyHistograms, recorded as counts of frames with recordValue, so recording one never allocates.
+ * All times are from the frame the job was added, to the first time each stage was reached. Reserved jobs are timed from when they were added, not from when they were reserved.
+ */
+public class ConstructionStats {
+
+    private LatencyHistogram toAssign;
+    private LatencyHistogram toArrive;
+    private LatencyHistogram toStart;
+    private LatencyHistogram toComplete;
+    private int buildersReplaced;
+    private int sitesReplanned;
+
+    public ConstructionStats()
+    {
+        toAssign = new LatencyHistogram();
+        toArrive = new LatencyHistogram();
+        toStart = new LatencyHistogram();
+        toComplete = new LatencyHistogram();
+    }
+
+    /**
+     * Gets the histogram of frames from a job being added to it first getting a builder
+     */
+    public LatencyHistogram getTimesToAssign() {return toAssign;}
+
+    /**
+     * Gets the histogram of frames from a job being added to its builder getting to the site
+     */
+    public LatencyHistogram getTimesToArrive() {return toArrive;}
+
+    /**
+     * Gets the histogram of frames from a job being added to its building being started
+     */
+    public LatencyHistogram getTimesToStart() {return toStart;}
+
+    /**
+     * Gets the histogram of frames from a job being added to its building being finished
+     */
+    public LatencyHistogram getTimesToComplete() {return toComplete;}
+
+    /**
+     * Gets how many builders were taken off a job for not getting to the site in time
+     */
+    public int getBuildersReplaced() {return buildersReplaced;}
+
+    /**
+     * Gets how many jobs were moved to another tile for not being started once their builder was at the site
+     */
+    public int getSitesReplanned() {return sitesReplanned;}
+
+    void assigned(ConstructionJob job) {record(toAssign, job, job.getAssignedFrame());}
+    void arrived(ConstructionJob job) {record(toArrive, job, job.getFirstArrivedFrame());}
+    void started(ConstructionJob job) {record(toStart, job, job.getStartedFrame());}
+    void completed(ConstructionJob job, int frame) {record(toComplete, job, frame);}
+    void builderReplaced() {buildersReplaced++;}
+    void siteReplanned() {sitesReplanned++;}
+
+    /**
+     * Writes the report of the game's construction times to a file. Folders on the path are made if needed.
+     * @param path Where to write the report, such as bwapi-data/write/constructionProfile.txt
+     */
+    public void writeReport(String path)
+    {
+        File file = new File(path);
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(buildReport());
+        } catch (IOException e) {
+            System.out.println("BUILDER MANAGER: Could not write construction report to " + path + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the report of the game's construction times, with a line for each stage
+     * @return The report text
+     */
+    public String buildReport()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append("Builders replaced: ").append(buildersReplaced).append(", Sites replanned: ").append(sitesReplanned).append("\n");
+        report.append(String.format("%-20s %8s %8s %8s %8s %8s %8s%n", "Frames from added", "Jobs", "Mean", "p50", "p90", "p99", "Max"));
+        report.append(reportLine("To builder", toAssign));
+        report.append(reportLine("To arrive", toArrive));
+        report.append(reportLine("To start", toStart));
+        report.append(reportLine("To complete", toComplete));
+        return report.toString();
+    }
+
+    //Only jobs timed from when they were added are recorded
+    private static void record(LatencyHistogram times, ConstructionJob job, int frame)
+    {
+        if ((job.getCommissionedFrame() >= 0) && (frame >= job.getCommissionedFrame()))
+            times.recordValue(frame - job.getCommissionedFrame());
+    }
+
+    private static String reportLine(String name, LatencyHistogram times)
+    {
+        return String.format("%-20s %8d %8.1f %8d %8d %8d %8d%n", name, times.getCount(), times.getMean(),
+                times.getPercentile(50), times.getPercentile(90), times.getPercentile(99), times.getMax());
+    }
+}
@@ -0,0 +1,155 @@
+package BuilderManager;
+
+import bwapi.Position;
+import bwapi.Unit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Table of the player's completed refineries and which workers are gathering gas at each, kept up to date from unit events by the BuilderManager.
+ * Nothing here looks at the game's units, so finding a worker's refinery or the refinery with the most room is a look up in the table rather than a scan of every unit.
+ */
+class GasStaffing {
+
+    //Three workers on a refinery is as much gas as it can give. A fourth only waits its turn.
+    static final int WORKERS_PER_REFINERY = 3;
+
+    static class Refinery {
+        final Unit unit;
+        final int id;
+        final Position position;
+        final LinkedHashSet<Unit> workers = new LinkedHashSet<>();
+
+        Refinery(Unit unit)
+        {
+            this.unit = unit;
+            this.id = unit.getID();
+            this.position = unit.getPosition();
+        }
+    }
+
+    private LinkedHashMap<Integer, Refinery> refineries;
+    private HashMap<Integer, Refinery> byWorker;
+
+    GasStaffing()
+    {
+        refineries = new LinkedHashMap<>();
+        byWorker = new HashMap<>();
+    }
+
+    int getRefineryCount() {return refineries.size();}
+
+    /**
+     * Gets how many workers are gathering gas across every refinery
+     */
+    int getWorkerCount() {return byWorker.size();}
+
+    /**
+     * Gets how many workers the refineries can take between them
+     */
+    int getCapacity() {return refineries.size() * WORKERS_PER_REFINERY;}
+
+    boolean isRefinery(int unitID) {return refineries.containsKey(unitID);}
+
+    /**
+     * Gets the refinery a worker was given
+     * @return The refinery. NULL if the worker isn't gathering gas.
+     */
+    Refinery getRefineryOf(int workerID) {return byWorker.get(workerID);}
+
+    /**
+     * Adds a refinery that has just been finished
+     */
+    void refineryAdded(Unit refinery)
+    {
+        if (!refineries.containsKey(refinery.getID()))
+            refineries.put(refinery.getID(), new Refinery(refinery));
+    }
+
+    /**
+     * Takes a destroyed refinery out of the table
+     * @return The workers that were gathering from it, to be sent back to minerals
+     */
+    ArrayList<Unit> refineryRemoved(int refineryID)
+    {
+        ArrayList<Unit> orphaned = new ArrayList<>();
+        Refinery refinery = refineries.remove(refineryID);
+        if (refinery == null)
+            return orphaned;
+        for (Unit currentWorker : refinery.workers) {
+            byWorker.remove(currentWorker.getID());
+            orphaned.add(currentWorker);
+        }
+        return orphaned;
+    }
+
+    /**
+     * Gives a worker to a refinery
+     */
+    void assign(Unit worker, Refinery refinery)
+    {
+        workerRemoved(worker.getID());
+        refinery.workers.add(worker);
+        byWorker.put(worker.getID(), refinery);
+    }
+
+    /**
+     * Takes the worker given to a refinery longest ago off it
+     * @return The worker. NULL if it had none.
+     */
+    Unit unassignOne(Refinery refinery)
+    {
+        Iterator<Unit> workers = refinery.workers.iterator();
+        if (!workers.hasNext())
+            return null;
+        Unit worker = workers.next();
+        workers.remove();
+        byWorker.remove(worker.getID());
+        return worker;
+    }
+
+    /**
+     * Lets go of a worker, such as when it is killed
+     */
+    void workerRemoved(int workerID)
+    {
+        Refinery refinery = byWorker.remove(workerID);
+        if (refinery == null)
+            return;
+        Iterator<Unit> workers = refinery.workers.iterator();
+        while (workers.hasNext()) {
+            if (workers.next().getID() == workerID)
+                workers.remove();
+        }
+    }
+
+    /**
+     * @return The refinery with the fewest workers that has room for another. NULL if every refinery is full.
+     */
+    Refinery leastStaffed()
+    {
+        Refinery least = null;
+        for (Refinery currentRefinery : refineries.values()) {
+            if ((currentRefinery.workers.size() < WORKERS_PER_REFINERY) && ((least == null) || (currentRefinery.workers.size() < least.workers.size())))
+                least = currentRefinery;
+        }
+        return least;
+    }
+
+    /**
+     * @return The refinery with the most workers. NULL if none have any.
+     */
+    Refinery mostStaffed()
+    {
+        Refinery most = null;
+        for (Refinery currentRefinery : refineries.values()) {
+            if (!currentRefinery.workers.isEmpty() && ((most == null) || (currentRefinery.workers.size() > most.workers.size())))
+                most = currentRefinery;
+        }
+        return most;
+    }
+}
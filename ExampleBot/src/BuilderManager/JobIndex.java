@@ -0,0 +1,139 @@
+package BuilderManager;
+
+import bwapi.TilePosition;
+import bwapi.Unit;
+import bwapi.UnitType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * The BuilderManager's construction jobs, indexed by their builder's ID, their started building's ID and the building and tile they are for, so a unit event finds its job without looking through them all.
+ * A job's builder, building and tile must be changed through the index, not on the job, so the indexes stay right.
+ * Jobs are kept in the order they were added.
+ */
+class JobIndex {
+
+    //A building type at a tile. UnitTypes are only ever made once each, so they can be compared by reference.
+    private static class SiteKey {
+        final UnitType type;
+        final int x;
+        final int y;
+
+        SiteKey(UnitType type, TilePosition location)
+        {
+            this.type = type;
+            this.x = location.getX();
+            this.y = location.getY();
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof SiteKey))
+                return false;
+            SiteKey key = (SiteKey) other;
+            return (key.type == type) && (key.x == x) && (key.y == y);
+        }
+
+        @Override
+        public int hashCode() {return (31 * ((31 * System.identityHashCode(type)) + x)) + y;}
+    }
+
+    private final LinkedHashSet<ConstructionJob> jobs = new LinkedHashSet<>();
+    private final HashMap<Integer, ConstructionJob> byBuilder = new HashMap<>();
+    private final HashMap<Integer, ConstructionJob> byBuilding = new HashMap<>();
+    private final HashMap<SiteKey, ConstructionJob> bySite = new HashMap<>();
+
+    /**
+     * Adds a job. A job already held for the same building at the same tile is replaced in the site index.
+     */
+    void add(ConstructionJob job)
+    {
+        jobs.add(job);
+        bySite.put(new SiteKey(job.getToBuild(), job.getLocation()), job);
+        if (job.getAssignedBuilder() != null)
+            byBuilder.put(job.getAssignedBuilder().getID(), job);
+        if (job.getStartedBuilding() != null)
+            byBuilding.put(job.getStartedBuilding().getID(), job);
+    }
+
+    void remove(ConstructionJob job)
+    {
+        if (!jobs.remove(job))
+            return;
+        SiteKey key = new SiteKey(job.getToBuild(), job.getLocation());
+        if (bySite.get(key) == job)
+            bySite.remove(key);
+        if (job.getAssignedBuilder() != null)
+            byBuilder.remove(job.getAssignedBuilder().getID());
+        if (job.getStartedBuilding() != null)
+            byBuilding.remove(job.getStartedBuilding().getID());
+    }
+
+    /**
+     * Changes a job's builder
+     * @param builder The new builder. NULL to leave the job without one.
+     */
+    void setBuilder(ConstructionJob job, Unit builder)
+    {
+        if (job.getAssignedBuilder() != null)
+            byBuilder.remove(job.getAssignedBuilder().getID());
+        job.setAssignedBuilder(builder);
+        if ((builder != null) && jobs.contains(job))
+            byBuilder.put(builder.getID(), job);
+    }
+
+    void setStartedBuilding(ConstructionJob job, Unit building)
+    {
+        if (job.getStartedBuilding() != null)
+            byBuilding.remove(job.getStartedBuilding().getID());
+        job.setStartedBuilding(building);
+        if ((building != null) && jobs.contains(job))
+            byBuilding.put(building.getID(), job);
+    }
+
+    /**
+     * Moves a job to another tile
+     */
+    void setLocation(ConstructionJob job, TilePosition location)
+    {
+        SiteKey key = new SiteKey(job.getToBuild(), job.getLocation());
+        if (bySite.get(key) == job)
+            bySite.remove(key);
+        job.setLocation(location);
+        if (jobs.contains(job))
+            bySite.put(new SiteKey(job.getToBuild(), location), job);
+    }
+
+    /**
+     * @return The job the unit is the builder of. NULL if it isn't building anything.
+     */
+    ConstructionJob getByBuilder(int builderID) {return byBuilder.get(builderID);}
+
+    /**
+     * @return The job that started the building. NULL if it wasn't started by a job.
+     */
+    ConstructionJob getByBuilding(int buildingID) {return byBuilding.get(buildingID);}
+
+    /**
+     * @return The job for the building at the tile. NULL if there isn't one.
+     */
+    ConstructionJob getBySite(UnitType toBuild, TilePosition location) {return bySite.get(new SiteKey(toBuild, location));}
+
+    /**
+     * Checks whether a unit is the builder of any job here, so it mustn't be given to another
+     */
+    boolean hasBuilder(int builderID) {return byBuilder.containsKey(builderID);}
+
+    /**
+     * Gets every job, oldest first. Read only.
+     */
+    Collection<ConstructionJob> getJobs() {return Collections.unmodifiableCollection(jobs);}
+
+    boolean contains(ConstructionJob job) {return jobs.contains(job);}
+
+    int size() {return jobs.size();}
+}
@@ -0,0 +1,336 @@
+package BuilderManager;
+
+import bwapi.Position;
+import bwapi.Unit;
+import bwta.BaseLocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Table of the mineral patches at every base, made once from BWTA at game start, and of which workers are mining which patch.
+ * Each base keeps its patches in buckets by how many workers are on them, so the least mined patch at a base is found without looking at every patch.
+ * Patches start in their bucket closest to the base first, so the nearest patches are filled first.
+ * Positions are copied out of BWAPI when the table is made, so picking a base or a patch needs no calls into BWAPI.
+ * Bases where the player has a finished resource depot are owned, kept from depot events. Workers are given to the nearest owned base that isn't saturated,
+ * and workers over saturation at one owned base, or at any base the player no longer owns, are moved one at a time to the owned base furthest under saturation.
+ */
+class MineralPatches {
+
+    //Two workers on a patch is close to the most it can be mined. A third mostly waits its turn.
+    static final int WORKERS_PER_PATCH = 2;
+    //How far a depot can be from a base location and still count as that base's depot
+    static final int DEPOT_RANGE = 320;
+
+    static class Patch {
+        final Unit unit;
+        final int id;
+        final Base base;
+        final int x;
+        final int y;
+        int workers;
+        final LinkedHashSet<Integer> workerIDs = new LinkedHashSet<>();
+
+        Patch(Unit unit, Base base)
+        {
+            this.unit = unit;
+            this.id = unit.getID();
+            this.base = base;
+            Position position = unit.getPosition();
+            this.x = position.getX();
+            this.y = position.getY();
+        }
+    }
+
+    static class Base {
+        final BaseLocation location;
+        final int x;
+        final int y;
+        //byLoad.get(n) holds the patches with n workers on them
+        final ArrayList<LinkedHashSet<Patch>> byLoad = new ArrayList<>();
+        int patchCount;
+        int workers;
+        //Finished resource depots the player has at the base
+        int depots;
+
+        Base(BaseLocation location)
+        {
+            this.location = location;
+            Position position = location.getPosition();
+            this.x = position.getX();
+            this.y = position.getY();
+        }
+
+        void file(Patch patch)
+        {
+            while (byLoad.size() <= patch.workers)
+                byLoad.add(new LinkedHashSet<Patch>());
+            byLoad.get(patch.workers).add(patch);
+        }
+
+        void unfile(Patch patch) {byLoad.get(patch.workers).remove(patch);}
+
+        //Workers the base can take before another adds nothing. 0 if the player doesn't own it.
+        int saturation() {return (depots > 0) ? patchCount * WORKERS_PER_PATCH : 0;}
+
+        //The most mined patch. NULL if nobody is mining here.
+        Patch mostLoaded()
+        {
+            for (int load = byLoad.size() - 1; load > 0; load--) {
+                if (!byLoad.get(load).isEmpty())
+                    return byLoad.get(load).iterator().next();
+            }
+            return null;
+        }
+
+        //The least mined patch. NULL if the base is mined out.
+        Patch leastLoaded()
+        {
+            for (LinkedHashSet<Patch> bucket : byLoad) {
+                if (!bucket.isEmpty())
+                    return bucket.iterator().next();
+            }
+            return null;
+        }
+    }
+
+    private ArrayList<Base> bases;
+    private HashMap<Integer, Patch> patches;
+    private HashMap<Integer, Patch> assignments;
+    private HashMap<Integer, Base> depots;
+    //Set whenever a worker, depot or patch changes, so transferOne only looks at the bases when something could need moving
+    private boolean changed;
+
+    /**
+     * Makes the table from the bases BWTA found. BWTA must have analysed the map first.
+     * @param locations Every base location on the map
+     */
+    MineralPatches(List<BaseLocation> locations)
+    {
+        bases = new ArrayList<>();
+        patches = new HashMap<>();
+        assignments = new HashMap<>();
+        depots = new HashMap<>();
+        changed = true;
+
+        for (BaseLocation currentLocation : locations) {
+            final Base base = new Base(currentLocation);
+            ArrayList<Patch> basePatches = new ArrayList<>();
+            for (Unit currentMineral : currentLocation.getMinerals())
+                basePatches.add(new Patch(currentMineral, base));
+            Collections.sort(basePatches, new Comparator<Patch>() {
+                @Override
+                public int compare(Patch a, Patch b) {return Long.compare(distanceSquared(a.x, a.y, base.x, base.y), distanceSquared(b.x, b.y, base.x, base.y));}
+            });
+            for (Patch currentPatch : basePatches) {
+                base.file(currentPatch);
+                patches.put(currentPatch.id, currentPatch);
+            }
+            base.patchCount = basePatches.size();
+            bases.add(base);
+        }
+    }
+
+    /**
+     * Gets how many patches are left across all bases
+     */
+    int getPatchCount() {return patches.size();}
+
+    /**
+     * Checks whether a unit is one of the patches in the table
+     * @param unitID The unit's ID
+     */
+    boolean isPatch(int unitID) {return patches.containsKey(unitID);}
+
+    /**
+     * Gets the patch a worker was given
+     * @return The patch. NULL if the worker hasn't been given one.
+     */
+    Patch getPatchOf(int workerID) {return assignments.get(workerID);}
+
+    /**
+     * Marks the base nearest a finished resource depot of the player's as owned. Depots too far from any base are ignored.
+     * @param depotID The depot's ID
+     * @param x Where the depot is
+     * @param y Where the depot is
+     */
+    void depotAdded(int depotID, int x, int y)
+    {
+        if (depots.containsKey(depotID))
+            return;
+        Base nearest = null;
+        long nearestDistance = (long) DEPOT_RANGE * DEPOT_RANGE;
+        for (Base currentBase : bases) {
+            long distance = distanceSquared(x, y, currentBase.x, currentBase.y);
+            if (distance <= nearestDistance) {
+                nearest = currentBase;
+                nearestDistance = distance;
+            }
+        }
+        if (nearest == null)
+            return;
+        nearest.depots++;
+        depots.put(depotID, nearest);
+        changed = true;
+    }
+
+    /**
+     * Lets go of a depot that has been destroyed. A base left with no depot is no longer owned, and its workers are moved off it by transferOne.
+     * @param depotID The depot's ID
+     */
+    void depotRemoved(int depotID)
+    {
+        Base base = depots.remove(depotID);
+        if (base != null) {
+            base.depots--;
+            changed = true;
+        }
+    }
+
+    /**
+     * Moves one worker from the base with the most workers over its saturation to the owned base with the most room under its saturation, onto its least mined patch.
+     * Nothing is moved unless one base is over and another under, so workers are never moved back and forth.
+     * Once nothing needs moving, the bases aren't looked at again until a worker, depot or patch changes.
+     * @return The ID of the worker moved, whose new patch is given by getPatchOf. -1 if nothing needed moving.
+     */
+    int transferOne()
+    {
+        if (!changed)
+            return -1;
+        Base over = null;
+        Base under = null;
+        for (Base currentBase : bases) {
+            int surplus = currentBase.workers - currentBase.saturation();
+            if ((surplus > 0) && ((over == null) || (surplus > over.workers - over.saturation())))
+                over = currentBase;
+            if ((surplus < 0) && ((under == null) || (surplus < under.workers - under.saturation())))
+                under = currentBase;
+        }
+        if ((over == null) || (under == null)) {
+            changed = false;
+            return -1;
+        }
+
+        Patch from = over.mostLoaded();
+        int workerID = from.workerIDs.iterator().next();
+        unassign(workerID);
+        give(workerID, under.leastLoaded());
+        return workerID;
+    }
+
+    /**
+     * Gives a worker the least mined patch at the base nearest to it that has minerals left. Any patch it was given before is let go first.
+     * @param workerID The worker's ID
+     * @param x Where the worker is
+     * @param y Where the worker is
+     * @return The patch. NULL if every base is mined out.
+     */
+    Patch assign(int workerID, int x, int y)
+    {
+        unassign(workerID);
+        Base base = nearestBase(x, y);
+        if (base == null)
+            return null;
+        Patch patch = base.leastLoaded();
+        give(workerID, patch);
+        return patch;
+    }
+
+    private void give(int workerID, Patch patch)
+    {
+        Base base = patch.base;
+        base.unfile(patch);
+        patch.workers++;
+        patch.workerIDs.add(workerID);
+        base.workers++;
+        base.file(patch);
+        assignments.put(workerID, patch);
+        changed = true;
+    }
+
+    /**
+     * Lets go of the patch a worker was given, such as when it is taken to build or is killed.
+     * @param workerID The worker's ID
+     */
+    void unassign(int workerID)
+    {
+        Patch patch = assignments.remove(workerID);
+        if ((patch == null) || (patches.get(patch.id) != patch))
+            return;
+        patch.base.unfile(patch);
+        patch.workers--;
+        patch.workerIDs.remove(workerID);
+        patch.base.workers--;
+        patch.base.file(patch);
+        changed = true;
+    }
+
+    /**
+     * Takes a mined out patch out of the table.
+     * @param patchID The patch's ID
+     * @return The IDs of the workers that were mining it, to be given new patches
+     */
+    ArrayList<Integer> patchRemoved(int patchID)
+    {
+        ArrayList<Integer> orphaned = new ArrayList<>();
+        Patch patch = patches.remove(patchID);
+        if (patch == null)
+            return orphaned;
+        patch.base.unfile(patch);
+        patch.base.patchCount--;
+        patch.base.workers -= patch.workers;
+        changed = true;
+
+        for (int workerID : patch.workerIDs) {
+            if (assignments.get(workerID) == patch) {
+                assignments.remove(workerID);
+                orphaned.add(workerID);
+            }
+        }
+        return orphaned;
+    }
+
+    //The nearest owned base to a position that isn't saturated. If all are, the nearest owned base with patches, and if the player owns none of those, the nearest base with patches.
+    private Base nearestBase(int x, int y)
+    {
+        Base nearestRoom = null;
+        Base nearestOwned = null;
+        Base nearest = null;
+        long roomDistance = Long.MAX_VALUE;
+        long ownedDistance = Long.MAX_VALUE;
+        long nearestDistance = Long.MAX_VALUE;
+        for (Base currentBase : bases) {
+            if (currentBase.patchCount == 0)
+                continue;
+            long distance = distanceSquared(x, y, currentBase.x, currentBase.y);
+            if (distance < nearestDistance) {
+                nearest = currentBase;
+                nearestDistance = distance;
+            }
+            if (currentBase.depots == 0)
+                continue;
+            if (distance < ownedDistance) {
+                nearestOwned = currentBase;
+                ownedDistance = distance;
+            }
+            if ((currentBase.workers < currentBase.saturation()) && (distance < roomDistance)) {
+                nearestRoom = currentBase;
+                roomDistance = distance;
+            }
+        }
+        if (nearestRoom != null)
+            return nearestRoom;
+        return (nearestOwned != null) ? nearestOwned : nearest;
+    }
+
+    static long distanceSquared(int x1, int y1, int x2, int y2)
+    {
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return (dx * dx) + (dy * dy);
+    }
+}
@@ -0,0 +1,154 @@
+package BuilderManager;
+
+import bwapi.Unit;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the map holding the workers that could be taken off mining to build, filled once a frame by the BuilderManager.
+ * Workers in each cell are kept as a linked list through flat arrays, so filling the grid is one pass over the builders and makes no objects after the first frame.
+ * The nearest worker to a point is found by searching outward from the point's cell one ring of cells at a time, stopping once no further ring can hold anyone nearer.
+ * Positions are read once when the grid is filled, so a search makes no calls into BWAPI and its cost depends on how many workers are near the point, not on how many there are.
+ */
+class WorkerGrid {
+
+    static final int CELL_SIZE = 256; //8 tiles
+
+    private final int columns;
+    private final int rows;
+    private final int[] cellHeads;
+
+    private int count;
+    private int[] next;
+    private Unit[] workers;
+    private int[] xs;
+    private int[] ys;
+    private boolean[] carrying;
+    private boolean[] taken;
+
+    /**
+     * @param widthPixels The map's width in pixels
+     * @param heightPixels The map's height in pixels
+     */
+    WorkerGrid(int widthPixels, int heightPixels)
+    {
+        columns = Math.max(1, (widthPixels + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (heightPixels + CELL_SIZE - 1) / CELL_SIZE);
+        cellHeads = new int[columns * rows];
+        Arrays.fill(cellHeads, -1);
+        grow(64);
+    }
+
+    /**
+     * Empties the grid, ready to be filled again.
+     */
+    void clear()
+    {
+        Arrays.fill(cellHeads, -1);
+        count = 0;
+    }
+
+    /**
+     * Adds a worker that is mining minerals and not on a job.
+     * @param worker The worker
+     * @param x Where it is
+     * @param y Where it is
+     * @param carryingMinerals True if it is taking minerals back, which would be lost if it were taken now
+     */
+    void add(Unit worker, int x, int y, boolean carryingMinerals)
+    {
+        if (count == workers.length)
+            grow(count * 2);
+        int cell = cellOf(x, y);
+        workers[count] = worker;
+        xs[count] = x;
+        ys[count] = y;
+        carrying[count] = carryingMinerals;
+        taken[count] = false;
+        next[count] = cellHeads[cell];
+        cellHeads[cell] = count;
+        count++;
+    }
+
+    /**
+     * Finds the nearest worker to a point that hasn't already been taken this frame, and marks it as taken.
+     * Workers that are carrying minerals are passed over unless allowCarrying is set.
+     * @param x The point
+     * @param y The point
+     * @param allowCarrying True to also take workers carrying minerals
+     * @return The worker. NULL if there isn't one.
+     */
+    Unit takeNearest(int x, int y, boolean allowCarrying)
+    {
+        int best = nearest(x, y, allowCarrying);
+        if (best == -1)
+            return null;
+        taken[best] = true;
+        return workers[best];
+    }
+
+    /**
+     * Finds the nearest worker to a point that hasn't already been taken this frame, without taking it.
+     * @param x The point
+     * @param y The point
+     * @param allowCarrying True to also look at workers carrying minerals
+     * @return The worker. NULL if there isn't one.
+     */
+    Unit findNearest(int x, int y, boolean allowCarrying)
+    {
+        int best = nearest(x, y, allowCarrying);
+        return (best == -1) ? null : workers[best];
+    }
+
+    //The index of the nearest worker not taken. -1 if there isn't one.
+    private int nearest(int x, int y, boolean allowCarrying)
+    {
+        int centreColumn = clamp(x / CELL_SIZE, columns);
+        int centreRow = clamp(y / CELL_SIZE, rows);
+        int maxRing = Math.max(Math.max(centreColumn, columns - 1 - centreColumn), Math.max(centreRow, rows - 1 - centreRow));
+
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+                if ((row < 0) || (row >= rows))
+                    continue;
+                boolean edgeRow = (row == centreRow - ring) || (row == centreRow + ring);
+                //Rows at the top and bottom of the ring are searched along their length. Rows in between only have their two ends in the ring.
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int column = centreColumn - ring; column <= centreColumn + ring; column += step) {
+                    if ((column < 0) || (column >= columns))
+                        continue;
+                    for (int i = cellHeads[(row * columns) + column]; i != -1; i = next[i]) {
+                        if (taken[i] || (carrying[i] && !allowCarrying))
+                            continue;
+                        long distance = MineralPatches.distanceSquared(x, y, xs[i], ys[i]);
+                        if (distance < bestDistance) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+            //Everything in the next ring is at least this far away
+            long ringReach = (long) ring * CELL_SIZE;
+            if ((best != -1) && (bestDistance <= ringReach * ringReach))
+                break;
+        }
+        return best;
+    }
+
+    private int cellOf(int x, int y) {return (clamp(y / CELL_SIZE, rows) * columns) + clamp(x / CELL_SIZE, columns);}
+
+    private static int clamp(int value, int size) {return Math.max(0, Math.min(size - 1, value));}
+
+    private void grow(int size)
+    {
+        next = Arrays.copyOf(next == null ? new int[0] : next, size);
+        workers = Arrays.copyOf(workers == null ? new Unit[0] : workers, size);
+        xs = Arrays.copyOf(xs == null ? new int[0] : xs, size);
+        ys = Arrays.copyOf(ys == null ? new int[0] : ys, size);
+        carrying = Arrays.copyOf(carrying == null ? new boolean[0] : carrying, size);
+        taken = Arrays.copyOf(taken == null ? new boolean[0] : taken, size);
+    }
+}
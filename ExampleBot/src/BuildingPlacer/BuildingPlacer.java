@@ -0,0 +1,588 @@
+package BuildingPlacer;
+
+import bwapi.Game;
+import bwapi.Player;
+import bwapi.Race;
+import bwapi.TilePosition;
+import bwapi.Unit;
+import bwapi.UnitType;
+import bwta.BWTA;
+import bwta.BaseLocation;
+import bwta.Chokepoint;
+import main.BaseAPI;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * BUILDING PLACER
+ * Finds where to put buildings without asking StarCraft about every tile it looks at.
+ * The map is kept as layers of tiles: which tiles can be built on, taken at game start, which are covered by buildings and resources, which are held for buildings that have been asked for but not started,
+ * which are too close to resources for a resource depot, which have creep and which are powered by the player's pylons.
+ * The covered tiles are kept up to date from unit events and by watching Terran buildings lift off and land, creep is read back from the game a few rows at a time each frame, and power changes as pylons are finished and destroyed.
+ * Each layer keeps a summed-area table, so whether a building of any size fits at a tile is a handful of look ups, and searching out from a tile makes no calls into BWAPI.
+ * Only buildings and resources are kept, so a unit standing on a spot can still stop a building from being placed there. The builder walking up to it usually moves it.
+ * At game start a list of good places for each size of building around every base is also worked out on a thread of its own, while the first frames play.
+ * Once it is ready, getPlannedTile hands out the best of those places that is still free on the live map, and getBuildTile can be used when it has nothing to give.
+ *
+ * REQUIRED USER BOT CALLS
+ * onGameStart: call Constructor
+ * onFrame: call onFrame
+ * onUnitCreate: call unitCreated
+ * onUnitDiscover: call unitCreated
+ * onUnitMorph: call unitMorphed
+ * onUnitComplete: call unitCompleted
+ * onUnitDestroy: call unitDestroyed
+ *
+ */
+public class BuildingPlacer {
+
+    //How far from the tile asked for a building is looked for, as the original search did
+    static final int MAX_DISTANCE = 40;
+    //Resource depots can't be placed within 3 tiles of a mineral field or geyser
+    static final int RESOURCE_GAP = 3;
+    //Rows of creep read back from the game each frame. The whole of a 128 row map is read every 32 frames.
+    static final int CREEP_ROWS_PER_FRAME = 4;
+    //The sizes of building places are planned for. 6 by 3 is a 4 by 3 building with room for an addon.
+    private static final int[][] PLANNED_SIZES = {{2, 2}, {3, 2}, {4, 2}, {4, 3}, {6, 3}};
+    //The psi field of a completed pylon, by rows and columns of where the centre of the building is, as BWAPI checks it
+    private static final String[] PSI_FIELD = {
+            "0000011111100000",
+            "0011111111111100",
+            "0111111111111110",
+            "1111111111111111",
+            "1111111111111111",
+            "1111111111111111",
+            "1111111111111111",
+            "0111111111111110",
+            "0011111111111100",
+            "0000011111100000"};
+
+    private static class Footprint {
+        final Unit unit;
+        final UnitType type;
+        int x;
+        int y;
+        final int w;
+        final int h;
+        boolean onGround;
+        boolean powering;
+
+        Footprint(Unit unit, UnitType type, TilePosition at)
+        {
+            this.unit = unit;
+            this.type = type;
+            this.x = at.getX();
+            this.y = at.getY();
+            this.w = type.tileWidth();
+            this.h = type.tileHeight();
+        }
+    }
+
+    private static class Reservation {
+        final UnitType type;
+        final int x;
+        final int y;
+        final int w;
+        final int h;
+
+        Reservation(UnitType type, int x, int y, int w, int h)
+        {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+        }
+    }
+
+    private Game game;
+    private int mapWidth;
+    private int mapHeight;
+
+    private TileLayer unbuildable;
+    private TileLayer occupied;
+    private TileLayer reserved;
+    private TileLayer nearResources;
+    private TileLayer creep;
+    //One power layer for each way round the width and height of a building can be odd or even, as that moves which tiles its centre falls on
+    private TileLayer[] power;
+
+    private HashMap<Integer, Footprint> footprints;
+    private ArrayList<Footprint> lifters;
+    private ArrayList<Integer> geyserIDs;
+    private HashMap<TilePosition, Reservation> reservations;
+
+    private boolean creepPossible;
+    private int nextCreepRow;
+
+    private SlotPlanner slotPlanner;
+    private boolean slotsAnnounced;
+
+    private boolean debugMessagesOn;
+
+    /**
+     * Constructor. Takes which tiles can be built on and where every resource is, and starts keeping track of the buildings already on the map.
+     * @param debugMessagesOn True if you want the console output debug messages detailing the workings of the placer. False if you don't.
+     */
+    public BuildingPlacer(boolean debugMessagesOn)
+    {
+        this.debugMessagesOn = debugMessagesOn;
+        game = BaseAPI.baseAPI.game;
+        mapWidth = game.mapWidth();
+        mapHeight = game.mapHeight();
+
+        unbuildable = new TileLayer(mapWidth, mapHeight);
+        occupied = new TileLayer(mapWidth, mapHeight);
+        reserved = new TileLayer(mapWidth, mapHeight);
+        nearResources = new TileLayer(mapWidth, mapHeight);
+        creep = new TileLayer(mapWidth, mapHeight);
+        power = new TileLayer[4];
+        for (int i = 0; i < power.length; i++)
+            power[i] = new TileLayer(mapWidth, mapHeight);
+
+        footprints = new HashMap<>();
+        lifters = new ArrayList<>();
+        geyserIDs = new ArrayList<>();
+        reservations = new HashMap<>();
+
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                if (!game.isBuildable(x, y))
+                    unbuildable.set(x, y, 1);
+            }
+        }
+
+        //Resources that haven't been seen yet are only known from their starting state
+        for (Unit currentUnit : game.getStaticNeutralUnits()) {
+            if (blocksPlacement(currentUnit.getInitialType()))
+                track(currentUnit, currentUnit.getInitialType(), currentUnit.getInitialTilePosition(), false);
+        }
+        for (Unit currentResource : game.getStaticMinerals())
+            addResourceGap(currentResource);
+        for (Unit currentResource : game.getStaticGeysers()) {
+            addResourceGap(currentResource);
+            geyserIDs.add(currentResource.getID());
+        }
+        for (Unit currentUnit : game.getAllUnits()) {
+            unitCreated(currentUnit);
+            if (currentUnit.isCompleted())
+                unitCompleted(currentUnit);
+        }
+
+        for (Player currentPlayer : game.getPlayers()) {
+            if (currentPlayer.getRace() == Race.Zerg)
+                creepPossible = true;
+        }
+        if (creepPossible)
+            readCreep(0, mapHeight);
+
+        debugMessage("Tracking " + footprints.size() + " buildings and resources");
+        startSlotPlanner();
+    }
+
+    /**
+     * Call Every frame.
+     * Moves the footprint of any Terran building that has lifted off or landed, and reads back the next few rows of creep if there is a Zerg player in the game.
+     */
+    public void onFrame()
+    {
+        for (Footprint currentLifter : lifters) {
+            if (!currentLifter.unit.exists())
+                continue;
+            boolean lifted = currentLifter.unit.isLifted();
+            if (lifted && currentLifter.onGround) {
+                occupied.add(currentLifter.x, currentLifter.y, currentLifter.w, currentLifter.h, -1);
+                currentLifter.onGround = false;
+                debugMessage("Lifted off " + currentLifter.type);
+            }
+            else if (!lifted && !currentLifter.onGround) {
+                TilePosition landed = currentLifter.unit.getTilePosition();
+                currentLifter.x = landed.getX();
+                currentLifter.y = landed.getY();
+                occupied.add(currentLifter.x, currentLifter.y, currentLifter.w, currentLifter.h, 1);
+                currentLifter.onGround = true;
+                debugMessage("Landed " + currentLifter.type);
+            }
+        }
+
+        if (creepPossible) {
+            int rows = Math.min(CREEP_ROWS_PER_FRAME, mapHeight - nextCreepRow);
+            readCreep(nextCreepRow, rows);
+            nextCreepRow += rows;
+            if (nextCreepRow >= mapHeight)
+                nextCreepRow = 0;
+        }
+
+        if (!slotsAnnounced && (slotPlanner.getPlans() != null)) {
+            slotsAnnounced = true;
+            debugMessage("Building places planned in " + slotPlanner.getPlanningMillis() + "ms");
+        }
+    }
+
+    /**
+     * Takes the best place planned at game start for a building at the base nearest a tile, that is still free on the live map and has a tile of room around it.
+     * Places that have been reserved are passed over, so reserving the place given out stops it being given out again.
+     * @param buildingType The building to find a place for
+     * @param nearTile A tile at or near the base to build at
+     * @return The top left tile to build it at. NULL if planning hasn't finished, the building isn't a size that was planned for, or every place for it is taken.
+     */
+    public TilePosition getPlannedTile(UnitType buildingType, TilePosition nearTile)
+    {
+        ArrayList<SlotPlanner.PlanBase> plans = slotPlanner.getPlans();
+        if ((plans == null) || buildingType.isRefinery() || buildingType.isResourceDepot())
+            return null;
+
+        SlotPlanner.PlanBase base = null;
+        long baseDistance = Long.MAX_VALUE;
+        for (SlotPlanner.PlanBase currentBase : plans) {
+            long dx = currentBase.depotX - nearTile.getX();
+            long dy = currentBase.depotY - nearTile.getY();
+            if ((dx * dx) + (dy * dy) < baseDistance) {
+                base = currentBase;
+                baseDistance = (dx * dx) + (dy * dy);
+            }
+        }
+        if (base == null)
+            return null;
+
+        int width = placedWidth(buildingType);
+        int[] slots = base.slots.get(SlotPlanner.sizeKey(width, buildingType.tileHeight()));
+        if (slots == null)
+            return null;
+        for (int i = 0; i < slots.length; i += 2) {
+            if (fits(buildingType, slots[i], slots[i + 1], width) && hasRoomAround(slots[i], slots[i + 1], width, buildingType.tileHeight()))
+                return new TilePosition(slots[i], slots[i + 1]);
+        }
+        debugMessage("No planned places left for " + buildingType);
+        return null;
+    }
+
+    /**
+     * Finds a place to build a building near a tile. Places that leave a tile of room around the building are looked for first, then any place it would fit.
+     * Buildings that can have an addon are given room for it on their right. Refineries are put on the nearest free geyser.
+     * @param buildingType The building to find a place for
+     * @param aroundTile The tile to search out from
+     * @return The top left tile to build it at. NULL if there was nowhere within reach.
+     */
+    public TilePosition getBuildTile(UnitType buildingType, TilePosition aroundTile)
+    {
+        TilePosition found;
+        if (buildingType.isRefinery())
+            found = getFreeGeyser(aroundTile);
+        else {
+            found = search(buildingType, aroundTile, true);
+            if (found == null)
+                found = search(buildingType, aroundTile, false);
+        }
+
+        if (found == null)
+            debugMessage("Unable to find suitable build position for " + buildingType);
+        return found;
+    }
+
+    /**
+     * Checks whether a building could be placed at a tile as far as the placer knows: the ground can be built on, nothing is in the way or held for another building,
+     * creep and power are where the building needs them and resource depots are far enough from resources.
+     * @param buildingType The building
+     * @param at The top left tile it would go at
+     * @return True if it fits
+     */
+    public boolean canPlace(UnitType buildingType, TilePosition at) {return fits(buildingType, at.getX(), at.getY(), buildingType.tileWidth());}
+
+    /**
+     * Holds the tiles a building will cover so that no other building is placed on them before it is started. Room for an addon is held too.
+     * The hold is let go when a building of the same type is started at the tile, or when release is called.
+     * @param buildingType The building
+     * @param at The top left tile it will go at
+     * @return True if the tiles were held. False if a building was already being held at that tile.
+     */
+    public boolean reserve(UnitType buildingType, TilePosition at)
+    {
+        if (reservations.containsKey(at))
+            return false;
+        Reservation reservation = new Reservation(buildingType, at.getX(), at.getY(), placedWidth(buildingType), buildingType.tileHeight());
+        reserved.add(reservation.x, reservation.y, reservation.w, reservation.h, 1);
+        reservations.put(at, reservation);
+        debugMessage("Reserved " + buildingType + " at " + at);
+        return true;
+    }
+
+    /**
+     * Lets go of the tiles held for a building that isn't going to be built.
+     * @param at The top left tile it was to go at
+     */
+    public void release(TilePosition at)
+    {
+        Reservation reservation = reservations.remove(at);
+        if (reservation == null)
+            return;
+        reserved.add(reservation.x, reservation.y, reservation.w, reservation.h, -1);
+        debugMessage("Released " + reservation.type + " at " + at);
+    }
+
+    /**
+     * Call to let the placer know a unit has been made or seen. Buildings and resources are added to the covered tiles, anything else is ignored.
+     * A building of the player's that has been held for is let go of its hold.
+     * @param unit The unit
+     */
+    public void unitCreated(Unit unit)
+    {
+        if (footprints.containsKey(unit.getID()))
+            return;
+        UnitType type = unit.getType();
+        if (!blocksPlacement(type))
+            return;
+        TilePosition at = unit.getTilePosition();
+        track(unit, type, at, type.isFlyingBuilding() && unit.isLifted());
+
+        if (unit.getPlayer().getID() == BaseAPI.baseAPI.self.getID()) {
+            Reservation reservation = reservations.get(at);
+            if ((reservation != null) && (reservation.type == type))
+                release(at);
+        }
+    }
+
+    /**
+     * Call to let the placer know a unit has changed type, such as a drone becoming a building or a geyser becoming a refinery.
+     * @param unit The unit
+     */
+    public void unitMorphed(Unit unit)
+    {
+        Footprint footprint = footprints.get(unit.getID());
+        if ((footprint != null) && (footprint.type == unit.getType()))
+            return;
+        untrack(unit.getID());
+        unitCreated(unit);
+    }
+
+    /**
+     * Call to let the placer know a unit has been finished. A finished pylon of the player's adds its psi field to the powered tiles.
+     * @param unit The unit
+     */
+    public void unitCompleted(Unit unit)
+    {
+        Footprint footprint = footprints.get(unit.getID());
+        if ((footprint == null) || footprint.powering || (footprint.type != UnitType.Protoss_Pylon))
+            return;
+        if (unit.getPlayer().getID() != BaseAPI.baseAPI.self.getID())
+            return;
+        stampPower(footprint, 1);
+        footprint.powering = true;
+        debugMessage("Pylon powered");
+    }
+
+    /**
+     * Call to let the placer know a unit has been destroyed. Its tiles are no longer covered, and a pylon's power goes with it.
+     * A destroyed refinery leaves its geyser behind.
+     * @param unit The unit
+     */
+    public void unitDestroyed(Unit unit)
+    {
+        Footprint footprint = untrack(unit.getID());
+        if ((footprint != null) && footprint.type.isRefinery())
+            track(unit, UnitType.Resource_Vespene_Geyser, new TilePosition(footprint.x, footprint.y), false);
+    }
+
+    //Searches rings of tiles further and further from the tile asked for, taking the first place the building fits
+    private TilePosition search(UnitType buildingType, TilePosition aroundTile, boolean spaced)
+    {
+        int width = placedWidth(buildingType);
+        int height = buildingType.tileHeight();
+        int centreX = aroundTile.getX();
+        int centreY = aroundTile.getY();
+        for (int ring = 0; ring < MAX_DISTANCE; ring++) {
+            for (int y = centreY - ring; y <= centreY + ring; y++) {
+                boolean edgeRow = (y == centreY - ring) || (y == centreY + ring);
+                //Rows at the top and bottom of the ring are searched along their length. Rows in between only have their two ends in the ring.
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int x = centreX - ring; x <= centreX + ring; x += step) {
+                    if (!fits(buildingType, x, y, width))
+                        continue;
+                    if (spaced && !hasRoomAround(x, y, width, height))
+                        continue;
+                    return new TilePosition(x, y);
+                }
+            }
+        }
+        return null;
+    }
+
+    //Whether the building fits with its top left at the tile. width can be wider than the building to leave room for an addon.
+    private boolean fits(UnitType buildingType, int x, int y, int width)
+    {
+        int tileWidth = buildingType.tileWidth();
+        int tileHeight = buildingType.tileHeight();
+        if ((x < 0) || (y < 0) || (x + width > mapWidth) || (y + tileHeight > mapHeight))
+            return false;
+        if (unbuildable.countSet(x, y, width, tileHeight) > 0)
+            return false;
+        if (occupied.countSet(x, y, width, tileHeight) > 0)
+            return false;
+        if (reserved.countSet(x, y, width, tileHeight) > 0)
+            return false;
+        if (buildingType.isResourceDepot() && (nearResources.countSet(x, y, tileWidth, tileHeight) > 0))
+            return false;
+
+        int creepTiles = creep.countSet(x, y, width, tileHeight);
+        if (buildingType.requiresCreep()) {
+            if (creepTiles != width * tileHeight)
+                return false;
+        }
+        else if ((buildingType.getRace() != Race.Zerg) && (creepTiles > 0))
+            return false;
+
+        if (buildingType.requiresPsi())
+            return power[powerLayer(tileWidth, tileHeight)].get(x + (tileWidth / 2), y + (tileHeight / 2)) > 0;
+        return true;
+    }
+
+    //Whether there is a tile of space all round, so units can walk between buildings
+    private boolean hasRoomAround(int x, int y, int width, int height)
+    {
+        return (occupied.countSet(x - 1, y - 1, width + 2, height + 2) == 0) && (reserved.countSet(x - 1, y - 1, width + 2, height + 2) == 0);
+    }
+
+    //The nearest geyser within reach that has no refinery on it and isn't held for one
+    private TilePosition getFreeGeyser(TilePosition aroundTile)
+    {
+        Footprint nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int currentID : geyserIDs) {
+            Footprint geyser = footprints.get(currentID);
+            if ((geyser == null) || (geyser.type != UnitType.Resource_Vespene_Geyser))
+                continue;
+            int dx = geyser.x - aroundTile.getX();
+            int dy = geyser.y - aroundTile.getY();
+            if ((Math.abs(dx) >= MAX_DISTANCE) || (Math.abs(dy) >= MAX_DISTANCE))
+                continue;
+            if (reserved.countSet(geyser.x, geyser.y, geyser.w, geyser.h) > 0)
+                continue;
+            long distance = ((long) dx * dx) + ((long) dy * dy);
+            if (distance < nearestDistance) {
+                nearest = geyser;
+                nearestDistance = distance;
+            }
+        }
+        return (nearest != null) ? new TilePosition(nearest.x, nearest.y) : null;
+    }
+
+    //Copies what the planner needs out of the game and the layers, then sets it going on a thread of its own
+    private void startSlotPlanner()
+    {
+        TileLayer blocked = new TileLayer(mapWidth, mapHeight);
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                if ((unbuildable.get(x, y) > 0) || (occupied.get(x, y) > 0))
+                    blocked.set(x, y, 1);
+            }
+        }
+
+        ArrayList<SlotPlanner.PlanBase> bases = new ArrayList<>();
+        for (BaseLocation currentLocation : BWTA.getBaseLocations()) {
+            TilePosition depot = currentLocation.getTilePosition();
+            //Keep every depot spot clear, with room for a command center's addon
+            blocked.add(depot.getX(), depot.getY(), 6, 3, 1);
+
+            ArrayList<Unit> resources = new ArrayList<>(currentLocation.getStaticMinerals());
+            resources.addAll(currentLocation.getGeysers());
+            int[] resourceRects = new int[resources.size() * 4];
+            for (int i = 0; i < resources.size(); i++) {
+                UnitType type = resources.get(i).getInitialType();
+                TilePosition at = resources.get(i).getInitialTilePosition();
+                resourceRects[i * 4] = at.getX();
+                resourceRects[(i * 4) + 1] = at.getY();
+                resourceRects[(i * 4) + 2] = type.tileWidth();
+                resourceRects[(i * 4) + 3] = type.tileHeight();
+            }
+            bases.add(new SlotPlanner.PlanBase(depot.getX(), depot.getY(), resourceRects));
+        }
+
+        List<Chokepoint> chokepoints = BWTA.getChokepoints();
+        int[] chokes = new int[chokepoints.size() * 2];
+        for (int i = 0; i < chokepoints.size(); i++) {
+            chokes[i * 2] = chokepoints.get(i).getCenter().getX() / 32;
+            chokes[(i * 2) + 1] = chokepoints.get(i).getCenter().getY() / 32;
+        }
+
+        slotPlanner = new SlotPlanner(mapWidth, mapHeight, blocked, bases, chokes, PLANNED_SIZES);
+        Thread planning = new Thread(slotPlanner, "Building slot planner");
+        planning.setDaemon(true);
+        planning.setPriority(Thread.MIN_PRIORITY);
+        planning.start();
+    }
+
+    private void track(Unit unit, UnitType type, TilePosition at, boolean lifted)
+    {
+        Footprint footprint = new Footprint(unit, type, at);
+        footprint.onGround = !lifted;
+        if (footprint.onGround)
+            occupied.add(footprint.x, footprint.y, footprint.w, footprint.h, 1);
+        if (type.isFlyingBuilding())
+            lifters.add(footprint);
+        footprints.put(unit.getID(), footprint);
+    }
+
+    private Footprint untrack(int unitID)
+    {
+        Footprint footprint = footprints.remove(unitID);
+        if (footprint == null)
+            return null;
+        if (footprint.onGround)
+            occupied.add(footprint.x, footprint.y, footprint.w, footprint.h, -1);
+        if (footprint.powering)
+            stampPower(footprint, -1);
+        if (footprint.type.isFlyingBuilding())
+            lifters.remove(footprint);
+        return footprint;
+    }
+
+    private void addResourceGap(Unit resource)
+    {
+        UnitType type = resource.getInitialType();
+        TilePosition at = resource.getInitialTilePosition();
+        nearResources.add(at.getX() - RESOURCE_GAP, at.getY() - RESOURCE_GAP, type.tileWidth() + (2 * RESOURCE_GAP), type.tileHeight() + (2 * RESOURCE_GAP), 1);
+    }
+
+    //Adds or takes away a pylon's psi field. A tile is set in a layer if a building of that layer's shape with its centre on the tile would be powered.
+    private void stampPower(Footprint pylon, int change)
+    {
+        for (int layer = 0; layer < power.length; layer++) {
+            boolean evenWidth = (layer & 2) == 0;
+            boolean evenHeight = (layer & 1) == 0;
+            for (int row = 0; row < PSI_FIELD.length; row++) {
+                //A centre exactly on the edge of the field is outside it. Only buildings an even number of tiles across can have their centre there.
+                if ((row == 0) && evenHeight)
+                    continue;
+                for (int column = 0; column < PSI_FIELD[row].length(); column++) {
+                    if ((column == 0) && evenWidth)
+                        continue;
+                    if (PSI_FIELD[row].charAt(column) == '1')
+                        power[layer].add(pylon.x + column - 7, pylon.y + row - 4, 1, 1, change);
+                }
+            }
+        }
+    }
+
+    private void readCreep(int fromRow, int rows)
+    {
+        for (int y = fromRow; y < fromRow + rows; y++) {
+            for (int x = 0; x < mapWidth; x++)
+                creep.set(x, y, game.hasCreep(x, y) ? 1 : 0);
+        }
+    }
+
+    private static int powerLayer(int tileWidth, int tileHeight) {return ((tileWidth & 1) * 2) + (tileHeight & 1);}
+
+    //Buildings that can have an addon are given 2 more tiles on their right for it
+    private static int placedWidth(UnitType buildingType) {return buildingType.tileWidth() + (buildingType.canBuildAddon() ? 2 : 0);}
+
+    private static boolean blocksPlacement(UnitType type) {return type.isBuilding() || type.isMineralField() || (type == UnitType.Resource_Vespene_Geyser);}
+
+    private void debugMessage(String message)
+    {
+        if (debugMessagesOn)
+            System.out.println("BUILDING PLACER: " + message);
+    }
+}
@@ -0,0 +1,267 @@
+package BuildingPlacer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Works out, away from the frame loop, a ranked list of places around every base for each size of building, so that a place can be handed out during a frame without searching for one.
+ * It is given a copy of everything it needs from the game when it is made, on the game thread, and is then run on a thread of its own. It never calls into BWAPI, which is only safe on the game thread.
+ * Places are ranked by how close they are to the base, with places in or near the resource line, places that would cut a path through and places touching other buildings pushed down or left out,
+ * and no two places of the same size overlapping or touching. The lists only know about the map as it was at the start, so places taken from them have to be checked against the live map.
+ * The finished plans are published once, all together, and can be read from the game thread without locking.
+ */
+class SlotPlanner implements Runnable {
+
+    //How far from a base's resource depot places are looked for, in tiles
+    static final int PLAN_RADIUS = 14;
+    //The most places kept for each size of building at each base
+    static final int MAX_SLOTS = 12;
+    //Places closer than this to the line between the depot and a resource are left out, as workers walk there
+    static final double RESOURCE_CLEARANCE = 2.5;
+    //Places closer than this are pushed down the list
+    static final double RESOURCE_COMFORT = 5;
+    static final double RESOURCE_WEIGHT = 2;
+    //Places this close to the centre of a chokepoint are left out, as they could wall it off
+    static final double CHOKE_CLEARANCE = 6;
+    //How far a place is pushed down the list for each tile round it that is already blocked
+    static final double CRAMPED_WEIGHT = 0.25;
+
+    /**
+     * One base as the planner sees it, and the places found around it.
+     */
+    static class PlanBase {
+        final int depotX;
+        final int depotY;
+        //x, y, width and height of each of the base's resources, one after the other
+        final int[] resources;
+        //The places for each size of building, best first, as x and y one after the other. Keyed by sizeKey.
+        final HashMap<Integer, int[]> slots = new HashMap<>();
+
+        PlanBase(int depotX, int depotY, int[] resources)
+        {
+            this.depotX = depotX;
+            this.depotY = depotY;
+            this.resources = resources;
+        }
+    }
+
+    private static class Candidate {
+        final int x;
+        final int y;
+        final double score;
+
+        Candidate(int x, int y, double score)
+        {
+            this.x = x;
+            this.y = y;
+            this.score = score;
+        }
+    }
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final TileLayer blocked;
+    private final ArrayList<PlanBase> bases;
+    private final int[] chokes;
+    private final int[][] sizes;
+
+    private volatile ArrayList<PlanBase> plans;
+    private volatile boolean failed;
+    private volatile long planningMillis;
+
+    /**
+     * @param blocked Every tile that can't be built on at the start, including the depot spot of every base. Only read by the planner once it is running.
+     * @param bases The bases to plan around
+     * @param chokes The centre tile of each chokepoint, as x and y one after the other
+     * @param sizes The width and height of each size of building to plan for
+     */
+    SlotPlanner(int mapWidth, int mapHeight, TileLayer blocked, ArrayList<PlanBase> bases, int[] chokes, int[][] sizes)
+    {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.blocked = blocked;
+        this.bases = bases;
+        this.chokes = chokes;
+        this.sizes = sizes;
+    }
+
+    static int sizeKey(int width, int height) {return (width << 8) | height;}
+
+    /**
+     * Gets the finished plans
+     * @return The bases with their places. NULL until planning has finished, and for good if it failed.
+     */
+    ArrayList<PlanBase> getPlans() {return plans;}
+
+    boolean hasFailed() {return failed;}
+
+    long getPlanningMillis() {return planningMillis;}
+
+    @Override
+    public void run()
+    {
+        long started = System.currentTimeMillis();
+        try {
+            for (PlanBase currentBase : bases) {
+                for (int[] currentSize : sizes)
+                    currentBase.slots.put(sizeKey(currentSize[0], currentSize[1]), plan(currentBase, currentSize[0], currentSize[1]));
+            }
+            planningMillis = System.currentTimeMillis() - started;
+            plans = bases;
+        } catch (RuntimeException e) {
+            System.out.println("BUILDING PLACER: Slot planning failed - " + e);
+            failed = true;
+        }
+    }
+
+    //The places around one base for one size of building, best first
+    private int[] plan(PlanBase base, int width, int height)
+    {
+        double depotCentreX = base.depotX + 2;
+        double depotCentreY = base.depotY + 1.5;
+
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        for (int y = base.depotY - PLAN_RADIUS; y <= base.depotY + PLAN_RADIUS; y++) {
+            for (int x = base.depotX - PLAN_RADIUS; x <= base.depotX + PLAN_RADIUS; x++) {
+                if ((x < 0) || (y < 0) || (x + width > mapWidth) || (y + height > mapHeight))
+                    continue;
+                if (blocked.countSet(x, y, width, height) > 0)
+                    continue;
+                double centreX = x + (width / 2.0);
+                double centreY = y + (height / 2.0);
+                if (nearestBase(centreX, centreY) != base)
+                    continue;
+                if (nearChoke(centreX, centreY))
+                    continue;
+                double resourceDistance = resourceLineDistance(base, x, y, width, height, depotCentreX, depotCentreY);
+                if (resourceDistance < RESOURCE_CLEARANCE)
+                    continue;
+                int cramped = blockedAround(x, y, width, height);
+                if (cramped < 0)
+                    continue;
+
+                double score = Math.hypot(centreX - depotCentreX, centreY - depotCentreY);
+                score += RESOURCE_WEIGHT * Math.max(0, RESOURCE_COMFORT - resourceDistance);
+                score += CRAMPED_WEIGHT * cramped;
+                candidates.add(new Candidate(x, y, score));
+            }
+        }
+        Collections.sort(candidates, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {return Double.compare(a.score, b.score);}
+        });
+
+        //Best first, leaving out any that would overlap or touch one already taken
+        TileLayer taken = new TileLayer(mapWidth, mapHeight);
+        int[] chosen = new int[MAX_SLOTS * 2];
+        int count = 0;
+        for (Candidate currentCandidate : candidates) {
+            if (count == MAX_SLOTS)
+                break;
+            if (taken.countSet(currentCandidate.x - 1, currentCandidate.y - 1, width + 2, height + 2) > 0)
+                continue;
+            taken.add(currentCandidate.x, currentCandidate.y, width, height, 1);
+            chosen[count * 2] = currentCandidate.x;
+            chosen[(count * 2) + 1] = currentCandidate.y;
+            count++;
+        }
+        int[] slots = new int[count * 2];
+        System.arraycopy(chosen, 0, slots, 0, slots.length);
+        return slots;
+    }
+
+    //How many tiles in the ring round a place are blocked. -1 if putting a building there would split the open tiles round it in two, cutting a path through.
+    private int blockedAround(int x, int y, int width, int height)
+    {
+        int left = x - 1;
+        int top = y - 1;
+        int right = x + width;
+        int bottom = y + height;
+        int ringLength = 2 * (width + height + 2);
+
+        int cramped = 0;
+        int openRuns = 0;
+        boolean lastOpen = isOpen(left, top + 1);
+        for (int i = 0; i < ringLength; i++) {
+            //Round the ring clockwise from the top left corner
+            int tileX;
+            int tileY;
+            if (i <= width + 1) {
+                tileX = left + i;
+                tileY = top;
+            }
+            else if (i <= width + height + 2) {
+                tileX = right;
+                tileY = top + (i - (width + 1));
+            }
+            else if (i <= (2 * width) + height + 3) {
+                tileX = right - (i - (width + height + 2));
+                tileY = bottom;
+            }
+            else {
+                tileX = left;
+                tileY = bottom - (i - ((2 * width) + height + 3));
+            }
+            boolean open = isOpen(tileX, tileY);
+            if (!open)
+                cramped++;
+            else if (!lastOpen)
+                openRuns++;
+            lastOpen = open;
+        }
+        if (openRuns > 1)
+            return -1;
+        return cramped;
+    }
+
+    private boolean isOpen(int x, int y) {return (x >= 0) && (y >= 0) && (x < mapWidth) && (y < mapHeight) && (blocked.get(x, y) == 0);}
+
+    //How close any tile of the place comes to the line from the depot to any of the base's resources
+    private static double resourceLineDistance(PlanBase base, int x, int y, int width, int height, double depotCentreX, double depotCentreY)
+    {
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < base.resources.length; i += 4) {
+            double resourceX = base.resources[i] + (base.resources[i + 2] / 2.0);
+            double resourceY = base.resources[i + 1] + (base.resources[i + 3] / 2.0);
+            for (int tileY = y; tileY < y + height; tileY++) {
+                for (int tileX = x; tileX < x + width; tileX++)
+                    nearest = Math.min(nearest, segmentDistance(tileX + 0.5, tileY + 0.5, depotCentreX, depotCentreY, resourceX, resourceY));
+            }
+        }
+        return nearest;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by)
+    {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = (dx * dx) + (dy * dy);
+        double t = (lengthSquared == 0) ? 0 : Math.max(0, Math.min(1, (((px - ax) * dx) + ((py - ay) * dy)) / lengthSquared));
+        return Math.hypot(px - (ax + (t * dx)), py - (ay + (t * dy)));
+    }
+
+    private PlanBase nearestBase(double x, double y)
+    {
+        PlanBase nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (PlanBase currentBase : bases) {
+            double distance = Math.hypot(x - (currentBase.depotX + 2), y - (currentBase.depotY + 1.5));
+            if (distance < nearestDistance) {
+                nearest = currentBase;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private boolean nearChoke(double x, double y)
+    {
+        for (int i = 0; i < chokes.length; i += 2) {
+            if (Math.hypot(x - (chokes[i] + 0.5), y - (chokes[i + 1] + 0.5)) < CHOKE_CLEARANCE)
+                return true;
+        }
+        return false;
+    }
+}
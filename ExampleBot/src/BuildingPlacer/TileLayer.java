@@ -0,0 +1,120 @@
+package BuildingPlacer;
+
+import java.util.Arrays;
+
+/**
+ * One layer of the map at tile resolution, such as the tiles covered by buildings or the tiles with creep on them.
+ * Each tile holds a count rather than a flag, so overlapping footprints can be added and taken away in any order.
+ * A summed-area table of the tiles with a count above zero is kept alongside, so how many tiles of any rectangle are set is found with four look ups whatever the rectangle's size.
+ * Changing a tile only marks the table as out of date. It is made again in one pass over the map the next time a rectangle is counted, so a burst of changes costs one rebuild.
+ */
+class TileLayer {
+
+    private final int width;
+    private final int height;
+    private final int[] counts;
+    //sums[(y * (width + 1)) + x] is the number of set tiles above and left of tile (x, y)
+    private final int[] sums;
+    private boolean stale;
+
+    /**
+     * @param width The map's width in tiles
+     * @param height The map's height in tiles
+     */
+    TileLayer(int width, int height)
+    {
+        this.width = width;
+        this.height = height;
+        counts = new int[width * height];
+        sums = new int[(width + 1) * (height + 1)];
+    }
+
+    /**
+     * Gets the count on a tile
+     * @return The count. 0 if the tile is off the map.
+     */
+    int get(int x, int y)
+    {
+        if ((x < 0) || (y < 0) || (x >= width) || (y >= height))
+            return 0;
+        return counts[(y * width) + x];
+    }
+
+    /**
+     * Sets the count on a tile. Tiles off the map are ignored.
+     * @return True if the tile went from set to not set or back
+     */
+    boolean set(int x, int y, int count)
+    {
+        if ((x < 0) || (y < 0) || (x >= width) || (y >= height))
+            return false;
+        int index = (y * width) + x;
+        boolean flipped = (counts[index] > 0) != (count > 0);
+        counts[index] = count;
+        if (flipped)
+            stale = true;
+        return flipped;
+    }
+
+    /**
+     * Adds to the count on every tile of a rectangle. The parts of the rectangle off the map are ignored.
+     * @param change How much to add. Negative to take away.
+     */
+    void add(int x, int y, int w, int h, int change)
+    {
+        int left = Math.max(0, x);
+        int top = Math.max(0, y);
+        int right = Math.min(width, x + w);
+        int bottom = Math.min(height, y + h);
+        for (int row = top; row < bottom; row++) {
+            for (int column = left; column < right; column++) {
+                int index = (row * width) + column;
+                int before = counts[index];
+                counts[index] = before + change;
+                if ((before > 0) != (before + change > 0))
+                    stale = true;
+            }
+        }
+    }
+
+    /**
+     * Counts the set tiles in a rectangle. The parts of the rectangle off the map count as not set.
+     * @return The number of tiles in the rectangle with a count above zero
+     */
+    int countSet(int x, int y, int w, int h)
+    {
+        if (stale)
+            rebuild();
+        int left = Math.max(0, x);
+        int top = Math.max(0, y);
+        int right = Math.min(width, x + w);
+        int bottom = Math.min(height, y + h);
+        if ((left >= right) || (top >= bottom))
+            return 0;
+        int stride = width + 1;
+        return sums[(bottom * stride) + right] - sums[(top * stride) + right] - sums[(bottom * stride) + left] + sums[(top * stride) + left];
+    }
+
+    /**
+     * Empties the layer
+     */
+    void clear()
+    {
+        Arrays.fill(counts, 0);
+        stale = true;
+    }
+
+    private void rebuild()
+    {
+        int stride = width + 1;
+        for (int y = 0; y < height; y++) {
+            int rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                if (counts[(y * width) + x] > 0)
+                    rowSum++;
+                sums[((y + 1) * stride) + x + 1] = sums[(y * stride) + x + 1] + rowSum;
+            }
+        }
+        stale = false;
+    }
+}
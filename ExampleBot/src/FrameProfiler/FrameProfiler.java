@@ -0,0 +1,205 @@
+package FrameProfiler;
+
+import main.BaseAPI;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * Times how long each part of the bot takes, to catch anything that puts a frame over the tournament time limits.
+ * Each part is a named section, timed into its own LatencyHistogram. Timing a section doesn't allocate, so it can be left on in tournament games.
+ * The time of a frame is the total of the outermost sections timed since the last frameEnded, so unit events handled before onFrame count towards the frame.
+ * Frames over 55ms and over 1 second are counted, as tournaments disqualify bots with too many of them.
+ *
+ * REQUIRED USER BOT CALLS:
+ * onGameStart - Call Constructor. Then call addSection for each part to time
+ * onFrame - Call start and stop around each part, then frameEnded at the very end
+ * Any unit event - Call start and stop around it
+ * onEnd - Call writeReport
+ */
+public class FrameProfiler {
+
+    private static final long FRAME_LIMIT_NANOS = 55L * 1000000L;
+    private static final long LONG_FRAME_NANOS = 1000L * 1000000L;
+    private static final int SUMMARY_REFRESH_FRAMES = 24;
+
+    private ArrayList<String> sectionNames;
+    private ArrayList<LatencyHistogram> sectionTimes;
+    private long[] sectionStarts;
+
+    private LatencyHistogram frameTimes;
+    private int depth;
+    private long outerStart;
+    private long currentFrameNanos;
+    private int framesOverLimit;
+    private int longFrames;
+    private int framesEnded;
+    private int worstFrame;
+    private long worstFrameMicros;
+
+    private boolean onScreen;
+    private String summaryText;
+
+    /**
+     * Setup of the FrameProfiler. Sections to time are then added with addSection.
+     * @param onScreen True if a summary of the times should be drawn on screen
+     */
+    public FrameProfiler(boolean onScreen)
+    {
+        this.onScreen = onScreen;
+        sectionNames = new ArrayList<>();
+        sectionTimes = new ArrayList<>();
+        sectionStarts = new long[0];
+        frameTimes = new LatencyHistogram();
+        summaryText = "";
+    }
+
+    /**
+     * Adds a part of the bot to be timed. Should be called on game start, as it is the only call that allocates.
+     * @param name The name shown for the section on screen and in the report
+     * @return The section's ID, to pass to start and stop
+     */
+    public int addSection(String name)
+    {
+        sectionNames.add(name);
+        sectionTimes.add(new LatencyHistogram());
+        long[] grown = new long[sectionNames.size()];
+        System.arraycopy(sectionStarts, 0, grown, 0, sectionStarts.length);
+        sectionStarts = grown;
+        return sectionNames.size() - 1;
+    }
+
+    /**
+     * Starts timing a section. Sections can be nested inside each other, but a section can't be nested inside itself.
+     * @param section The ID given by addSection
+     */
+    public void start(int section)
+    {
+        long now = System.nanoTime();
+        if (depth++ == 0)
+            outerStart = now;
+        sectionStarts[section] = now;
+    }
+
+    /**
+     * Stops timing a section and records how long it took.
+     * @param section The ID given by addSection
+     */
+    public void stop(int section)
+    {
+        long now = System.nanoTime();
+        sectionTimes.get(section).record(now - sectionStarts[section]);
+        if (--depth == 0)
+            currentFrameNanos += now - outerStart;
+    }
+
+    /**
+     * Ends the frame, recording the total time of everything timed during it, and draws the summary if it is on.
+     * Should be the last thing called in onFrame.
+     */
+    public void frameEnded()
+    {
+        frameTimes.record(currentFrameNanos);
+        if (currentFrameNanos > FRAME_LIMIT_NANOS)
+            framesOverLimit++;
+        if (currentFrameNanos > LONG_FRAME_NANOS)
+            longFrames++;
+        if (currentFrameNanos / 1000 > worstFrameMicros) {
+            worstFrameMicros = currentFrameNanos / 1000;
+            worstFrame = BaseAPI.getGameTime();
+        }
+        currentFrameNanos = 0;
+
+        if (onScreen) {
+            if (framesEnded % SUMMARY_REFRESH_FRAMES == 0)
+                summaryText = buildSummary();
+            BaseAPI.baseAPI.game.drawTextScreen(400, 45, summaryText);
+        }
+        framesEnded++;
+    }
+
+    /**
+     * Gets the histogram of a section's times
+     * @param section The ID given by addSection
+     * @return The section's histogram
+     */
+    public LatencyHistogram getSectionTimes(int section) {return sectionTimes.get(section);}
+
+    /**
+     * Gets the histogram of whole frame times
+     * @return The frame histogram
+     */
+    public LatencyHistogram getFrameTimes() {return frameTimes;}
+
+    /**
+     * Gets how many frames took longer than 55ms
+     * @return The number of frames
+     */
+    public int getFramesOverLimit() {return framesOverLimit;}
+
+    /**
+     * Gets how many frames took longer than 1 second
+     * @return The number of frames
+     */
+    public int getLongFrames() {return longFrames;}
+
+    /**
+     * Writes the full report of the game's times to a file. Folders on the path are made if needed.
+     * @param path Where to write the report, such as bwapi-data/write/frameProfile.txt
+     */
+    public void writeReport(String path)
+    {
+        File file = new File(path);
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(buildReport());
+        } catch (IOException e) {
+            System.out.println("FRAME PROFILER: Could not write report to " + path + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the full report of the game's times, with a line for every section
+     * @return The report text
+     */
+    public String buildReport()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append("Frames: ").append(frameTimes.getCount())
+                .append(", Over 55ms: ").append(framesOverLimit)
+                .append(", Over 1s: ").append(longFrames)
+                .append(", Worst: ").append(formatMillis(worstFrameMicros)).append("ms on frame ").append(worstFrame).append("\n");
+        report.append(String.format("%-40s %10s %10s %10s %10s %10s%n", "Section", "Calls", "Mean ms", "p50 ms", "p99 ms", "Max ms"));
+        report.append(reportLine("Frame", frameTimes));
+        for (int i = 0; i < sectionNames.size(); i++)
+            report.append(reportLine(sectionNames.get(i), sectionTimes.get(i)));
+        return report.toString();
+    }
+
+    private static String reportLine(String name, LatencyHistogram times)
+    {
+        return String.format("%-40s %10d %10s %10s %10s %10s%n", name, times.getCount(), formatMillis((long) times.getMeanMicros()),
+                formatMillis(times.getPercentileMicros(50)), formatMillis(times.getPercentileMicros(99)), formatMillis(times.getMaxMicros()));
+    }
+
+    //The on screen summary. Only rebuilt every SUMMARY_REFRESH_FRAMES frames, as building it allocates.
+    private String buildSummary()
+    {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Frame ms p50/p99/max: ").append(formatMillis(frameTimes.getPercentileMicros(50))).append("/")
+                .append(formatMillis(frameTimes.getPercentileMicros(99))).append("/").append(formatMillis(frameTimes.getMaxMicros())).append("\n");
+        summary.append("Over 55ms: ").append(framesOverLimit).append("  Over 1s: ").append(longFrames).append("\n");
+        for (int i = 0; i < sectionNames.size(); i++) {
+            LatencyHistogram times = sectionTimes.get(i);
+            summary.append(sectionNames.get(i)).append(" p99/max: ").append(formatMillis(times.getPercentileMicros(99)))
+                    .append("/").append(formatMillis(times.getMaxMicros())).append("\n");
+        }
+        return summary.toString();
+    }
+
+    private static String formatMillis(long micros) {return String.format("%.2f", micros / 1000.0);}
+}
@@ -0,0 +1,134 @@
+package FrameProfiler;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of how long something took. Recording never allocates, so it is safe to call every frame.
+ * Times are recorded in nanoseconds with record and read back in microseconds. Other whole numbers, such as counts of frames, are recorded with recordValue
+ * and read back with getMean, getPercentile and getMax, in the same unit they were recorded in.
+ * Values under 64 each get their own bucket. Above that, each doubling is split into 32 buckets, so a percentile is never more than about 3% out.
+ * The largest value that can be told apart is about 67 million, or 67 seconds of microseconds. Anything larger is counted in the last bucket, though the exact max is still kept.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 6; //2^6 = LINEAR_BUCKETS
+    private static final int LAST_EXPONENT = 26;
+    private static final int BUCKETS = LINEAR_BUCKETS + (LAST_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long totalValue;
+    private long maxValue;
+
+    /**
+     * Adds a time to the histogram
+     * @param nanos How long it took, in nanoseconds
+     */
+    public void record(long nanos) {recordValue(nanos / 1000);}
+
+    /**
+     * Adds a value to the histogram as it is, with no change of unit
+     * @param value The value. Negative values are counted as 0.
+     */
+    public void recordValue(long value)
+    {
+        value = Math.max(0, value);
+        counts[bucketOf(value)]++;
+        totalCount++;
+        totalValue += value;
+        if (value > maxValue)
+            maxValue = value;
+    }
+
+    /**
+     * Gets how many times have been recorded
+     * @return The count
+     */
+    public long getCount() {return totalCount;}
+
+    /**
+     * Gets the longest time recorded, exactly
+     * @return The max in microseconds. 0 if nothing has been recorded.
+     */
+    public long getMaxMicros() {return getMax();}
+
+    /**
+     * Gets the average time recorded
+     * @return The mean in microseconds. 0 if nothing has been recorded.
+     */
+    public double getMeanMicros() {return getMean();}
+
+    /**
+     * Gets the time that the given percent of recorded times were at or under. Rounded up to the top of its bucket, but never above the max.
+     * @param percent The percentile wanted, from 0 to 100. 50 for the median.
+     * @return The time in microseconds. 0 if nothing has been recorded.
+     */
+    public long getPercentileMicros(double percent) {return getPercentile(percent);}
+
+    /**
+     * Gets the largest value recorded, exactly
+     * @return The max, in the unit given to recordValue. 0 if nothing has been recorded.
+     */
+    public long getMax() {return maxValue;}
+
+    /**
+     * Gets the average value recorded
+     * @return The mean, in the unit given to recordValue. 0 if nothing has been recorded.
+     */
+    public double getMean() {return totalCount == 0 ? 0 : (double) totalValue / totalCount;}
+
+    /**
+     * Gets the value that the given percent of recorded values were at or under. Rounded up to the top of its bucket, but never above the max.
+     * @param percent The percentile wanted, from 0 to 100. 50 for the median.
+     * @return The value, in the unit given to recordValue. 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percent)
+    {
+        if (totalCount == 0)
+            return 0;
+        long wanted = Math.max(1, (long) Math.ceil(percent / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= wanted)
+                return Math.min(maxValue, bucketTop(i));
+        }
+        return maxValue;
+    }
+
+    /**
+     * Empties the histogram
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalValue = 0;
+        maxValue = 0;
+    }
+
+    private static int bucketOf(long value)
+    {
+        if (value < LINEAR_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > LAST_EXPONENT)
+            return BUCKETS - 1;
+        int subBucket = (int) (value >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    //The largest value that goes in the bucket
+    private static long bucketTop(int bucket)
+    {
+        if (bucket < LINEAR_BUCKETS)
+            return bucket;
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+    }
+}
@@ -0,0 +1,133 @@
+package GameModel;
+
+import bwapi.Game;
+import bwapi.Player;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.Unit;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The game model of a real game. Every call is passed on to BWAPI, with units looked up by their ID.
+ */
+public class BWAPIGameModel implements GameModel {
+
+    private Game game;
+    private Player self;
+    private TypeData typeData;
+
+    public BWAPIGameModel(Game game)
+    {
+        this.game = game;
+        this.self = game.self();
+        this.typeData = new BWAPITypeData();
+    }
+
+    @Override
+    public int getFrameCount() {return game.getFrameCount();}
+
+    @Override
+    public TypeData getTypeData() {return typeData;}
+
+    @Override
+    public Race getRace() {return self.getRace();}
+
+    @Override
+    public int minerals() {return self.minerals();}
+
+    @Override
+    public int gas() {return self.gas();}
+
+    @Override
+    public int supplyUsed() {return self.supplyUsed();}
+
+    @Override
+    public int supplyTotal() {return self.supplyTotal();}
+
+    @Override
+    public int gatheredMinerals() {return self.gatheredMinerals();}
+
+    @Override
+    public int gatheredGas() {return self.gatheredGas();}
+
+    @Override
+    public boolean hasResearched(TechType tech) {return self.hasResearched(tech);}
+
+    @Override
+    public boolean isResearching(TechType tech) {return self.isResearching(tech);}
+
+    @Override
+    public int getUpgradeLevel(UpgradeType upgrade) {return self.getUpgradeLevel(upgrade);}
+
+    @Override
+    public boolean isUpgrading(UpgradeType upgrade) {return self.isUpgrading(upgrade);}
+
+    @Override
+    public Collection<Integer> getOwnUnitIDs()
+    {
+        ArrayList<Integer> unitIDs = new ArrayList<>();
+        for (Unit currentUnit : self.getUnits())
+            unitIDs.add(currentUnit.getID());
+        return unitIDs;
+    }
+
+    @Override
+    public boolean isOwned(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit != null) && (unit.getPlayer().getID() == self.getID());
+    }
+
+    @Override
+    public UnitType getUnitType(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return unit == null ? UnitType.None : unit.getType();
+    }
+
+    @Override
+    public boolean exists(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit != null) && unit.exists();
+    }
+
+    @Override
+    public boolean isCompleted(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit != null) && unit.isCompleted();
+    }
+
+    @Override
+    public boolean isIdle(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit != null) && unit.isIdle();
+    }
+
+    @Override
+    public UnitType getTraining(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit == null) || !unit.isTraining() || unit.getTrainingQueue().isEmpty() ? UnitType.None : unit.getTrainingQueue().get(0);
+    }
+
+    @Override
+    public TechType getTech(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit == null) || !unit.isResearching() ? TechType.None : unit.getTech();
+    }
+
+    @Override
+    public UpgradeType getUpgrade(int unitID)
+    {
+        Unit unit = game.getUnit(unitID);
+        return (unit == null) || !unit.isUpgrading() ? UpgradeType.None : unit.getUpgrade();
+    }
+}
@@ -0,0 +1,98 @@
+package GameModel;
+
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Map;
+
+/**
+ * The type data of a real game, read straight from BWAPI.
+ */
+public class BWAPITypeData implements TypeData {
+
+    @Override
+    public String getName(UnitType type) {return type.toString();}
+
+    @Override
+    public Race getRace(UnitType type) {return type.getRace();}
+
+    @Override
+    public int mineralPrice(UnitType type) {return type.mineralPrice();}
+
+    @Override
+    public int gasPrice(UnitType type) {return type.gasPrice();}
+
+    @Override
+    public int buildTime(UnitType type) {return type.buildTime();}
+
+    @Override
+    public int supplyRequired(UnitType type) {return type.supplyRequired();}
+
+    @Override
+    public int supplyProvided(UnitType type) {return type.supplyProvided();}
+
+    @Override
+    public boolean isWorker(UnitType type) {return type.isWorker();}
+
+    @Override
+    public boolean isBuilding(UnitType type) {return type.isBuilding();}
+
+    @Override
+    public boolean isAddon(UnitType type) {return type.isAddon();}
+
+    @Override
+    public boolean isRefinery(UnitType type) {return type.isRefinery();}
+
+    @Override
+    public UnitType whatBuilds(UnitType type) {return type.whatBuilds().first;}
+
+    @Override
+    public Map<UnitType, Integer> requiredUnits(UnitType type) {return type.requiredUnits();}
+
+    @Override
+    public String getName(TechType type) {return type.toString();}
+
+    @Override
+    public Race getRace(TechType type) {return type.getRace();}
+
+    @Override
+    public int mineralPrice(TechType type) {return type.mineralPrice();}
+
+    @Override
+    public int gasPrice(TechType type) {return type.gasPrice();}
+
+    @Override
+    public int researchTime(TechType type) {return type.researchTime();}
+
+    @Override
+    public UnitType whatResearches(TechType type) {return type.whatResearches();}
+
+    @Override
+    public UnitType requiredUnit(TechType type) {return type.requiredUnit();}
+
+    @Override
+    public String getName(UpgradeType type) {return type.toString();}
+
+    @Override
+    public Race getRace(UpgradeType type) {return type.getRace();}
+
+    @Override
+    public int mineralPrice(UpgradeType type, int level) {return type.mineralPrice(level);}
+
+    @Override
+    public int gasPrice(UpgradeType type, int level) {return type.gasPrice(level);}
+
+    @Override
+    public int upgradeTime(UpgradeType type, int level) {return type.upgradeTime(level);}
+
+    @Override
+    public int maxRepeats(UpgradeType type) {return type.maxRepeats();}
+
+    @Override
+    public UnitType whatUpgrades(UpgradeType type) {return type.whatUpgrades();}
+
+    @Override
+    public UnitType whatsRequired(UpgradeType type, int level) {return type.whatsRequired(level);}
+}
@@ -0,0 +1,81 @@
+package GameModel;
+
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Collection;
+
+/**
+ * GAME MODEL
+ * The view of the game that the ProductionQueue and UnitCensus work from, in place of calling BWAPI directly.
+ * In a real game this is a BWAPIGameModel, made by BaseAPI on start. A stand in model can be given instead so the queue can be run without StarCraft, such as by the Simulator.
+ * Units are referred to by their ID. Type data, such as costs and build times, comes from the model's TypeData.
+ */
+public interface GameModel {
+
+    /**
+     * Gets the number of frames since the start of the game
+     * @return The current frame
+     */
+    int getFrameCount();
+
+    /**
+     * Gets the data for every unit, technology and upgrade type
+     * @return The type data
+     */
+    TypeData getTypeData();
+
+    Race getRace();
+    int minerals();
+    int gas();
+    int supplyUsed();
+    int supplyTotal();
+    int gatheredMinerals();
+    int gatheredGas();
+
+    boolean hasResearched(TechType tech);
+    boolean isResearching(TechType tech);
+    int getUpgradeLevel(UpgradeType upgrade);
+    boolean isUpgrading(UpgradeType upgrade);
+
+    /**
+     * Gets the IDs of every unit the player owns
+     * @return The unit IDs
+     */
+    Collection<Integer> getOwnUnitIDs();
+
+    /**
+     * Checks whether the unit is the player's own
+     * @param unitID The unit's ID
+     * @return True if the player owns it
+     */
+    boolean isOwned(int unitID);
+
+    UnitType getUnitType(int unitID);
+    boolean exists(int unitID);
+    boolean isCompleted(int unitID);
+    boolean isIdle(int unitID);
+
+    /**
+     * Gets what a unit is training, such as a Barracks making a Marine
+     * @param unitID The unit's ID
+     * @return The type at the front of its training queue. UnitType.None if it isn't training.
+     */
+    UnitType getTraining(int unitID);
+
+    /**
+     * Gets what a building is researching
+     * @param unitID The building's ID
+     * @return The technology. TechType.None if it isn't researching.
+     */
+    TechType getTech(int unitID);
+
+    /**
+     * Gets what a building is upgrading
+     * @param unitID The building's ID
+     * @return The upgrade. UpgradeType.None if it isn't upgrading.
+     */
+    UpgradeType getUpgrade(int unitID);
+}
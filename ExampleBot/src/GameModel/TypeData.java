@@ -0,0 +1,59 @@
+package GameModel;
+
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Map;
+
+/**
+ * The data for every unit, building, technology and upgrade type, such as costs, build times and what makes them.
+ * In a real game this is a BWAPITypeData, which asks BWAPI. A stand in can be given with its own tables.
+ * Supply is in BWAPI's units, which are double the supply shown in game.
+ */
+public interface TypeData {
+
+    String getName(UnitType type);
+    Race getRace(UnitType type);
+    int mineralPrice(UnitType type);
+    int gasPrice(UnitType type);
+    int buildTime(UnitType type);
+    int supplyRequired(UnitType type);
+    int supplyProvided(UnitType type);
+    boolean isWorker(UnitType type);
+    boolean isBuilding(UnitType type);
+    boolean isAddon(UnitType type);
+    boolean isRefinery(UnitType type);
+
+    /**
+     * Gets the type of unit or building that makes this type
+     * @param type The unit or building
+     * @return The type that makes it. UnitType.None if nothing does.
+     */
+    UnitType whatBuilds(UnitType type);
+
+    /**
+     * Gets the units and buildings needed before this type can be made, including what makes it
+     * @param type The unit or building
+     * @return Map of each needed type to how many are needed
+     */
+    Map<UnitType, Integer> requiredUnits(UnitType type);
+
+    String getName(TechType type);
+    Race getRace(TechType type);
+    int mineralPrice(TechType type);
+    int gasPrice(TechType type);
+    int researchTime(TechType type);
+    UnitType whatResearches(TechType type);
+    UnitType requiredUnit(TechType type);
+
+    String getName(UpgradeType type);
+    Race getRace(UpgradeType type);
+    int mineralPrice(UpgradeType type, int level);
+    int gasPrice(UpgradeType type, int level);
+    int upgradeTime(UpgradeType type, int level);
+    int maxRepeats(UpgradeType type);
+    UnitType whatUpgrades(UpgradeType type);
+    UnitType whatsRequired(UpgradeType type, int level);
+}
@@ -0,0 +1,84 @@
+package OpeningBook;
+
+import bwapi.Race;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * The layout of an opening book file, shared by the OpeningBook that reads it and the OpeningBookWriter that makes it.
+ * All numbers are big endian.
+ *
+ * Header, 16 bytes: int magic "OPBK", short version, short name count, int opening count, int step count
+ * Names: for each name, a short byte length then the UTF-8 bytes. Type names are the constant names on UnitType, TechType or UpgradeType, such as Terran_Marine.
+ * Openings, OPENING_BYTES each: byte our race, byte enemy race, short name index, 40 byte ASCII map hash (all zeros for any map), int first step, int step count
+ * Steps, STEP_BYTES each: byte kind, byte priority, short type name index, short quantity or upgrade level, short unused
+ *
+ * Types are stored by name rather than BWAPI ID, as IDs can only be read from BWAPI while StarCraft is running and the book is made offline.
+ */
+class BookFormat {
+
+    static final int MAGIC = 0x4F50424B; //"OPBK"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int MAP_HASH_BYTES = 40;
+    static final int OPENING_BYTES = 1 + 1 + 2 + MAP_HASH_BYTES + 4 + 4;
+    static final int STEP_BYTES = 8;
+
+    static final byte KIND_UNIT = 0;
+    static final byte KIND_TECH = 1;
+    static final byte KIND_UPGRADE = 2;
+
+    //Stored for an opening that is for any race or any map
+    static final byte ANY_RACE = -1;
+    static final String ANY_MAP = "";
+
+    private static final Race[] RACES = {Race.Zerg, Race.Terran, Race.Protoss};
+
+    /**
+     * Gets the byte a race is stored as. Random, Unknown and None are stored as any race.
+     */
+    static byte raceCode(Race race)
+    {
+        for (byte i = 0; i < RACES.length; i++) {
+            if (RACES[i] == race)
+                return i;
+        }
+        return ANY_RACE;
+    }
+
+    /**
+     * Gets the name of the constant on a BWAPI type class that holds the given type
+     * @return The constant's name. NULL if it isn't one of the class's constants.
+     */
+    static String constantName(Class<?> typeClass, Object type)
+    {
+        for (Field field : typeClass.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && (field.getType() == typeClass)) {
+                try {
+                    if (field.get(null) == type)
+                        return field.getName();
+                } catch (IllegalAccessException e) {
+                    //Public fields, so this doesn't happen
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the constant on a BWAPI type class with the given name
+     * @return The type. NULL if there is no constant with that name.
+     */
+    static <T> T constantNamed(Class<T> typeClass, String name)
+    {
+        try {
+            Field field = typeClass.getField(name);
+            if (Modifier.isStatic(field.getModifiers()) && (field.getType() == typeClass))
+                return typeClass.cast(field.get(null));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            //Falls through to not found
+        }
+        return null;
+    }
+}
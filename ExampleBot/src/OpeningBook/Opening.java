@@ -0,0 +1,74 @@
+package OpeningBook;
+
+import ProductionQueue.ProductionOrder;
+import ProductionQueue.ProductionQueue;
+import ProductionQueue.ResearchOrder;
+import ProductionQueue.UnitBuildingOrder;
+import ProductionQueue.UnitQuantityOrder;
+import ProductionQueue.UpgradeOrder;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.ArrayList;
+
+/**
+ * One build order read from the OpeningBook. Holds every step already resolved to its type, so it can be put on a queue in one go.
+ */
+public class Opening {
+
+    private final String name;
+    private final byte[] kinds;
+    private final Object[] types;
+    private final int[] priorities;
+    private final int[] amounts;
+
+    Opening(String name, byte[] kinds, Object[] types, int[] priorities, int[] amounts)
+    {
+        this.name = name;
+        this.kinds = kinds;
+        this.types = types;
+        this.priorities = priorities;
+        this.amounts = amounts;
+    }
+
+    public String getName() {return name;}
+
+    /**
+     * Gets how many steps are in the opening
+     * @return The number of steps
+     */
+    public int getStepCount() {return kinds.length;}
+
+    /**
+     * Makes a new production order for each step. Units wanted more than once are made as one UnitQuantityOrder.
+     * @return The orders, in the order they are in the book
+     */
+    public ArrayList<ProductionOrder> toOrders()
+    {
+        ArrayList<ProductionOrder> orders = new ArrayList<>(kinds.length);
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case BookFormat.KIND_UNIT:
+                    if (amounts[i] > 1)
+                        orders.add(new UnitQuantityOrder((UnitType) types[i], priorities[i], amounts[i]));
+                    else
+                        orders.add(new UnitBuildingOrder((UnitType) types[i], priorities[i]));
+                    break;
+                case BookFormat.KIND_TECH:
+                    orders.add(new ResearchOrder((TechType) types[i], priorities[i]));
+                    break;
+                case BookFormat.KIND_UPGRADE:
+                    orders.add(new UpgradeOrder((UpgradeType) types[i], priorities[i], amounts[i]));
+                    break;
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Puts the whole opening on the queue in one go. No prerequisites are added, so the book's openings should include every building they need.
+     * @param queue The queue to add to. Must have been started with onGameStart.
+     */
+    public void addTo(ProductionQueue queue) {queue.AddToQueue(toOrders());}
+}
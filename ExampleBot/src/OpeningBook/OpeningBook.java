@@ -0,0 +1,166 @@
+package OpeningBook;
+
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * OPENING BOOK
+ * Build orders worked out ahead of time, kept in a compact binary file made by the OpeningBookWriter.
+ * Openings are picked by race matchup and map. The map is given by its hash, the same one BWAPI's mapHash gives and the BWTA2 data files are named by.
+ * The file is memory mapped rather than read in, and only the opening that is picked is decoded, so loading the book costs next to nothing however many openings it holds.
+ * An opening is put on the ProductionQueue in one bulk add, with no prerequisite walk. See Opening.addTo.
+ *
+ * REQUIRED USER BOT CALLS:
+ * onGameStart - Call load, then find with the game's races and map hash. Add the opening found to the queue.
+ */
+public class OpeningBook {
+
+    private ByteBuffer book;
+    private int openingCount;
+    private int[] nameOffsets;
+    private int openingsStart;
+    private int stepsStart;
+
+    private OpeningBook() {}
+
+    /**
+     * Memory maps an opening book file. If the file is missing or isn't an opening book, an empty book is given back and the reason printed.
+     * @param path Where the book is, such as bwapi-data/read/openingBook.bin
+     * @return The book
+     */
+    public static OpeningBook load(String path)
+    {
+        OpeningBook loaded = new OpeningBook();
+        Path file = Paths.get(path);
+        if (!Files.exists(file)) {
+            System.out.println("OPENING BOOK: No book at " + path);
+            return loaded;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            loaded.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("OPENING BOOK: Could not load " + path + " - " + e);
+            loaded.openingCount = 0;
+        }
+        return loaded;
+    }
+
+    //Reads the header and finds where each section starts. The openings and steps themselves are left in the file until asked for.
+    private void read(ByteBuffer mapped)
+    {
+        if ((mapped.getInt(0) != BookFormat.MAGIC) || (mapped.getShort(4) != BookFormat.VERSION))
+            throw new IllegalArgumentException("not a version " + BookFormat.VERSION + " opening book");
+        int nameCount = mapped.getShort(6) & 0xFFFF;
+        int bookOpenings = mapped.getInt(8);
+
+        nameOffsets = new int[nameCount];
+        int position = BookFormat.HEADER_BYTES;
+        for (int i = 0; i < nameCount; i++) {
+            nameOffsets[i] = position;
+            position += 2 + (mapped.getShort(position) & 0xFFFF);
+        }
+        openingsStart = position;
+        stepsStart = openingsStart + bookOpenings * BookFormat.OPENING_BYTES;
+        book = mapped;
+        openingCount = bookOpenings;
+    }
+
+    /**
+     * Gets how many openings are in the book
+     * @return The number of openings. 0 if the book couldn't be loaded.
+     */
+    public int getOpeningCount() {return openingCount;}
+
+    /**
+     * Finds the best opening for a game. An opening for the exact map is picked over one for any map, then one for the exact enemy race over one for any race.
+     * @param ourRace The bot's race
+     * @param enemyRace The enemy's race. Random or Unknown only matches openings for any race.
+     * @param mapHash The map's hash, from BWAPI's mapHash
+     * @return The opening. NULL if there is none for this matchup and map, or it names a type this version of BWAPI doesn't have.
+     */
+    public Opening find(Race ourRace, Race enemyRace, String mapHash)
+    {
+        byte ourCode = BookFormat.raceCode(ourRace);
+        byte enemyCode = BookFormat.raceCode(enemyRace);
+        int best = -1;
+        int bestScore = -1;
+        for (int i = 0; i < openingCount; i++) {
+            int entry = openingsStart + i * BookFormat.OPENING_BYTES;
+            if (book.get(entry) != ourCode)
+                continue;
+            byte entryEnemy = book.get(entry + 1);
+            if ((entryEnemy != BookFormat.ANY_RACE) && (entryEnemy != enemyCode))
+                continue;
+            boolean anyMap = book.get(entry + 4) == 0;
+            if (!anyMap && !mapHashMatches(entry + 4, mapHash))
+                continue;
+
+            int score = (anyMap ? 0 : 2) + (entryEnemy == BookFormat.ANY_RACE ? 0 : 1);
+            if (score > bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        return best == -1 ? null : decode(best);
+    }
+
+    private boolean mapHashMatches(int position, String mapHash)
+    {
+        if ((mapHash == null) || (mapHash.length() != BookFormat.MAP_HASH_BYTES))
+            return false;
+        for (int i = 0; i < BookFormat.MAP_HASH_BYTES; i++) {
+            if (book.get(position + i) != (byte) Character.toLowerCase(mapHash.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private Opening decode(int entry)
+    {
+        String name = name(book.getShort(entry + 2) & 0xFFFF);
+        int firstStep = book.getInt(entry + 4 + BookFormat.MAP_HASH_BYTES);
+        int stepCount = book.getInt(entry + 8 + BookFormat.MAP_HASH_BYTES);
+
+        byte[] kinds = new byte[stepCount];
+        Object[] types = new Object[stepCount];
+        int[] priorities = new int[stepCount];
+        int[] amounts = new int[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            int step = stepsStart + (firstStep + i) * BookFormat.STEP_BYTES;
+            kinds[i] = book.get(step);
+            priorities[i] = book.get(step + 1) & 0xFF;
+            String typeName = name(book.getShort(step + 2) & 0xFFFF);
+            amounts[i] = book.getShort(step + 4) & 0xFFFF;
+            switch (kinds[i]) {
+                case BookFormat.KIND_UNIT: types[i] = BookFormat.constantNamed(UnitType.class, typeName); break;
+                case BookFormat.KIND_TECH: types[i] = BookFormat.constantNamed(TechType.class, typeName); break;
+                case BookFormat.KIND_UPGRADE: types[i] = BookFormat.constantNamed(UpgradeType.class, typeName); break;
+            }
+            if (types[i] == null) {
+                System.out.println("OPENING BOOK: Opening " + name + " has unknown type " + typeName);
+                return null;
+            }
+        }
+        return new Opening(name, kinds, types, priorities, amounts);
+    }
+
+    private String name(int index)
+    {
+        int position = nameOffsets[index];
+        byte[] bytes = new byte[book.getShort(position) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = book.get(position + 2 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,186 @@
+package OpeningBook;
+
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Makes opening book files for the OpeningBook to read. Run offline, as it needs nothing from StarCraft.
+ * Openings are added with addOpening, their steps added in order, then the whole book saved with write.
+ * Steps are put on the queue exactly as given, with no prerequisites added, so every building an opening needs must be one of its steps.
+ *
+ * Running main writes the example book used by ExampleUsersBot to bwapi-data/read/openingBook.bin, or to the path given.
+ */
+public class OpeningBookWriter {
+
+    /**
+     * An opening being added to the book. Each step method gives back the opening so steps can be chained.
+     */
+    public class OpeningBuilder {
+        private final int nameIndex;
+        private final byte ourRace;
+        private final byte enemyRace;
+        private final String mapHash;
+        private final ArrayList<int[]> steps = new ArrayList<>();
+
+        private OpeningBuilder(String name, Race ourRace, Race enemyRace, String mapHash)
+        {
+            this.nameIndex = nameIndex(name);
+            this.ourRace = BookFormat.raceCode(ourRace);
+            this.enemyRace = BookFormat.raceCode(enemyRace);
+            this.mapHash = mapHash == null ? BookFormat.ANY_MAP : mapHash.toLowerCase();
+        }
+
+        /**
+         * Adds units or a building to the opening
+         * @param type The unit or building
+         * @param priority The priority to add it with, from 0 to 255
+         * @param quantity How many are wanted
+         * @return This opening
+         */
+        public OpeningBuilder unit(UnitType type, int priority, int quantity) {return step(BookFormat.KIND_UNIT, UnitType.class, type, priority, quantity);}
+
+        public OpeningBuilder tech(TechType type, int priority) {return step(BookFormat.KIND_TECH, TechType.class, type, priority, 1);}
+
+        public OpeningBuilder upgrade(UpgradeType type, int priority, int level) {return step(BookFormat.KIND_UPGRADE, UpgradeType.class, type, priority, level);}
+
+        private OpeningBuilder step(byte kind, Class<?> typeClass, Object type, int priority, int amount)
+        {
+            String typeName = BookFormat.constantName(typeClass, type);
+            if (typeName == null)
+                throw new IllegalArgumentException("Not a " + typeClass.getSimpleName() + " constant");
+            if ((priority < 0) || (priority > 255) || (amount < 1) || (amount > 0xFFFF))
+                throw new IllegalArgumentException("Priority must be 0 to 255 and amount 1 to 65535");
+            steps.add(new int[] {kind, priority, nameIndex(typeName), amount});
+            return this;
+        }
+    }
+
+    private final ArrayList<String> names = new ArrayList<>();
+    private final HashMap<String, Integer> nameIndexes = new HashMap<>();
+    private final ArrayList<OpeningBuilder> openings = new ArrayList<>();
+
+    /**
+     * Adds an opening to the book
+     * @param name The opening's name
+     * @param ourRace The race playing the opening
+     * @param enemyRace The enemy race it is for. Race.Random for any race.
+     * @param mapHash The hash of the map it is for, as given by BWAPI's mapHash. NULL for any map.
+     * @return The opening, to add steps to
+     */
+    public OpeningBuilder addOpening(String name, Race ourRace, Race enemyRace, String mapHash)
+    {
+        if ((mapHash != null) && (mapHash.length() != BookFormat.MAP_HASH_BYTES))
+            throw new IllegalArgumentException("Map hashes are " + BookFormat.MAP_HASH_BYTES + " characters");
+        OpeningBuilder opening = new OpeningBuilder(name, ourRace, enemyRace, mapHash);
+        openings.add(opening);
+        return opening;
+    }
+
+    private int nameIndex(String name)
+    {
+        Integer index = nameIndexes.get(name);
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            nameIndexes.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * Saves the book. Folders on the path are made if needed.
+     * @param path Where to save it
+     * @throws IOException If the file can't be written
+     */
+    public void write(String path) throws IOException
+    {
+        File file = new File(path);
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+
+        int stepCount = 0;
+        for (OpeningBuilder currentOpening : openings)
+            stepCount += currentOpening.steps.size();
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(BookFormat.MAGIC);
+            out.writeShort(BookFormat.VERSION);
+            out.writeShort(names.size());
+            out.writeInt(openings.size());
+            out.writeInt(stepCount);
+
+            for (String currentName : names) {
+                byte[] bytes = currentName.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+
+            int firstStep = 0;
+            for (OpeningBuilder currentOpening : openings) {
+                out.writeByte(currentOpening.ourRace);
+                out.writeByte(currentOpening.enemyRace);
+                out.writeShort(currentOpening.nameIndex);
+                byte[] hash = new byte[BookFormat.MAP_HASH_BYTES];
+                byte[] given = currentOpening.mapHash.getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(given, 0, hash, 0, given.length);
+                out.write(hash);
+                out.writeInt(firstStep);
+                out.writeInt(currentOpening.steps.size());
+                firstStep += currentOpening.steps.size();
+            }
+
+            for (OpeningBuilder currentOpening : openings) {
+                for (int[] step : currentOpening.steps) {
+                    out.writeByte(step[0]);
+                    out.writeByte(step[1]);
+                    out.writeShort(step[2]);
+                    out.writeShort(step[3]);
+                    out.writeShort(0);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String path = args.length > 0 ? args[0] : "bwapi-data/read/openingBook.bin";
+        OpeningBookWriter writer = new OpeningBookWriter();
+
+        //The buildings and research of ExampleUsersBot's opening, with the tech buildings it relied on the queue adding written out in full.
+        //Its squads are still made and filled by the bot.
+        writer.addOpening("Marine Medic Bunker", Race.Terran, Race.Random, null)
+                .unit(UnitType.Terran_SCV, 6, 6)
+                .unit(UnitType.Terran_Supply_Depot, 5, 1)
+                .unit(UnitType.Terran_Barracks, 5, 1)
+                .unit(UnitType.Terran_Refinery, 4, 1)
+                .unit(UnitType.Terran_Bunker, 3, 1)
+                .unit(UnitType.Terran_Barracks, 2, 1)
+                .unit(UnitType.Terran_Academy, 2, 1)
+                .tech(TechType.Stim_Packs, 2)
+                .unit(UnitType.Terran_Engineering_Bay, 1, 1)
+                .upgrade(UpgradeType.Terran_Infantry_Weapons, 1, 1);
+
+        writer.addOpening("Fast Factory vs Protoss", Race.Terran, Race.Protoss, null)
+                .unit(UnitType.Terran_SCV, 6, 8)
+                .unit(UnitType.Terran_Supply_Depot, 5, 1)
+                .unit(UnitType.Terran_Barracks, 5, 1)
+                .unit(UnitType.Terran_Refinery, 5, 1)
+                .unit(UnitType.Terran_Factory, 4, 1)
+                .unit(UnitType.Terran_Machine_Shop, 3, 1)
+                .tech(TechType.Tank_Siege_Mode, 3)
+                .unit(UnitType.Terran_Siege_Tank_Tank_Mode, 2, 2);
+
+        writer.write(path);
+        System.out.println("Opening book written to " + path);
+    }
+}
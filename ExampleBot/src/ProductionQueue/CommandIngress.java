@@ -0,0 +1,81 @@
+package ProductionQueue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock free hand over of commands from any number of threads to the game thread, for the ProductionQueue's Submit methods.
+ * Threads push their commands onto a linked stack with a compare and swap, so a submitting thread never waits on a lock and never waits on the frame.
+ * The game thread takes the whole stack in one atomic swap, so draining never blocks either, then turns it round so the commands are applied in the order they were submitted.
+ * Commands from one thread are always applied in the order that thread submitted them.
+ */
+class CommandIngress {
+
+    /**
+     * A change to the queue made on another thread, applied on the game thread when the queue next updates.
+     */
+    interface Command {
+        void apply(ProductionQueue queue);
+    }
+
+    private static class Node {
+        final Command command;
+        Node next;
+
+        Node(Command command) {this.command = command;}
+    }
+
+    //Most recently submitted command first. NULL when nothing is waiting.
+    private final AtomicReference<Node> top = new AtomicReference<>();
+
+    /**
+     * Adds a command to be applied. Safe to call from any thread.
+     * @param command The command
+     */
+    void submit(Command command)
+    {
+        Node node = new Node(command);
+        Node current;
+        do {
+            current = top.get();
+            node.next = current;
+        } while (!top.compareAndSet(current, node));
+    }
+
+    /**
+     * Checks whether any commands are waiting. Safe to call from any thread.
+     * @return True if a command has been submitted and not yet applied
+     */
+    boolean hasWaiting() {return top.get() != null;}
+
+    /**
+     * Takes every command submitted so far and applies them to the queue, oldest first. Only to be called on the game thread.
+     * A command that throws is reported and skipped, so it can't stop the rest being applied.
+     * @param queue The queue to apply them to
+     * @return The number of commands applied
+     */
+    int drain(ProductionQueue queue)
+    {
+        Node taken = top.getAndSet(null);
+        if (taken == null)
+            return 0;
+
+        Node oldest = null;
+        while (taken != null) {
+            Node next = taken.next;
+            taken.next = oldest;
+            oldest = taken;
+            taken = next;
+        }
+
+        int applied = 0;
+        for (Node current = oldest; current != null; current = current.next) {
+            try {
+                current.command.apply(queue);
+            } catch (RuntimeException e) {
+                System.out.println("PRODUCTION QUEUE: Submitted command failed - " + e);
+            }
+            applied++;
+        }
+        return applied;
+    }
+}
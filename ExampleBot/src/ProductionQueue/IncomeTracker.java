@@ -0,0 +1,94 @@
+package ProductionQueue;
+
+import GameModel.GameModel;
+
+/**
+ * Estimates the player's mineral and gas income from how much they have gathered recently.
+ * The gathered counters only ever go up, so unlike the player's current minerals and gas they aren't thrown off by spending.
+ * A sample is taken every SAMPLE_INTERVAL frames and the rate is worked out over the last WINDOW_SAMPLES samples.
+ */
+class IncomeTracker {
+
+    private static final int SAMPLE_INTERVAL = 24;
+    private static final int WINDOW_SAMPLES = 10;
+
+    private int[] sampleFrames;
+    private int[] sampleMinerals;
+    private int[] sampleGas;
+    private int samplesTaken;
+    private int lastSampleFrame;
+
+    private GameModel model;
+    private double mineralsPerFrame;
+    private double gasPerFrame;
+
+    IncomeTracker(GameModel model)
+    {
+        this.model = model;
+        sampleFrames = new int[WINDOW_SAMPLES];
+        sampleMinerals = new int[WINDOW_SAMPLES];
+        sampleGas = new int[WINDOW_SAMPLES];
+        samplesTaken = 0;
+        lastSampleFrame = -SAMPLE_INTERVAL;
+        mineralsPerFrame = 0;
+        gasPerFrame = 0;
+    }
+
+    /**
+     * Call every frame. Takes a new sample if one is due and updates the income rates.
+     * @param currentFrame The current frame
+     */
+    void onFrame(int currentFrame)
+    {
+        if (currentFrame - lastSampleFrame < SAMPLE_INTERVAL)
+            return;
+        lastSampleFrame = currentFrame;
+
+        int newest = samplesTaken % WINDOW_SAMPLES;
+        sampleFrames[newest] = currentFrame;
+        sampleMinerals[newest] = model.gatheredMinerals();
+        sampleGas[newest] = model.gatheredGas();
+        samplesTaken++;
+
+        if (samplesTaken < 2)
+            return;
+        int oldest = samplesTaken < WINDOW_SAMPLES ? 0 : samplesTaken % WINDOW_SAMPLES;
+        int frames = sampleFrames[newest] - sampleFrames[oldest];
+        if (frames <= 0)
+            return;
+        mineralsPerFrame = (double) (sampleMinerals[newest] - sampleMinerals[oldest]) / frames;
+        gasPerFrame = (double) (sampleGas[newest] - sampleGas[oldest]) / frames;
+    }
+
+    /**
+     * Gets the estimated mineral income
+     * @return Minerals gathered per frame
+     */
+    double getMineralsPerFrame() {return mineralsPerFrame;}
+
+    /**
+     * Gets the estimated gas income
+     * @return Gas gathered per frame
+     */
+    double getGasPerFrame() {return gasPerFrame;}
+
+    /**
+     * Works out how many frames until the given amounts can be afforded at the current income.
+     * @param mineralsShort How many more minerals are needed
+     * @param gasShort How much more gas is needed
+     * @return The frames to wait. 0 if nothing is short. Integer.MAX_VALUE if the income will never cover it.
+     */
+    int framesUntilAffordable(int mineralsShort, int gasShort)
+    {
+        return Math.max(framesUntil(mineralsShort, mineralsPerFrame), framesUntil(gasShort, gasPerFrame));
+    }
+
+    private static int framesUntil(int amountShort, double perFrame)
+    {
+        if (amountShort <= 0)
+            return 0;
+        if (perFrame <= 0)
+            return Integer.MAX_VALUE;
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(amountShort / perFrame));
+    }
+}
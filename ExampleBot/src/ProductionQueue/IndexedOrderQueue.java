@@ -0,0 +1,256 @@
+package ProductionQueue;
+
+import ProductionQueue.ProductionOrder.OrderStatus;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Storage for the ProductionQueue's orders. Orders are kept in a balanced tree ordered by ProductionOrder.compareTo, so they never need re-sorting.
+ * Alongside the tree, counts of live orders are kept for each UnitType, TechType and UpgradeType level so that membership and count queries don't need to walk the queue.
+ * The live research and upgrade orders are also kept by type, in queue order, so one can be found without walking the queue.
+ * An order is live while it is not finished or aborted. The number of orders in each status is also kept, along with the minerals and gas the waiting orders will cost.
+ * A UnitQuantityOrder counts as many units as it has waiting to hand out. The units it has handed out are counted by their own orders.
+ */
+class IndexedOrderQueue implements Iterable<ProductionOrder> {
+
+    private TreeSet<ProductionOrder> orders;
+    private HashMap<UnitType, Integer> unitCounts;
+    private HashMap<TechType, Integer> techCounts;
+    private HashMap<UpgradeType, HashMap<Integer, Integer>> upgradeCounts;
+    private HashMap<TechType, TreeSet<ProductionOrder>> researchByType;
+    private HashMap<UpgradeType, TreeSet<ProductionOrder>> upgradesByType;
+    private int[] statusCounts;
+    private int waitingMinerals;
+    private int waitingGas;
+
+    IndexedOrderQueue()
+    {
+        orders = new TreeSet<>();
+        unitCounts = new HashMap<>();
+        techCounts = new HashMap<>();
+        upgradeCounts = new HashMap<>();
+        researchByType = new HashMap<>();
+        upgradesByType = new HashMap<>();
+        statusCounts = new int[OrderStatus.values().length];
+    }
+
+    /**
+     * Adds an order to the queue and counts it against its type. O(log n)
+     * @param order The order to add
+     */
+    void add(ProductionOrder order)
+    {
+        if (!orders.add(order))
+            return;
+        statusCounts[order.getStatus().ordinal()]++;
+        if (isLive(order.getStatus()))
+            count(order, 1);
+        if (order.getStatus() == OrderStatus.commissioned)
+            addWaitingCost(order, 1);
+    }
+
+    /**
+     * Removes an order from the queue and from the type counts. O(log n)
+     * The order's priority and order time must not have changed since it was added.
+     * @param order The order to remove
+     * @return True if the order was in the queue
+     */
+    boolean remove(ProductionOrder order)
+    {
+        if (!orders.remove(order))
+            return false;
+        statusCounts[order.getStatus().ordinal()]--;
+        if (isLive(order.getStatus()))
+            count(order, -1);
+        if (order.getStatus() == OrderStatus.commissioned)
+            addWaitingCost(order, -1);
+        return true;
+    }
+
+    /**
+     * Keeps the status counts correct, and the type counts correct when an order in the queue moves between live and finished/aborted. O(1)
+     * Only to be called for orders that are in the queue.
+     * @param order The order that has changed
+     * @param oldStatus The status the order had before the change
+     */
+    void statusChanged(ProductionOrder order, OrderStatus oldStatus)
+    {
+        statusCounts[oldStatus.ordinal()]--;
+        statusCounts[order.getStatus().ordinal()]++;
+
+        boolean wasLive = isLive(oldStatus);
+        boolean nowLive = isLive(order.getStatus());
+        if (wasLive != nowLive)
+            count(order, nowLive ? 1 : -1);
+        if (oldStatus == OrderStatus.commissioned)
+            addWaitingCost(order, -1);
+        if (order.getStatus() == OrderStatus.commissioned)
+            addWaitingCost(order, 1);
+    }
+
+    /**
+     * Keeps the unit counts and waiting costs correct when a quantity order in the queue hands out, gets back or has units taken off.
+     * @param order The quantity order
+     * @param change How much its waiting count went up or down by
+     */
+    void waitingUnitsChanged(UnitQuantityOrder order, int change)
+    {
+        if (!isLive(order.getStatus()) || !orders.contains(order))
+            return;
+        unitCounts.put(order.getToProduce(), count(order.getToProduce()) + change);
+        if (order.getStatus() == OrderStatus.commissioned) {
+            waitingMinerals += change * order.getMineralPrice();
+            waitingGas += change * order.getGasPrice();
+        }
+    }
+
+    int size() {return orders.size();}
+
+    /**
+     * Gets how many orders in the queue currently have the given status. O(1)
+     * @param status The status to count
+     * @return The number of orders with that status
+     */
+    int countWithStatus(OrderStatus status) {return statusCounts[status.ordinal()];}
+
+    boolean isEmpty() {return orders.isEmpty();}
+
+    /**
+     * Gets the minerals the orders waiting to be passed back will cost. A quantity order costs one unit for each it has still to hand out. O(1)
+     * @return The minerals needed
+     */
+    int getWaitingMinerals() {return waitingMinerals;}
+
+    /**
+     * Gets the gas the orders waiting to be passed back will cost. A quantity order costs one unit for each it has still to hand out. O(1)
+     * @return The gas needed
+     */
+    int getWaitingGas() {return waitingGas;}
+
+    /**
+     * Iterates the orders from the highest priority to the lowest.
+     */
+    @Override
+    public Iterator<ProductionOrder> iterator() {return orders.iterator();}
+
+    /**
+     * Iterates the orders from the lowest priority to the highest.
+     */
+    Iterator<ProductionOrder> descendingIterator() {return orders.descendingIterator();}
+
+    /**
+     * Gets how many units or buildings of a type live orders are for. O(1)
+     * @param type The unit or building type
+     * @return The number of units of that type on live orders
+     */
+    int count(UnitType type)
+    {
+        Integer current = unitCounts.get(type);
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Gets how many live orders there are for a technology. O(1)
+     * @param type The technology
+     * @return The number of live orders for it
+     */
+    int count(TechType type)
+    {
+        Integer current = techCounts.get(type);
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Gets how many live orders there are for a given level of an upgrade. O(1)
+     * @param type The upgrade
+     * @param level The upgrade level
+     * @return The number of live orders for it
+     */
+    int count(UpgradeType type, int level)
+    {
+        HashMap<Integer, Integer> levels = upgradeCounts.get(type);
+        if (levels == null)
+            return 0;
+        Integer current = levels.get(level);
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Gets the first live order in the queue for a technology. O(log n)
+     * @param type The technology
+     * @return The highest priority order for it. NULL if there isn't one.
+     */
+    ProductionOrder getFirst(TechType type)
+    {
+        TreeSet<ProductionOrder> typeOrders = researchByType.get(type);
+        return (typeOrders == null) || typeOrders.isEmpty() ? null : typeOrders.first();
+    }
+
+    /**
+     * Gets the first live order in the queue for an upgrade, at any level. O(log n)
+     * @param type The upgrade
+     * @return The highest priority order for it. NULL if there isn't one.
+     */
+    ProductionOrder getFirst(UpgradeType type)
+    {
+        TreeSet<ProductionOrder> typeOrders = upgradesByType.get(type);
+        return (typeOrders == null) || typeOrders.isEmpty() ? null : typeOrders.first();
+    }
+
+    private void count(ProductionOrder order, int change)
+    {
+        if (order instanceof UnitQuantityOrder) {
+            UnitQuantityOrder quantityOrder = (UnitQuantityOrder) order;
+            unitCounts.put(quantityOrder.getToProduce(), count(quantityOrder.getToProduce()) + (change * quantityOrder.getWaitingCount()));
+        }
+        else if (order instanceof UnitBuildingOrder) {
+            UnitType type = ((UnitBuildingOrder) order).getToProduce();
+            unitCounts.put(type, count(type) + change);
+        }
+        else if (order instanceof ResearchOrder) {
+            TechType type = ((ResearchOrder) order).getToProduce();
+            techCounts.put(type, count(type) + change);
+            index(researchByType, type, order, change);
+        }
+        else if (order instanceof UpgradeOrder) {
+            UpgradeOrder upgradeOrder = (UpgradeOrder) order;
+            HashMap<Integer, Integer> levels = upgradeCounts.get(upgradeOrder.getToProduce());
+            if (levels == null) {
+                levels = new HashMap<>();
+                upgradeCounts.put(upgradeOrder.getToProduce(), levels);
+            }
+            levels.put(upgradeOrder.getUpgradeLevel(), count(upgradeOrder.getToProduce(), upgradeOrder.getUpgradeLevel()) + change);
+            index(upgradesByType, upgradeOrder.getToProduce(), order, change);
+        }
+    }
+
+    private void addWaitingCost(ProductionOrder order, int direction)
+    {
+        int units = (order instanceof UnitQuantityOrder) ? ((UnitQuantityOrder) order).getWaitingCount() : 1;
+        waitingMinerals += direction * units * order.getMineralPrice();
+        waitingGas += direction * units * order.getGasPrice();
+    }
+
+    private static <T> void index(HashMap<T, TreeSet<ProductionOrder>> byType, T type, ProductionOrder order, int change)
+    {
+        TreeSet<ProductionOrder> typeOrders = byType.get(type);
+        if (typeOrders == null) {
+            typeOrders = new TreeSet<>();
+            byType.put(type, typeOrders);
+        }
+        if (change > 0)
+            typeOrders.add(order);
+        else
+            typeOrders.remove(order);
+    }
+
+    private static boolean isLive(OrderStatus status)
+    {
+        return (status != OrderStatus.finished) && (status != OrderStatus.aborted);
+    }
+}
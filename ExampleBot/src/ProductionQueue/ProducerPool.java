@@ -0,0 +1,157 @@
+package ProductionQueue;
+
+import GameModel.GameModel;
+import UnitCensus.UnitCensus;
+import bwapi.UnitType;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Free lists of the producers the ProductionQueue can hand orders to, such as Barracks, Factories and Larva.
+ * Each producer type has a list of its completed units that aren't carrying out an order for the queue. When an order is passed back a unit is taken off
+ * the list and given to the order, and it is only put back once that order finishes or is reset, so no producer is ever given two orders.
+ * A type's list is only made the first time the queue asks for it, from the census, and is then kept up to date from the queue's unit events.
+ * Buildings put up by workers aren't given a producer here. The worker is picked when the building is placed.
+ */
+class ProducerPool {
+
+    private final GameModel model;
+    private final UnitCensus census;
+    private HashMap<UnitType, LinkedHashSet<Integer>> free;
+    //The type each unit on a free list was filed under, or would be filed under once its order lets it go
+    private HashMap<Integer, UnitType> trackedTypes;
+    private HashMap<Integer, ProductionOrder> assigned;
+
+    ProducerPool(GameModel model, UnitCensus census)
+    {
+        this.model = model;
+        this.census = census;
+        free = new HashMap<>();
+        trackedTypes = new HashMap<>();
+        assigned = new HashMap<>();
+    }
+
+    /**
+     * Gets how many producers of a type have no order from the queue. Some of them may still be busy with something the queue didn't order.
+     * @param producerType The type of producer
+     * @return The number of producers on the type's free list. O(1)
+     */
+    int getFreeCount(UnitType producerType) {return freeList(producerType).size();}
+
+    /**
+     * Checks whether a producer of a type is free and idle.
+     * @param producerType The type of producer
+     * @return True if one could be given an order now
+     */
+    boolean hasFree(UnitType producerType)
+    {
+        for (int currentUnit : freeList(producerType)) {
+            if (model.isIdle(currentUnit))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes an idle producer off a type's free list, ready to be given an order with assign.
+     * Producers on the list are in the order they became free, so this is normally the first one looked at.
+     * @param producerType The type of producer wanted
+     * @return The producer's ID. -1 if none of the free producers are idle.
+     */
+    int acquire(UnitType producerType)
+    {
+        Iterator<Integer> freeUnits = freeList(producerType).iterator();
+        while (freeUnits.hasNext()) {
+            int currentUnit = freeUnits.next();
+            if (model.isIdle(currentUnit)) {
+                freeUnits.remove();
+                return currentUnit;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a producer taken with acquire to the order it is to carry out.
+     * @param producerID The producer's ID
+     * @param order The order passed back for it
+     */
+    void assign(int producerID, ProductionOrder order)
+    {
+        assigned.put(producerID, order);
+        order.producerID = producerID;
+    }
+
+    /**
+     * Takes an order's producer back, and puts it back on its free list if it is still a producer the pool keeps. Does nothing if the order has no producer.
+     * @param order The order that has finished, been reset or left the queue
+     */
+    void release(ProductionOrder order)
+    {
+        int producerID = order.producerID;
+        if (producerID == -1)
+            return;
+        order.producerID = -1;
+        if (assigned.get(producerID) != order)
+            return;
+        assigned.remove(producerID);
+        UnitType type = trackedTypes.get(producerID);
+        if (type != null)
+            free.get(type).add(producerID);
+    }
+
+    /**
+     * Call after the census has been told a unit was created, morphed or completed. The unit is moved to the free list of its new type.
+     * @param unitID The unit's ID
+     */
+    void unitChanged(int unitID)
+    {
+        UnitType oldType = trackedTypes.remove(unitID);
+        if (oldType != null)
+            free.get(oldType).remove(unitID);
+        if (!model.isOwned(unitID) || !model.isCompleted(unitID))
+            return;
+
+        UnitType newType = model.getUnitType(unitID);
+        LinkedHashSet<Integer> freeUnits = free.get(newType);
+        if (freeUnits == null)
+            return;
+        trackedTypes.put(unitID, newType);
+        if (!assigned.containsKey(unitID))
+            freeUnits.add(unitID);
+    }
+
+    /**
+     * Call when a unit is destroyed. It is taken off its free list, and any order it was carrying out loses it as its producer.
+     * @param unitID The unit's ID
+     * @return The order the unit was carrying out. NULL if it had none from the queue.
+     */
+    ProductionOrder unitRemoved(int unitID)
+    {
+        UnitType type = trackedTypes.remove(unitID);
+        if (type != null)
+            free.get(type).remove(unitID);
+        ProductionOrder order = assigned.remove(unitID);
+        if (order != null)
+            order.producerID = -1;
+        return order;
+    }
+
+    //Gets a type's free list, filling it from the census the first time the type is asked for
+    private LinkedHashSet<Integer> freeList(UnitType producerType)
+    {
+        LinkedHashSet<Integer> freeUnits = free.get(producerType);
+        if (freeUnits == null) {
+            freeUnits = new LinkedHashSet<>();
+            for (int currentUnit : census.getCompletedUnitIDs(producerType)) {
+                trackedTypes.put(currentUnit, producerType);
+                if (!assigned.containsKey(currentUnit))
+                    freeUnits.add(currentUnit);
+            }
+            free.put(producerType, freeUnits);
+        }
+        return freeUnits;
+    }
+}
@@ -0,0 +1,122 @@
+package ProductionQueue;
+
+import ProductionQueue.ProductionOrder.OrderStatus;
+import bwapi.UnitType;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * One lane of the ProductionQueue. Holds the orders that share a producer type, such as everything trained at a Barracks,
+ * or every building put up by a worker. Each lane keeps its own priority ordering and its own count of orders in flight,
+ * so an order stuck in one lane doesn't hold up any other lane.
+ * Only orders that are waiting to be passed back are kept in the lane's ordering. Orders in flight are just counted.
+ * A waiting order that is cancelled is left in the ordering as a tombstone, skipped by anything reading the lane, until the queue takes it off.
+ */
+class ProductionLane {
+
+    private final UnitType producerType;
+    private final boolean workerBuilt;
+    private TreeSet<ProductionOrder> waiting;
+    private int ordered;
+    private int started;
+    private int tombstones;
+
+    ProductionLane(UnitType producerType, boolean workerBuilt)
+    {
+        this.producerType = producerType;
+        this.workerBuilt = workerBuilt;
+        waiting = new TreeSet<>();
+        ordered = 0;
+        started = 0;
+    }
+
+    /**
+     * Gets the type of unit or building that carries out this lane's orders
+     * @return The producer type
+     */
+    UnitType getProducerType() {return producerType;}
+
+    /**
+     * Whether this lane's orders are buildings put up by workers. Worker lanes aren't limited by idle producers.
+     * @return True if the producer is a worker
+     */
+    boolean isWorkerBuilt() {return workerBuilt;}
+
+    /**
+     * Gets how many of the lane's orders have been passed back but haven't started yet
+     * @return The number of ordered orders
+     */
+    int getOrderedCount() {return ordered;}
+
+    /**
+     * Gets how many of the lane's orders are in production
+     * @return The number of started orders
+     */
+    int getStartedCount() {return started;}
+
+    /**
+     * Gets how many of the lane's orders are waiting to be passed back
+     * @return The number of commissioned orders
+     */
+    int getWaitingCount() {return waiting.size() - tombstones;}
+
+    /**
+     * Iterates the lane's waiting orders from the highest priority to the lowest. Includes cancelled orders that haven't been taken off yet, which have the aborted status.
+     */
+    Iterator<ProductionOrder> waitingOrders() {return waiting.iterator();}
+
+    /**
+     * Adds an order that has just joined the queue.
+     */
+    void add(ProductionOrder order) {track(order.getStatus(), order, 1);}
+
+    /**
+     * Removes an order that is leaving the queue.
+     */
+    void remove(ProductionOrder order)
+    {
+        if (order.getStatus() == OrderStatus.aborted) {
+            if (waiting.remove(order))
+                tombstones--;
+        }
+        else
+            track(order.getStatus(), order, -1);
+    }
+
+    /**
+     * Moves an order between the lane's waiting ordering and its in flight counts when its status changes.
+     */
+    void statusChanged(ProductionOrder order, OrderStatus oldStatus)
+    {
+        if ((oldStatus == OrderStatus.commissioned) && (order.getStatus() == OrderStatus.aborted)) {
+            tombstones++;
+            return;
+        }
+        if ((oldStatus == OrderStatus.aborted) && waiting.remove(order))
+            tombstones--;
+        track(oldStatus, order, -1);
+        track(order.getStatus(), order, 1);
+    }
+
+    private void track(OrderStatus status, ProductionOrder order, int change)
+    {
+        switch (status)
+        {
+            case commissioned:
+                if (change > 0)
+                    waiting.add(order);
+                else
+                    waiting.remove(order);
+                break;
+            case ordered:
+                ordered += change;
+                break;
+            case started:
+                started += change;
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package ProductionQueue;
 
+import GameModel.GameModel;
+import GameModel.TypeData;
+import UnitCensus.UnitCensus;
+import bwapi.Unit;
+import bwapi.UnitType;
+import main.BaseAPI;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Abstract base class for the different types of Production Order
  */
 public abstract class ProductionOrder implements Comparable<ProductionOrder>{
 
-    public ProductionOrder() {}
+    //Shared by every queue, including simulated games running on other threads
+    private static final AtomicInteger nextOrderID = new AtomicInteger();
+
+    public ProductionOrder()
+    {
+        orderID = nextOrderID.getAndIncrement();
+    }
 
     /**
      * Used to Differentiate Order Status
@@ -19,8 +34,25 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
     }
 
     protected int priority;
-    protected int orderTime;
+    //Set by the queue when the order is added. -1 until then.
+    protected int orderTime = -1;
     protected OrderStatus status;
+    protected final int orderID;
+
+    //The queue holding this order. Informed of status changes so it can keep its indexes up to date.
+    ProductionQueue queue;
+    //Frame the queue's timer wheel will next wake this order on. -1 if it has no timer.
+    int timerDueFrame = -1;
+    //Bitmask of the direct prerequisites, filled in by the queue's TechTree the first time it is checked.
+    long[] prerequisites;
+    //Frame the queue expects this order to start on. -1 if it can't tell.
+    int predictedStartFrame = -1;
+    //The lane of the queue this order waits in, picked by its producer type.
+    ProductionLane lane;
+    //Frame the order was last passed back on. -1 if it hasn't been.
+    int orderedFrame = -1;
+    //The unit given this order to carry out. Set by the queue's ProducerPool. -1 if it has none.
+    int producerID = -1;
 
 
     //Used for ordering lists of production orders. The list will have orders with high priority above lower priorities, then on items with the same priority, the older items will be higher up the list.
@@ -45,7 +77,8 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
             return (timeResult / Math.abs(timeResult));
         }
 
-        return 0;
+        //Orders made on the same frame with the same priority stay in the order they were made
+        return Integer.compare(this.orderID, commandIn.getOrderID());
     }
 
     /**
@@ -60,6 +93,36 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
      */
     public int getOrderTime() {return orderTime;}
 
+    /**
+     * Gets the unique ID of the order. IDs are handed out in the order the orders were made.
+     * @return Int orderID : The unique ID of the order
+     */
+    public int getOrderID() {return orderID;}
+
+    /**
+     * Gets the ID of the unit the queue picked to carry out this order when it was passed back. It is kept until the order finishes or is reset.
+     * @return The producer's ID. -1 if the order hasn't been passed back, or is a building put up by a worker, which is picked by the BuilderManager.
+     */
+    public int getProducerID() {return producerID;}
+
+    /**
+     * Gets the unit the queue picked to carry out this order when it was passed back. Train, research or upgrade with this unit.
+     * @return The producer. NULL if there is none, see getProducerID, or there is no BWAPI game, such as in a simulated game.
+     */
+    public Unit getProducer()
+    {
+        if ((producerID == -1) || (BaseAPI.baseAPI == null))
+            return null;
+        return BaseAPI.baseAPI.game.getUnit(producerID);
+    }
+
+    /**
+     * Gets the frame the queue expects this order to be passed back on, worked out from the current income when income scheduling is on.
+     * Orders that are waiting on prerequisites, producers or supply, or on an income of a resource the player doesn't have, can't be predicted.
+     * @return The predicted start frame. -1 if it can't be predicted.
+     */
+    public int getPredictedStartFrame() {return predictedStartFrame;}
+
     /**
      * Gets the status of the order
      * @return OrderStatus enum CurrentStatus : The current status of the order
@@ -70,7 +133,13 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
      * Sets the status of the current order
      * @param statusIn The status to set the order to
      */
-    public void setStatus(OrderStatus statusIn) {this.status = statusIn;}
+    public void setStatus(OrderStatus statusIn)
+    {
+        OrderStatus oldStatus = this.status;
+        this.status = statusIn;
+        if ((queue != null) && (oldStatus != statusIn))
+            queue.orderStatusChanged(this, oldStatus);
+    }
 
     @Override
     public abstract String toString();
@@ -82,11 +151,45 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
     public abstract boolean canAfford();
 
     /**
-     *Run a check to see whether there is a building that can produce this item and if it is idle
-     * @return True if there is an idle building of the type needed. False if there isn't.
+     *Run a check to see whether there is a building that can produce this item, is idle and hasn't been given another order by the queue
+     * @return True if there is a free building of the type needed. False if there isn't, or the order isn't on a queue to keep track of which buildings are free.
      */
     public abstract boolean isToProduceFree();
 
+    /**
+     * Gets the census of the player's units kept by the queue this order is in.
+     * @return The queue's UnitCensus. NULL if the order isn't in a queue.
+     */
+    protected UnitCensus getCensus() {return queue != null ? queue.getUnitCensus() : null;}
+
+    /**
+     * Gets the free lists of producers kept by the queue this order is in.
+     * @return The queue's ProducerPool. NULL if the order isn't in a queue.
+     */
+    ProducerPool getProducerPool() {return queue != null ? queue.getProducerPool() : null;}
+
+    /**
+     * Checks the queue's free lists for a producer of the order's producer type.
+     * @return True if one is free. False if none is, or the order isn't in a queue.
+     */
+    boolean hasFreeProducer()
+    {
+        ProducerPool producers = getProducerPool();
+        return (producers != null) && producers.hasFree(getProducerType());
+    }
+
+    /**
+     * Gets the game model of the queue this order is in, or of the current game if it isn't in a queue.
+     * @return The GameModel
+     */
+    protected GameModel getModel() {return queue != null ? queue.getGameModel() : BaseAPI.getGameModel();}
+
+    /**
+     * Gets the type data used for the order's costs and times.
+     * @return The TypeData
+     */
+    protected TypeData getTypeData() {return getModel().getTypeData();}
+
     /**
      * Run a check to see if order has been started. Only to be run if the order is 'ordered'. Does nothing for UnitBuildingOrders.
      * If it is started then the status in the order is set to started.
@@ -100,4 +203,34 @@ public abstract class ProductionOrder implements Comparable<ProductionOrder>{
      * @return Boolean. True if the order is finished. False if it isn't.
      */
     public abstract boolean checkHasFinished();
+
+    /**
+     * Gets how many frames the order takes to complete once it has started. Used by the queue to know when to check back on it.
+     * @return The build, research or upgrade time in frames
+     */
+    public abstract int getProductionTime();
+
+    /**
+     * Gets the mineral cost of the order
+     * @return The minerals needed to start the order
+     */
+    public abstract int getMineralPrice();
+
+    /**
+     * Gets the gas cost of the order
+     * @return The gas needed to start the order
+     */
+    public abstract int getGasPrice();
+
+    /**
+     * Gets the supply the order will use once started. Only units use supply.
+     * @return The supply needed to start the order
+     */
+    public int getSupplyRequired() {return 0;}
+
+    /**
+     * Gets the type of unit or building that carries out the order.
+     * @return The producer type. For buildings this is the worker that builds it.
+     */
+    public abstract UnitType getProducerType();
 }
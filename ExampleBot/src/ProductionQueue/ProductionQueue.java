@@ -7,29 +7,111 @@ import bwapi.UnitType;
 import bwapi.UpgradeType;
 import main.BaseAPI;
 import ProductionQueue.ProductionOrder.OrderStatus;
+import GameModel.GameModel;
+import GameModel.TypeData;
+import UnitCensus.UnitCensus;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
 
 /**
  * PRODUCTION QUEUE
  * Holds all production orders that are requested of it. Orders will be sorted by priority first, then by time ordered.
+ * Orders are kept in an indexed structure so they never need re-sorting, and so count and membership checks don't need to walk the queue.
  * Each frame will go through list of orders to find which are ready to be executed and will pass back a ready order.
  *
+ * Orders are split into lanes by the type of unit that produces them, so all the Barracks orders share one lane and all the buildings put up by workers share another.
+ * Each lane keeps its own ordering and its own count of orders in flight, so an order that is waiting in one lane never holds up the others.
+ * Money is handed out between the lanes by priority. An order that can't be afforded holds its cost back from every lower priority order in any lane.
+ * An order that is passed back but never starts is timed out and put back to be passed back again, rather than holding up the queue.
+ * A number of the same unit can be ordered at once as a UnitQuantityOrder. It stays one entry on the queue and hands out a unit order each time a producer is free.
+ *
+ * Each AddToQueue gives back the order it made, which acts as a handle to it. Its ID is stable for the whole game and can be used to find, cancel or reprioritize it.
+ * Cancelled orders are set to aborted and left where they are as tombstones, skipped by everything that reads the queue. They are all taken off in one pass at the start of the next update.
+ *
+ * Orders that are in progress are moved on by unit events rather than being checked every frame. A timer wheel wakes each in progress order
+ * once its build, research or upgrade time is up, to catch research and upgrades (which have no events) and anything the events missed.
+ * The queue keeps a UnitCensus of the player's units from the same events, which it and its orders use for prerequisite checks.
+ * Producers are handed out from free lists kept per producer type. Each order passed back is given the producer it is to be carried out by, see ProductionOrder.getProducer,
+ * and that producer isn't given another order until this one finishes or is reset.
+ * Prerequisites come from a TechTree built at game start, so checking them and adding missing ones needs no walk of the type data.
+ *
  * REQUIRED USER BOT CALLS
  * onGameStart: Call onGameStart
- * onFrame: Call Update
+ * onFrame: Call Update, or UpdateBatch to get every order that can start this frame
  * onUnitCreate: Call unitStructureStarted
  * onUnitMorph: Call unitStructureStarted
+ * onUnitComplete: Call unitCompleted
  * onUnitDestroy: Call unitStructureDestroyed
+ *
+ * Other threads, such as planners working off the frame loop, must not call the methods above. They use the Submit methods instead, which can be called from any thread
+ * and never block. What they submit is applied on the game thread at the start of the next Update or UpdateBatch. getSnapshot gives them a read only copy of the queue.
  */
 public class ProductionQueue {
-    private ArrayList<ProductionOrder> allOrders;
+
+    //How long after an order is passed back before checking whether the research or upgrade has started
+    private static final int START_CHECK_FRAMES = 4;
+    //How long past the expected finish time before checking an order again
+    private static final int FINISH_CHECK_FRAMES = 24;
+    //Default time allowed for an order to start after it is passed back. Buildings allow for the worker walking to the site.
+    private static final int DEFAULT_TRAINED_TIMEOUT_FRAMES = 48;
+    private static final int DEFAULT_WORKER_BUILT_TIMEOUT_FRAMES = 1440;
+    //Most orders drawn on screen by default, and most queue changes printed at once
+    private static final int DEFAULT_OVERLAY_ROWS = 20;
+    private static final int MAX_PRINTED_CHANGES = 10;
+    //Most frames a published snapshot is left before it is taken again, so its predicted start frames don't go too far out of date
+    private static final int SNAPSHOT_REFRESH_FRAMES = 24;
+
+    private GameModel model;
+    private TypeData typeData;
+    private IndexedOrderQueue allOrders;
+    private HashMap<Integer, ProductionOrder> ordersByID;
+    //Cancelled orders still in the queue, to be taken off by the next compaction
+    private ArrayList<ProductionOrder> tombstones;
+    private TimerWheel timers;
+    private HashMap<Integer, UnitBuildingOrder> startedUnitOrders;
+    //Unit orders that have been passed back and are waiting for their unit to be started, by the type they make
+    private HashMap<UnitType, LinkedHashSet<UnitBuildingOrder>> orderedUnitOrders;
+    private HashMap<UnitType, ProductionLane> lanes;
+    private UnitCensus census;
+    private ProducerPool producers;
+    private TechTree techTree;
+
+    //Costs of the orders that have been passed back but not started yet, so haven't been taken from the player's resources
+    private int committedMinerals;
+    private int committedGas;
+    private int committedSupply;
+
+    private IncomeTracker incomeTracker;
+    private boolean incomeScheduling;
+    private int trainedTimeoutFrames = DEFAULT_TRAINED_TIMEOUT_FRAMES;
+    private int workerBuiltTimeoutFrames = DEFAULT_WORKER_BUILT_TIMEOUT_FRAMES;
+    private TimerWheel.TimerListener timerListener = new TimerWheel.TimerListener() {
+        @Override
+        public void timerExpired(ProductionOrder order) {orderTimerExpired(order);}
+    };
 
     private boolean debugMessagesOn;
     private boolean debugOnScreen;
+    //The on screen text is only rebuilt when the queue or an order's status has changed
+    private String overlayText;
+    private boolean overlayChanged = true;
+    private int overlayRows = DEFAULT_OVERLAY_ROWS;
+    //Queue changes waiting to be printed, with a count of those left out once the limit was reached
+    private ArrayList<String> queueChanges = new ArrayList<>();
+    private int queueChangesLeftOut;
+
+    //Commands submitted from other threads, and the latest copy of the queue published for them
+    private final CommandIngress ingress = new CommandIngress();
+    private volatile QueueSnapshot snapshot = QueueSnapshot.EMPTY;
+    private boolean snapshotChanged = true;
 
     public ProductionQueue(boolean debugMessagesOn, boolean debugOnScreen){
         this.debugMessagesOn = debugMessagesOn;
@@ -40,124 +122,360 @@ public class ProductionQueue {
      * Basic setup of the ProductionQueue that needs to be run at game start.
      * Would be in the constructor but due to the way that BWAPI initialises, some things should be done on game start, after the StarCraft engine has setup.
      */
-    public void onGameStart()
+    public void onGameStart() {onGameStart(BaseAPI.getGameModel());}
+
+    /**
+     * Setup of the ProductionQueue on the given game model, in place of the current BWAPI game. Used to run the queue without StarCraft, such as by the Simulator.
+     * @param model The game the queue works from
+     */
+    public void onGameStart(GameModel model)
     {
-        allOrders = new ArrayList<ProductionOrder>();
+        this.model = model;
+        this.typeData = model.getTypeData();
+        allOrders = new IndexedOrderQueue();
+        ordersByID = new HashMap<>();
+        tombstones = new ArrayList<>();
+        timers = new TimerWheel(model.getFrameCount());
+        startedUnitOrders = new HashMap<>();
+        orderedUnitOrders = new HashMap<>();
+        lanes = new HashMap<>();
+        census = new UnitCensus(model);
+        producers = new ProducerPool(model, census);
+        techTree = new TechTree(model.getRace(), census, typeData);
+        committedMinerals = 0;
+        committedGas = 0;
+        committedSupply = 0;
+        incomeTracker = new IncomeTracker(model);
     }
 
+    /**
+     * Turns income scheduling on or off. Off by default.
+     * When off, the highest priority order that can't be afforded holds up every order below it that would eat into its cost.
+     * When on, that order instead has its money reserved and a start frame predicted from the player's recent income.
+     * Lower priority orders can then go ahead early as long as they don't push that start frame back.
+     * Each waiting order's predicted start frame can be read with ProductionOrder.getPredictedStartFrame.
+     * @param incomeScheduling True to turn income scheduling on
+     */
+    public void setIncomeScheduling(boolean incomeScheduling) {this.incomeScheduling = incomeScheduling;}
+
+    /**
+     * Sets how long an order that has been passed back is given to start before it is put back on the queue to be passed back again.
+     * A building passed back again may still have a builder on its way from the first time, so check for that before starting another, such as with BuilderManager.hasJob.
+     * @param trainedFrames Frames allowed for units, research and upgrades, which start at an idle producer. 48 by default.
+     * @param workerBuiltFrames Frames allowed for buildings put up by workers, which need the worker to get to the site first. 1440 by default.
+     */
+    public void setConfirmationTimeouts(int trainedFrames, int workerBuiltFrames)
+    {
+        this.trainedTimeoutFrames = trainedFrames;
+        this.workerBuiltTimeoutFrames = workerBuiltFrames;
+    }
+
+    /**
+     * Sets how many orders are listed on screen when debugOnScreen is on. The lane summary is always shown.
+     * @param overlayRows The most orders to list, highest priority first
+     */
+    public void setOverlayRows(int overlayRows)
+    {
+        this.overlayRows = overlayRows;
+        overlayChanged = true;
+    }
+
+    /**
+     * Gets the player's estimated mineral income, from how much they have gathered recently.
+     * @return Minerals gathered per frame
+     */
+    public double getMineralIncome() {return incomeTracker.getMineralsPerFrame();}
+
+    /**
+     * Gets the player's estimated gas income, from how much they have gathered recently.
+     * @return Gas gathered per frame
+     */
+    public double getGasIncome() {return incomeTracker.getGasPerFrame();}
+
+    /**
+     * Gets the census of the player's units that the queue keeps up to date.
+     * @return The queue's UnitCensus
+     */
+    public UnitCensus getUnitCensus() {return census;}
+
+    /**
+     * Gets the free lists of producers that orders are handed out to.
+     */
+    ProducerPool getProducerPool() {return producers;}
+
+    /**
+     * Gets the game model the queue works from.
+     * @return The queue's GameModel
+     */
+    public GameModel getGameModel() {return model;}
+
+    /**
+     * Checks whether there is anything left on the queue, including orders that have been passed back but not finished.
+     * @return True if the queue is empty
+     */
+    public boolean isEmpty() {return allOrders.isEmpty();}
+
 
     /**
      * Update of the ProductionQueue. Checks are run to see if an order is ready.
      * Any that are ready for execution will be returned for the user to execute how they want.
+     * Orders passed back on earlier frames that haven't started yet don't stop a new one being passed back. They keep their producer and money held until they start or time out.
      * @return ProductionOrder : ProductionOrder that is ready for execution. NULL if nothing.
      */
     public ProductionOrder Update()
     {
-        if (debugOnScreen) {
-            StringBuilder displayCommands = new StringBuilder("Commands:\n");
-            for (ProductionOrder currentOrder : allOrders) {
-                displayCommands.append(currentOrder.toString()).append("\n");
-            }
-            BaseAPI.baseAPI.game.drawTextScreen(10, 10, displayCommands.toString());
-        }
+        updateOrders();
+
+        ArrayList<ProductionOrder> toExecute = selectOrders(1);
+        publishSnapshot();
+        return toExecute.isEmpty() ? null : toExecute.get(0);
+    }
 
-        boolean itemRemoved = false;
-        ArrayList<ProductionOrder> toRemove = new ArrayList<>();
-        for (ProductionOrder currentOrder : allOrders)
+    /**
+     * Batch Update of the ProductionQueue. Passes back every order that can be started this frame, highest priority first, rather than one a frame.
+     * The orders are given out against a running budget of minerals, gas, supply and idle producers, so together they never overspend.
+     * Orders that were passed back earlier but haven't started yet still hold their share of the budget, so they don't block the rest of the queue.
+     * As with Update, an order that can't be afforded holds its cost back from every lower priority order, so none of them spends money it is waiting for.
+     * With income scheduling on, lower priority orders can spend money that will be made back before it is needed. See setIncomeScheduling.
+     * @return ArrayList of ProductionOrders ready for execution. Empty if nothing.
+     */
+    public ArrayList<ProductionOrder> UpdateBatch()
+    {
+        updateOrders();
+        ArrayList<ProductionOrder> toExecute = selectOrders(Integer.MAX_VALUE);
+        publishSnapshot();
+        return toExecute;
+    }
+
+    /**
+     * Where the arbiter has got to in one lane. Holds the lane's highest priority order not yet looked at, and how many of its producers are still free.
+     */
+    private static class LaneCursor {
+        final ProductionLane lane;
+        final Iterator<ProductionOrder> orders;
+        ProductionOrder head;
+        int freeProducers;
+
+        LaneCursor(ProductionLane lane, int freeProducers)
         {
-            if (currentOrder.getStatus() == OrderStatus.started) {
-                if (currentOrder.checkHasFinished()) {
-                    toRemove.add(currentOrder);
-                    debugMessage("FINISHED: " + currentOrder.toString());
-                }
-                else if(currentOrder instanceof UnitBuildingOrder)
-                {
-                    if (!((UnitBuildingOrder) currentOrder).checkIfStillTraining())
-                    {
-                        debugMessage("ORDER RESET: " + currentOrder.toString());
-                    }
-                }
-            }
+            this.lane = lane;
+            this.orders = lane.waitingOrders();
+            this.freeProducers = freeProducers;
+            next();
         }
-        for (ProductionOrder currentToRemove : toRemove)
+
+        //Moves on to the next order, passing over cancelled orders that haven't been taken off yet
+        boolean next()
         {
-            itemRemoved = true;
-            allOrders.remove(currentToRemove);
+            do {
+                head = orders.hasNext() ? orders.next() : null;
+            } while ((head != null) && (head.getStatus() == OrderStatus.aborted));
+            return head != null;
         }
-        if (itemRemoved)
-            sortQueue();
 
-
-        for (ProductionOrder currentOrder : allOrders)
+        //Clears the predictions of the orders the arbiter didn't get to
+        void drop()
         {
-            if(currentOrder.getStatus() == OrderStatus.ordered)
-            {
-                if(!currentOrder.checkHasStarted())
-                    return null;
-                else
-                    debugMessage("STARTED: " + currentOrder.toString());
+            while (head != null) {
+                head.predictedStartFrame = -1;
+                next();
             }
         }
+    }
 
-        for (ProductionOrder currentOrder : allOrders) {
-            if (currentOrder.getStatus() != OrderStatus.commissioned)
-                continue;
+    private static final Comparator<LaneCursor> HIGHEST_HEAD_FIRST = new Comparator<LaneCursor>() {
+        @Override
+        public int compare(LaneCursor a, LaneCursor b) {return a.head.compareTo(b.head);}
+    };
 
-            if (!checkHaveAllPrereq(currentOrder))
+    /**
+     * The arbiter. Merges the lanes' waiting orders by priority, picking out orders to pass back against a running budget of minerals, gas, supply and idle producers.
+     * A lane with no free producers is passed over, so it never holds up the other lanes.
+     * An order that can't be afforded has its cost reserved and is given a predicted start frame from the current income.
+     * Lower priority orders in any lane are then only passed back if they leave enough money for every reservation above them.
+     * Without income scheduling the reservations are held from the money the player has now, and the blocked order's lane waits for it.
+     * With income scheduling the money that will be made before each reservation comes due can be spent, and the rest of the blocked order's lane can go ahead.
+     * @param maxOrders The most orders to pass back
+     * @return The orders to pass back, already set to ordered
+     */
+    private ArrayList<ProductionOrder> selectOrders(int maxOrders)
+    {
+        int currentFrame = model.getFrameCount();
+        ArrayList<ProductionOrder> toExecute = new ArrayList<>();
+        ArrayList<Integer> producerIDs = new ArrayList<>();
+        int mineralBudget = model.minerals() - committedMinerals;
+        int gasBudget = model.gas() - committedGas;
+        int supplyBudget = model.supplyTotal() - model.supplyUsed() - committedSupply;
+
+        //Running totals of the orders that are waiting for money, and how much can be spent now without pushing any of them back
+        int reservedMinerals = 0;
+        int reservedGas = 0;
+        double mineralSlack = Double.MAX_VALUE;
+        double gasSlack = Double.MAX_VALUE;
+
+        PriorityQueue<LaneCursor> heads = new PriorityQueue<>(Math.max(1, lanes.size()), HIGHEST_HEAD_FIRST);
+        for (ProductionLane currentLane : lanes.values()) {
+            if (currentLane.getWaitingCount() == 0)
                 continue;
+            int free = currentLane.isWorkerBuilt() ? Integer.MAX_VALUE : producers.getFreeCount(currentLane.getProducerType());
+            LaneCursor cursor = new LaneCursor(currentLane, free);
+            if (free > 0)
+                heads.add(cursor);
+            else
+                cursor.drop();
+        }
 
-            if (!currentOrder.isToProduceFree())
+        while (!heads.isEmpty() && (toExecute.size() < maxOrders)) {
+            LaneCursor cursor = heads.poll();
+            ProductionOrder currentOrder = cursor.head;
+            UnitQuantityOrder quantityOrder = (currentOrder instanceof UnitQuantityOrder) ? (UnitQuantityOrder) currentOrder : null;
+            if (quantityOrder == null || quantityOrder.handingOut == 0)
+                currentOrder.predictedStartFrame = -1;
+
+            if (!checkHaveAllPrereq(currentOrder) || (currentOrder.getSupplyRequired() > supplyBudget)
+                    || ((quantityOrder != null) && (quantityOrder.getWaitingCount() == quantityOrder.handingOut))) {
+                if (cursor.next())
+                    heads.add(cursor);
                 continue;
+            }
 
-            if (currentOrder instanceof UnitBuildingOrder){
-                if (!((UnitBuildingOrder) currentOrder).enoughSupply())
+            int mineralPrice = currentOrder.getMineralPrice();
+            int gasPrice = currentOrder.getGasPrice();
+            boolean affordable = (mineralPrice <= mineralBudget) && (gasPrice <= gasBudget);
+
+            if (affordable && ((mineralPrice == 0) || (mineralPrice <= mineralSlack)) && ((gasPrice == 0) || (gasPrice <= gasSlack))) {
+                int producerID = -1;
+                if (!cursor.lane.isWorkerBuilt()) {
+                    producerID = producers.acquire(cursor.lane.getProducerType());
+                    if (producerID == -1) {
+                        //The lane's free producers are all busy with things the queue didn't order
+                        cursor.drop();
+                        continue;
+                    }
+                }
+                mineralBudget -= mineralPrice;
+                gasBudget -= gasPrice;
+                mineralSlack -= mineralPrice;
+                gasSlack -= gasPrice;
+                supplyBudget -= currentOrder.getSupplyRequired();
+                currentOrder.predictedStartFrame = currentFrame;
+                toExecute.add(currentOrder);
+                producerIDs.add(producerID);
+                if (quantityOrder != null)
+                    quantityOrder.handingOut++;
+            }
+            else {
+                //This order waits, so hold its money back from everything below it
+                reservedMinerals += mineralPrice;
+                reservedGas += gasPrice;
+                int wait = incomeTracker.framesUntilAffordable(reservedMinerals - mineralBudget, reservedGas - gasBudget);
+                if (wait != Integer.MAX_VALUE)
+                    currentOrder.predictedStartFrame = currentFrame + wait;
+                if (!incomeScheduling || (wait == Integer.MAX_VALUE)) {
+                    mineralSlack = Math.min(mineralSlack, mineralBudget - reservedMinerals);
+                    gasSlack = Math.min(gasSlack, gasBudget - reservedGas);
+                }
+                else {
+                    mineralSlack = Math.min(mineralSlack, mineralBudget + (incomeTracker.getMineralsPerFrame() * wait) - reservedMinerals);
+                    gasSlack = Math.min(gasSlack, gasBudget + (incomeTracker.getGasPerFrame() * wait) - reservedGas);
+                }
+                if (!incomeScheduling) {
+                    cursor.next();
+                    cursor.drop();
                     continue;
+                }
             }
 
-            if (!currentOrder.canAfford())
-                return null;
+            //Passed back or waiting for money, the order has a producer held for it
+            if (!cursor.lane.isWorkerBuilt())
+                cursor.freeProducers--;
+            //A quantity order that has just handed out a unit stays at the head of its lane for its next unit
+            boolean moreToHandOut = (quantityOrder != null) && (toExecute.size() > 0) && (toExecute.get(toExecute.size() - 1) == quantityOrder)
+                    && (quantityOrder.handingOut < quantityOrder.getWaitingCount());
+            if (!moreToHandOut && !cursor.next())
+                continue;
+            if (cursor.freeProducers > 0)
+                heads.add(cursor);
+            else
+                cursor.drop();
+        }
+        for (LaneCursor cursor : heads)
+            cursor.drop();
+
+        for (int i = 0; i < toExecute.size(); i++) {
+            ProductionOrder currentOrder = toExecute.get(i);
+            if (currentOrder instanceof UnitQuantityOrder) {
+                ((UnitQuantityOrder) currentOrder).handingOut = 0;
+                currentOrder = handOutUnit((UnitQuantityOrder) currentOrder);
+                toExecute.set(i, currentOrder);
+            }
+            if (producerIDs.get(i) != -1)
+                producers.assign(producerIDs.get(i), currentOrder);
+            currentOrder.setStatus(OrderStatus.ordered);
+            debugMessage("ORDERED: " + currentOrder.toString());
+        }
+        return toExecute;
+    }
 
+    /**
+     * Work done at the start of both Update and UpdateBatch. Applies the commands submitted from other threads, moves on any orders whose timers have come due, then prints and draws the queue if wanted.
+     */
+    private void updateOrders()
+    {
+        int applied = ingress.drain(this);
+        if (applied > 0)
+            debugMessage("Applied Submitted Commands: " + applied);
+        compact();
+        timers.advance(model.getFrameCount(), timerListener);
+        incomeTracker.onFrame(model.getFrameCount());
+
+        printQueue();
+        if (debugOnScreen) {
+            if (overlayChanged) {
+                overlayText = buildOverlay();
+                overlayChanged = false;
+            }
+            BaseAPI.baseAPI.game.drawTextScreen(10, 10, overlayText);
+        }
+    }
 
+    /**
+     * Builds the on screen text. A line for each lane with its counts, then the highest priority orders up to the row limit.
+     */
+    private String buildOverlay()
+    {
+        StringBuilder displayCommands = new StringBuilder("Lanes:\n");
+        for (ProductionLane currentLane : lanes.values()) {
+            if (currentLane.getWaitingCount() + currentLane.getOrderedCount() + currentLane.getStartedCount() == 0)
+                continue;
+            displayCommands.append(typeData.getName(currentLane.getProducerType()))
+                    .append(" - ").append(currentLane.getWaitingCount()).append(" waiting, ")
+                    .append(currentLane.getOrderedCount()).append(" ordered, ")
+                    .append(currentLane.getStartedCount()).append(" started\n");
+        }
 
-            currentOrder.setStatus(OrderStatus.ordered);
-            return currentOrder;
-
-
-
-            /*
-            if(currentOrder.getStatus() == OrderStatus.commissioned) {
-                if (checkHaveAllPrereq(currentOrder)){
-                    if(currentOrder.canAfford()) {
-                        if (currentOrder.isToProduceFree()) {
-                            currentOrder.setStatus(OrderStatus.ordered);
-                            return currentOrder;
-                        } else {
-                            //System.out.println("Building not available");
-                            break;
-                        }
-                    } else {
-                        //System.out.println("Cant afford");
-                        break;
-                    }
-                }
-                else
-                {
-                    //System.out.println("Don't have all prereq");
-                }
-            }
-            */
+        displayCommands.append("Commands:\n");
+        int rows = 0;
+        for (ProductionOrder currentOrder : allOrders) {
+            if (rows == overlayRows)
+                break;
+            displayCommands.append(currentOrder.toString()).append("\n");
+            rows++;
         }
-        return null;
+        if (allOrders.size() > rows)
+            displayCommands.append("... ").append(allOrders.size() - rows).append(" more\n");
+        return displayCommands.toString();
     }
 
     /**
      * Add a unit or a building to the ProductionQueue. Will automatically add all prerequisite structures that aren't owned to the queue.
      * @param toBuild The Unit or Building wanted
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @return The order made, as a handle to it
      */
-    public void AddToQueue(UnitType toBuild, int priority)
+    public ProductionOrder AddToQueue(UnitType toBuild, int priority)
     {
-        AddToQueue(toBuild, priority,true);
+        return AddToQueue(toBuild, priority,true);
     }
 
 
@@ -166,32 +484,88 @@ public class ProductionQueue {
      * @param toBuild The Unit or Building wanted.
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
      * @param autoBuildPrereq True will automatically build all prerequisite structures not currently owned. False will only add this order to the queue.
+     * @return The order made, as a handle to it
      */
-    public void AddToQueue(UnitType toBuild, int priority,  boolean autoBuildPrereq)
+    public ProductionOrder AddToQueue(UnitType toBuild, int priority,  boolean autoBuildPrereq)
     {
-        debugMessage("Beginning Add Unit: " + toBuild.toString());
+        debugMessage("Beginning Add Unit: " + typeData.getName(toBuild));
         if (autoBuildPrereq)
-        {
-            for(UnitType currentReq : getAllPrereq(toBuild))
-            {
-                if(!checkIfPlayerHasUnitBuilding(currentReq) && (!checkIfHaveInProduction(currentReq))) {
-                    AddToQueue(currentReq, priority, true);
-                }
-            }
+            addMissingPrereq(techTree.getClosure(toBuild), priority);
+        ProductionOrder order = new UnitBuildingOrder(toBuild,priority);
+        addOrder(order);
+        debugMessage("Added To List: " + typeData.getName(toBuild));
+        return order;
+    }
+
+    /**
+     * Add a number of the same unit to the ProductionQueue as one order. Will automatically add all prerequisite structures that aren't owned to the queue.
+     * The units are handed out one at a time as producers come free. See UnitQuantityOrder.
+     * @param toBuild The Unit wanted
+     * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @param quantity How many of the unit are wanted
+     * @return The order made, as a handle to it
+     */
+    public ProductionOrder AddToQueue(UnitType toBuild, int priority, int quantity) {return AddToQueue(toBuild, priority, quantity, true);}
+
+    /**
+     * Add a number of the same unit to the ProductionQueue as one order, with the option of not automatically adding all prerequisite structures to the queue.
+     * @param toBuild The Unit wanted
+     * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @param quantity How many of the unit are wanted. Nothing is added if this is less than 1.
+     * @param autoBuildPrereq True will automatically build all prerequisite structures not currently owned. False will only add this order to the queue.
+     * @return The order made, as a handle to it. A UnitQuantityOrder when more than one is wanted. NULL if nothing was added.
+     */
+    public ProductionOrder AddToQueue(UnitType toBuild, int priority, int quantity, boolean autoBuildPrereq)
+    {
+        if (quantity < 1)
+            return null;
+        if (quantity == 1)
+            return AddToQueue(toBuild, priority, autoBuildPrereq);
+        debugMessage("Beginning Add Units: " + typeData.getName(toBuild) + " x" + quantity);
+        if (autoBuildPrereq)
+            addMissingPrereq(techTree.getClosure(toBuild), priority);
+        ProductionOrder order = new UnitQuantityOrder(toBuild, priority, quantity);
+        addOrder(order);
+        debugMessage("Added To List: " + typeData.getName(toBuild) + " x" + quantity);
+        return order;
+    }
+
+    /**
+     * Add several units to the ProductionQueue at once, such as the makeup of a squad. Each type is added as one order for all of its units.
+     * Will automatically add all prerequisite structures that aren't owned to the queue.
+     * @param toBuild How many of each unit are wanted
+     * @param priority The Priority level of these orders. The Higher the number, the higher the priority.
+     */
+    public void AddToQueue(Map<UnitType, Integer> toBuild, int priority)
+    {
+        for (Map.Entry<UnitType, Integer> entry : toBuild.entrySet())
+            AddToQueue(entry.getKey(), priority, entry.getValue(), true);
+    }
+
+    /**
+     * Add orders that have already been made to the ProductionQueue in one go, such as a whole opening from the OpeningBook.
+     * No prerequisites are looked up or added, so the orders should already include any that are needed. Orders that are already on a queue are skipped.
+     * @param orders The orders to add. Each keeps the priority it was made with.
+     */
+    public void AddToQueue(Collection<? extends ProductionOrder> orders)
+    {
+        debugMessage("Beginning Add Orders: " + orders.size());
+        for (ProductionOrder currentOrder : orders) {
+            if (currentOrder.queue == null)
+                addOrder(currentOrder);
         }
-        allOrders.add(new UnitBuildingOrder(toBuild,priority));
-        debugMessage("Added To List: " + toBuild.toString());
-        sortQueue();
+        debugMessage("Added To List: " + orders.size() + " orders");
     }
 
     /**
      * Add a research to the ProductionQueue. Will automatically add all prerequisite structures that aren't owned to the queue.
      * @param toResearch The Technology to be researched
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @return The order made, as a handle to it. NULL if it is already researched or on the queue.
      */
-    public void AddToQueue(TechType toResearch, int priority)
+    public ProductionOrder AddToQueue(TechType toResearch, int priority)
     {
-        AddToQueue(toResearch, priority, true);
+        return AddToQueue(toResearch, priority, true);
     }
 
     /**
@@ -199,25 +573,22 @@ public class ProductionQueue {
      * @param toResearch The technology to be researched
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
      * @param autoBuildPrereq True will automatically build all prerequisite structures not currently owned. False will only add this order to the queue.
+     * @return The order made, as a handle to it. NULL if it is already researched or on the queue.
      */
-    public void AddToQueue(TechType toResearch, int priority, boolean autoBuildPrereq)
+    public ProductionOrder AddToQueue(TechType toResearch, int priority, boolean autoBuildPrereq)
     {
         debugMessage("Beginning Add Research");
-        if (!BaseAPI.baseAPI.self.hasResearched(toResearch) && !checkIfHaveInProduction(toResearch)) {
-            if (autoBuildPrereq) {
-                for(UnitType currentReq : getAllPrereq(toResearch))
-                {
-                    if(!checkIfPlayerHasUnitBuilding(currentReq) && (!checkIfHaveInProduction(currentReq))) {
-                        AddToQueue(currentReq, priority, true);
-                    }
-                }
-            }
-            allOrders.add(new ResearchOrder(toResearch, priority));
-            debugMessage("Added To List: " + toResearch.toString());
-            sortQueue();
+        if (!model.hasResearched(toResearch) && !checkIfHaveInProduction(toResearch)) {
+            if (autoBuildPrereq)
+                addMissingPrereq(techTree.getClosure(toResearch), priority);
+            ProductionOrder order = new ResearchOrder(toResearch, priority);
+            addOrder(order);
+            debugMessage("Added To List: " + typeData.getName(toResearch));
+            return order;
         }
         else {
             debugMessage("Upgrade Already Researched or in the queue");
+            return null;
         }
     }
 
@@ -226,8 +597,9 @@ public class ProductionQueue {
      * @param toUpgrade The Upgrade to be researched
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
      * @param level The level of the upgrade to be researched. Level 1 by default and for non tiered upgrades.
+     * @return The order made, as a handle to it. NULL if the upgrade is already at that level or on the queue.
      */
-    public void AddToQueue(UpgradeType toUpgrade, int priority, int level) {AddToQueue(toUpgrade, priority, level, true);}
+    public ProductionOrder AddToQueue(UpgradeType toUpgrade, int priority, int level) {return AddToQueue(toUpgrade, priority, level, true);}
 
     /**
      * Add a upgrade to the ProductionQueue, with the option of not automatically adding all prerequisite structures to the queue.
@@ -235,26 +607,23 @@ public class ProductionQueue {
      * @param priority The Priority level of this order. The Higher the number, the higher the priority.
      * @param autoBuildPrereq True will automatically build all prerequisite structures not currently owned. False will only add this order to the queue.
      * @param level The level of the upgrade to be researched. Level 1 by default for non tiered Upgrades
+     * @return The order made, as a handle to it. NULL if the upgrade is already at that level or on the queue.
      */
-    public void AddToQueue(UpgradeType toUpgrade, int priority, int level, boolean autoBuildPrereq)
+    public ProductionOrder AddToQueue(UpgradeType toUpgrade, int priority, int level, boolean autoBuildPrereq)
     {
         debugMessage("Beginning Add Research");
-        if ((!(BaseAPI.baseAPI.self.getUpgradeLevel(toUpgrade) == level)) && (!checkIfHaveInProduction(toUpgrade,level))) { /* If the upgrade is not already at the level requested and it isn't already in the queue */
-            if (autoBuildPrereq) { /* If requested, add all the prerequisites that are not met yet */
-                for(UnitType currentReq : getAllPrereq(toUpgrade, level))
-                {
-                    if(!checkIfPlayerHasUnitBuilding(currentReq) && (!checkIfHaveInProduction(currentReq))) {
-                        AddToQueue(currentReq, priority, true);
-                    }
-                }
-            }
-            allOrders.add(new UpgradeOrder(toUpgrade, priority, level));
-            debugMessage("Added To List: " + toUpgrade.toString());
-            sortQueue();
+        if ((!(model.getUpgradeLevel(toUpgrade) == level)) && (!checkIfHaveInProduction(toUpgrade,level))) { /* If the upgrade is not already at the level requested and it isn't already in the queue */
+            if (autoBuildPrereq) /* If requested, add all the prerequisites that are not met yet */
+                addMissingPrereq(techTree.getClosure(toUpgrade, level), priority);
+            ProductionOrder order = new UpgradeOrder(toUpgrade, priority, level);
+            addOrder(order);
+            debugMessage("Added To List: " + typeData.getName(toUpgrade));
+            return order;
         }
         else
         {
             debugMessage("Upgrade Already at that level or in the queue");
+            return null;
         }
     }
 
@@ -264,16 +633,34 @@ public class ProductionQueue {
      * Remove a unit or building from the ProductionQueue
      * @param toRemove The Unit or Building to be cancelled
      * @param removeAll True will remove all of that type from the queue. False will remove only the first one found starting with the lowest priority.
+     *                  A quantity order gives up one of its waiting units, and is only removed once it has none left.
      */
     public void RemoveFromQueue(UnitType toRemove, boolean removeAll)
     {
-        debugMessage("Removing: " + toRemove.toString());
+        debugMessage("Removing: " + typeData.getName(toRemove));
         ArrayList<ProductionOrder> removeList = new ArrayList<>();
 
-        Collections.reverse(allOrders);
+        if (allOrders.count(toRemove) == 0)
+            return;
 
-        for (ProductionOrder currentOrder : allOrders) {
-            if (currentOrder instanceof UnitBuildingOrder)
+        Iterator<ProductionOrder> lowestFirst = allOrders.descendingIterator();
+        while (lowestFirst.hasNext()) {
+            ProductionOrder currentOrder = lowestFirst.next();
+            if (currentOrder.getStatus() == OrderStatus.aborted)
+                continue;
+            if ((currentOrder instanceof UnitQuantityOrder) && !removeAll)
+            {
+                UnitQuantityOrder quantityOrder = (UnitQuantityOrder) currentOrder;
+                if ((quantityOrder.getToProduce() == toRemove) && (quantityOrder.getWaitingCount() > 0))
+                {
+                    allOrders.waitingUnitsChanged(quantityOrder, -quantityOrder.takeOff(1));
+                    queueChanged("REDUCED: ", quantityOrder);
+                    if (quantityOrder.isComplete())
+                        removeList.add(quantityOrder);
+                    break;
+                }
+            }
+            else if (currentOrder instanceof UnitBuildingOrder)
             {
                 if(((UnitBuildingOrder) currentOrder).getToProduce() == toRemove)
                 {
@@ -286,9 +673,8 @@ public class ProductionQueue {
         }
         for (ProductionOrder currentRemove : removeList)
         {
-            allOrders.remove(currentRemove);
+            cancelOrder(currentRemove);
         }
-        sortQueue();
     }
 
     /**
@@ -297,53 +683,374 @@ public class ProductionQueue {
      */
     public void RemoveFromQueue(TechType toRemove)
     {
-        debugMessage("Removing: " + toRemove.toString());
-        boolean haveFound = false;
-        ProductionOrder foundOrder = null;
+        debugMessage("Removing: " + typeData.getName(toRemove));
+        ProductionOrder foundOrder = allOrders.getFirst(toRemove);
+        if (foundOrder != null)
+            cancelOrder(foundOrder);
+    }
+
+    /**
+     * Remove a upgrade from the ProductionQueue
+     * @param toRemove the upgrade research to remove.
+     */
+    public void RemoveFromQueue(UpgradeType toRemove)
+    {
+        debugMessage("Removing: " + typeData.getName(toRemove));
+        ProductionOrder foundOrder = allOrders.getFirst(toRemove);
+        if (foundOrder != null)
+            cancelOrder(foundOrder);
+    }
 
+    /**
+     * Finds an order on the ProductionQueue by its ID. O(1)
+     * @param orderID The order's ID, from ProductionOrder.getOrderID
+     * @return The order. NULL if it isn't on the queue, or has been cancelled.
+     */
+    public ProductionOrder getOrder(int orderID)
+    {
+        ProductionOrder order = ordersByID.get(orderID);
+        return ((order == null) || (order.getStatus() == OrderStatus.aborted)) ? null : order;
+    }
+
+    /**
+     * Cancel an order on the ProductionQueue. O(1)
+     * The order is set to aborted straight away and stops counting towards the queue's checks. It is taken off the queue at the start of the next update.
+     * Cancelling a quantity order stops it handing out any more units. Units it has already handed out carry on, and can be cancelled by their own orders.
+     * @param order The order, as given back by AddToQueue
+     * @return True if the order was cancelled. False if it isn't on this queue, or has already finished or been cancelled.
+     */
+    public boolean Cancel(ProductionOrder order) {return cancelOrder(order);}
+
+    /**
+     * Cancel an order on the ProductionQueue by its ID. O(1)
+     * @param orderID The order's ID
+     * @return True if the order was cancelled. See Cancel.
+     */
+    public boolean Cancel(int orderID)
+    {
+        ProductionOrder order = ordersByID.get(orderID);
+        return (order != null) && cancelOrder(order);
+    }
+
+    /**
+     * Change the priority of an order on the ProductionQueue. The order is found straight away; moving it to its new place is O(log n).
+     * @param order The order, as given back by AddToQueue
+     * @param priority The new Priority level. The Higher the number, the higher the priority.
+     * @return True if the order is on this queue and hasn't finished or been cancelled
+     */
+    public boolean Reprioritize(ProductionOrder order, int priority)
+    {
+        if ((order.queue != this) || (order.getStatus() == OrderStatus.finished) || (order.getStatus() == OrderStatus.aborted))
+            return false;
+        changePriority(order, priority);
+        return true;
+    }
+
+    /**
+     * Change the priority of an order on the ProductionQueue by its ID.
+     * @param orderID The order's ID
+     * @param priority The new Priority level
+     * @return True if the order is on this queue and hasn't finished or been cancelled
+     */
+    public boolean Reprioritize(int orderID, int priority)
+    {
+        ProductionOrder order = ordersByID.get(orderID);
+        return (order != null) && Reprioritize(order, priority);
+    }
+
+    /**
+     * Cancel every order on the ProductionQueue that the filter matches, then take them all off in one pass.
+     * Finished and already cancelled orders aren't given to the filter.
+     * @param filter Picks the orders to cancel
+     * @return The number of orders cancelled
+     */
+    public int RemoveIf(Predicate<ProductionOrder> filter)
+    {
+        ArrayList<ProductionOrder> matched = new ArrayList<>();
         for (ProductionOrder currentOrder : allOrders) {
-            if (currentOrder instanceof UnitBuildingOrder)
-            {
-                if(((ResearchOrder) currentOrder).getToProduce() == toRemove)
-                {
-                    haveFound = true;
-                    foundOrder = currentOrder;
-                    break;
-                }
-            }
+            OrderStatus status = currentOrder.getStatus();
+            if ((status != OrderStatus.finished) && (status != OrderStatus.aborted) && filter.test(currentOrder))
+                matched.add(currentOrder);
         }
+        int cancelled = 0;
+        for (ProductionOrder currentMatch : matched) {
+            if (cancelOrder(currentMatch))
+                cancelled++;
+        }
+        compact();
+        return cancelled;
+    }
 
-        if (haveFound)
-            allOrders.remove(foundOrder);
+    private boolean cancelOrder(ProductionOrder order)
+    {
+        if ((order.queue != this) || (order.getStatus() == OrderStatus.finished) || (order.getStatus() == OrderStatus.aborted))
+            return false;
+        order.setStatus(OrderStatus.aborted);
+        //A quantity order that finishes because its last unit was cancelled is taken off straight away
+        if (order.queue == this)
+            tombstones.add(order);
+        queueChanged("CANCELLED: ", order);
+        return true;
+    }
 
-        sortQueue();
+    /**
+     * Takes every cancelled order off the queue.
+     */
+    private void compact()
+    {
+        if (tombstones.isEmpty())
+            return;
+        for (ProductionOrder currentTombstone : tombstones) {
+            if ((currentTombstone.queue == this) && (currentTombstone.getStatus() == OrderStatus.aborted))
+                removeOrder(currentTombstone);
+        }
+        debugMessage("Compacted: " + tombstones.size() + " cancelled orders");
+        tombstones.clear();
     }
 
     /**
-     * Remove a upgrade from the ProductionQueue
-     * @param toRemove the upgrade research to remove.
+     * Change the priority of every order for a unit or building on the ProductionQueue, including the units of quantity orders.
+     * @param toChange The Unit or Building whose orders are changed
+     * @param priority The new Priority level. The Higher the number, the higher the priority.
      */
-    public void RemoveFromQueue(UpgradeType toRemove)
+    public void Reprioritize(UnitType toChange, int priority)
     {
-        debugMessage("Removing: " + toRemove.toString());
-        boolean haveFound = false;
-        ProductionOrder foundOrder = null;
+        if (allOrders.count(toChange) == 0)
+            return;
+        ArrayList<ProductionOrder> changeList = new ArrayList<>();
+        for (ProductionOrder currentOrder : allOrders) {
+            if ((currentOrder instanceof UnitBuildingOrder) && (((UnitBuildingOrder) currentOrder).getToProduce() == toChange))
+                changeList.add(currentOrder);
+        }
+        for (ProductionOrder currentChange : changeList)
+            changePriority(currentChange, priority);
+    }
 
+    /**
+     * Change the priority of a research on the ProductionQueue
+     * @param toChange The technology whose order is changed
+     * @param priority The new Priority level. The Higher the number, the higher the priority.
+     */
+    public void Reprioritize(TechType toChange, int priority)
+    {
+        if (allOrders.count(toChange) == 0)
+            return;
+        ArrayList<ProductionOrder> changeList = new ArrayList<>();
         for (ProductionOrder currentOrder : allOrders) {
-            if (currentOrder instanceof UnitBuildingOrder)
-            {
-                if(((UpgradeOrder) currentOrder).getToProduce() == toRemove)
-                {
-                    haveFound = true;
-                    foundOrder = currentOrder;
-                    break;
-                }
-            }
+            if ((currentOrder instanceof ResearchOrder) && (((ResearchOrder) currentOrder).getToProduce() == toChange))
+                changeList.add(currentOrder);
+        }
+        for (ProductionOrder currentChange : changeList)
+            changePriority(currentChange, priority);
+    }
+
+    /**
+     * Change the priority of every level of an upgrade on the ProductionQueue
+     * @param toChange The upgrade whose orders are changed
+     * @param priority The new Priority level. The Higher the number, the higher the priority.
+     */
+    public void Reprioritize(UpgradeType toChange, int priority)
+    {
+        ArrayList<ProductionOrder> changeList = new ArrayList<>();
+        for (ProductionOrder currentOrder : allOrders) {
+            if ((currentOrder instanceof UpgradeOrder) && (((UpgradeOrder) currentOrder).getToProduce() == toChange))
+                changeList.add(currentOrder);
+        }
+        for (ProductionOrder currentChange : changeList)
+            changePriority(currentChange, priority);
+    }
+
+    /**
+     * Moves an order to its place for a new priority. It is taken out of the queue's ordering and its lane's before the priority changes, as both are sorted by it.
+     */
+    private void changePriority(ProductionOrder order, int priority)
+    {
+        if ((order.priority == priority) || (order.getStatus() == OrderStatus.aborted))
+            return;
+        allOrders.remove(order);
+        order.lane.remove(order);
+        order.priority = priority;
+        allOrders.add(order);
+        order.lane.add(order);
+        queueChanged("REPRIORITISED: ", order);
+    }
+
+    /**
+     * Add a unit or building to the ProductionQueue from any thread. Will automatically add all prerequisite structures that aren't owned to the queue.
+     * The order is added on the game thread at the start of the next Update. See AddToQueue.
+     * @param toBuild The Unit or Building wanted
+     * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @param quantity How many of the unit are wanted
+     */
+    public void SubmitAddToQueue(final UnitType toBuild, final int priority, final int quantity)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.AddToQueue(toBuild, priority, quantity, true);}
+        });
+    }
+
+    /**
+     * Add a research to the ProductionQueue from any thread, on the game thread at the start of the next Update. See AddToQueue.
+     * @param toResearch The Technology to be researched
+     * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     */
+    public void SubmitAddToQueue(final TechType toResearch, final int priority)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.AddToQueue(toResearch, priority, true);}
+        });
+    }
+
+    /**
+     * Add an upgrade to the ProductionQueue from any thread, on the game thread at the start of the next Update. See AddToQueue.
+     * @param toUpgrade The Upgrade to be researched
+     * @param priority The Priority level of this order. The Higher the number, the higher the priority.
+     * @param level The level of the upgrade to be researched
+     */
+    public void SubmitAddToQueue(final UpgradeType toUpgrade, final int priority, final int level)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.AddToQueue(toUpgrade, priority, level, true);}
+        });
+    }
+
+    /**
+     * Add orders that have already been made to the ProductionQueue from any thread, on the game thread at the start of the next Update.
+     * The orders must not be touched by the submitting thread once submitted. See AddToQueue.
+     * @param orders The orders to add
+     */
+    public void SubmitAddToQueue(Collection<? extends ProductionOrder> orders)
+    {
+        final ArrayList<ProductionOrder> toAdd = new ArrayList<>(orders);
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.AddToQueue(toAdd);}
+        });
+    }
+
+    /**
+     * Remove a unit or building from the ProductionQueue from any thread, on the game thread at the start of the next Update. See RemoveFromQueue.
+     * @param toRemove The Unit or Building to be cancelled
+     * @param removeAll True will remove all of that type from the queue. False will remove only one.
+     */
+    public void SubmitRemoveFromQueue(final UnitType toRemove, final boolean removeAll)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.RemoveFromQueue(toRemove, removeAll);}
+        });
+    }
+
+    public void SubmitRemoveFromQueue(final TechType toRemove)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.RemoveFromQueue(toRemove);}
+        });
+    }
+
+    public void SubmitRemoveFromQueue(final UpgradeType toRemove)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.RemoveFromQueue(toRemove);}
+        });
+    }
+
+    /**
+     * Change the priority of the orders for a unit or building from any thread, on the game thread at the start of the next Update. See Reprioritize.
+     * @param toChange The Unit or Building whose orders are changed
+     * @param priority The new Priority level
+     */
+    public void SubmitReprioritize(final UnitType toChange, final int priority)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.Reprioritize(toChange, priority);}
+        });
+    }
+
+    public void SubmitReprioritize(final TechType toChange, final int priority)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.Reprioritize(toChange, priority);}
+        });
+    }
+
+    public void SubmitReprioritize(final UpgradeType toChange, final int priority)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.Reprioritize(toChange, priority);}
+        });
+    }
+
+    /**
+     * Change the priority of an order by its ID from any thread, on the game thread at the start of the next Update. See Reprioritize.
+     * An order made on another thread and submitted with SubmitAddToQueue can be changed by its ID straight after, as commands from one thread are applied in the order they were submitted.
+     * @param orderID The order's ID
+     * @param priority The new Priority level
+     */
+    public void SubmitReprioritize(final int orderID, final int priority)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.Reprioritize(orderID, priority);}
+        });
+    }
+
+    /**
+     * Cancel an order by its ID from any thread, on the game thread at the start of the next Update. See Cancel.
+     * @param orderID The order's ID
+     */
+    public void SubmitCancel(final int orderID)
+    {
+        ingress.submit(new CommandIngress.Command() {
+            @Override
+            public void apply(ProductionQueue queue) {queue.Cancel(orderID);}
+        });
+    }
+
+    /**
+     * Gets the latest read only copy of the queue. Safe to call from any thread, and never blocks.
+     * A new copy is published at the end of each Update when the queue has changed, and at least every second while it has orders.
+     * @return The snapshot. Empty, with a frame of -1, before the first Update.
+     */
+    public QueueSnapshot getSnapshot() {return snapshot;}
+
+    /**
+     * Takes a new snapshot for other threads if the queue has changed since the last one, or the last one has got old.
+     */
+    private void publishSnapshot()
+    {
+        int frame = model.getFrameCount();
+        if (!snapshotChanged && (allOrders.isEmpty() || (frame - snapshot.getFrame() < SNAPSHOT_REFRESH_FRAMES)))
+            return;
+        ArrayList<QueueSnapshot.OrderEntry> orders = new ArrayList<>(allOrders.size());
+        int[] statusCounts = new int[OrderStatus.values().length];
+        for (ProductionOrder currentOrder : allOrders) {
+            int waitingCount = (currentOrder instanceof UnitQuantityOrder) ? ((UnitQuantityOrder) currentOrder).getWaitingCount() : 1;
+            orders.add(new QueueSnapshot.OrderEntry(currentOrder.getOrderID(), nameOf(currentOrder), currentOrder.getPriority(), currentOrder.getStatus(),
+                    waitingCount, currentOrder.getPredictedStartFrame(), currentOrder.getProducerID()));
+            statusCounts[currentOrder.getStatus().ordinal()]++;
         }
+        snapshot = new QueueSnapshot(frame, orders, statusCounts, committedMinerals, committedGas, committedSupply);
+        snapshotChanged = false;
+    }
 
-        if (haveFound)
-            allOrders.remove(foundOrder);
-        sortQueue();
+    private String nameOf(ProductionOrder order)
+    {
+        if (order instanceof UnitBuildingOrder)
+            return typeData.getName(((UnitBuildingOrder) order).getToProduce());
+        if (order instanceof ResearchOrder)
+            return typeData.getName(((ResearchOrder) order).getToProduce());
+        if (order instanceof UpgradeOrder)
+            return typeData.getName(((UpgradeOrder) order).getToProduce()) + " " + ((UpgradeOrder) order).getUpgradeLevel();
+        return order.toString();
     }
 
     /**
@@ -352,240 +1059,453 @@ public class ProductionQueue {
      */
     public void unitStructureStarted(Unit startedUnit)
     {
-        if (startedUnit.getPlayer() == BaseAPI.baseAPI.self) {
-            for (ProductionOrder currentOrder : allOrders) {
-                if (currentOrder instanceof UnitBuildingOrder) {
-                    if ((startedUnit.getType() == ((UnitBuildingOrder) currentOrder).getToProduce()) && (currentOrder.getStatus() == OrderStatus.ordered)) {
-                        currentOrder.setStatus(OrderStatus.started);
-                        ((UnitBuildingOrder) currentOrder).setStartedUnit(startedUnit);
-                        debugMessage("STARTED: " + currentOrder.toString());
-                        return;
-                    }
-                }
-            }
+        UnitBuildingOrder startedOrder = unitStructureStarted(startedUnit.getID());
+        if (startedOrder != null)
+            startedOrder.setStartedUnit(startedUnit);
+    }
+
+    /**
+     * Informs the queue that a unit has been started, by the unit's ID. Used when there is no BWAPI unit, such as in a simulated game.
+     * @param startedID The ID of the started unit
+     * @return The order the unit was started for. NULL if it wasn't for an order.
+     */
+    public UnitBuildingOrder unitStructureStarted(int startedID)
+    {
+        census.unitCreated(startedID);
+        producers.unitChanged(startedID);
+        if (!model.isOwned(startedID))
+            return null;
+        UnitBuildingOrder startedOrder = findStartedOrder(startedID, model.getUnitType(startedID));
+        if (startedOrder == null)
+            return null;
+        startedOrder.setStartedUnitID(startedID);
+        startedOrder.setStatus(OrderStatus.started);
+        debugMessage("STARTED: " + startedOrder.toString());
+        return startedOrder;
+    }
+
+    /**
+     * Finds the passed back order a unit that has just been started was made for.
+     * An order whose producer is the unit itself, such as a larva or a building morphing, is taken first. Then one whose producer is now training the unit's type,
+     * so a unit is never put down to another building's order. Buildings put up by workers have no producer, so the oldest one for the type is taken.
+     * @return The order. NULL if no order was waiting on a unit of that type from that producer.
+     */
+    private UnitBuildingOrder findStartedOrder(int startedID, UnitType startedType)
+    {
+        LinkedHashSet<UnitBuildingOrder> ordered = orderedUnitOrders.get(startedType);
+        if ((ordered == null) || ordered.isEmpty())
+            return null;
+        UnitBuildingOrder workerBuilt = null;
+        UnitBuildingOrder training = null;
+        for (UnitBuildingOrder currentOrder : ordered) {
+            int producerID = currentOrder.getProducerID();
+            if (producerID == startedID)
+                return currentOrder;
+            if ((producerID == -1) && (workerBuilt == null) && currentOrder.lane.isWorkerBuilt())
+                workerBuilt = currentOrder;
+            else if ((producerID != -1) && (training == null) && (model.getTraining(producerID) == startedType))
+                training = currentOrder;
         }
+        return (training != null) ? training : workerBuilt;
     }
 
     /**
-     * Informs the queue that a building was destroyed. It will then go through and find out if that was one of the ones that was either under construction for an order.
+     * Informs the queue that a unit has been completed. If it was being made for an order then that order is finished and taken off the queue.
+     * @param completedUnit The completed unit
+     */
+    public void unitCompleted(Unit completedUnit) {unitCompleted(completedUnit.getID());}
+
+    /**
+     * Informs the queue that a unit has been completed, by the unit's ID.
+     * @param completedID The ID of the completed unit
+     */
+    public void unitCompleted(int completedID)
+    {
+        census.unitCompleted(completedID);
+        producers.unitChanged(completedID);
+        UnitBuildingOrder completedOrder = startedUnitOrders.get(completedID);
+        if (completedOrder != null) {
+            completedOrder.setStatus(OrderStatus.finished);
+            debugMessage("FINISHED: " + completedOrder.toString());
+            removeOrder(completedOrder);
+        }
+    }
+
+    /**
+     * Informs the queue that a unit or building was destroyed. It will then go through and find out if that was one of the ones that was either under construction for an order.
      * Or if it was producing something for an order. If it was then it will set the associated order to commissioned again.
      * @param destroyedBuilding The destroyed unit
      */
-    public void unitStructureDestroyed(Unit destroyedBuilding)
+    public void unitStructureDestroyed(Unit destroyedBuilding) {unitStructureDestroyed(destroyedBuilding.getID());}
+
+    /**
+     * Informs the queue that a unit or building was destroyed, by the unit's ID.
+     * @param destroyedID The ID of the destroyed unit
+     */
+    public void unitStructureDestroyed(int destroyedID)
     {
-        if ((destroyedBuilding.getPlayer() == BaseAPI.baseAPI.self)&&(destroyedBuilding.getType().isBuilding())) {
-            if (!destroyedBuilding.isCompleted())
-            {
-                debugMessage("Building was being constructed: " + destroyedBuilding.getType().toString());
-                for (ProductionOrder currentOrder : allOrders)
-                {
-                    if (currentOrder instanceof UnitBuildingOrder)
-                    {
-                        if (destroyedBuilding == ((UnitBuildingOrder) currentOrder).getStartedUnit()) {
-                            currentOrder.setStatus(OrderStatus.commissioned);
-                            debugMessage("ORDER RESET: " + currentOrder.toString());
-                            return;
-                        }
-                    }
-                }
-            }
+        census.unitDestroyed(destroyedID);
+        ProductionOrder producerOrder = producers.unitRemoved(destroyedID);
+        UnitBuildingOrder interruptedOrder = startedUnitOrders.get(destroyedID);
+        if (interruptedOrder != null) {
+            debugMessage("Unit was being made: " + typeData.getName(interruptedOrder.getToProduce()));
+            interruptedOrder.setStatus(OrderStatus.commissioned);
+            debugMessage("ORDER RESET: " + interruptedOrder.toString());
+            return;
+        }
 
-            if (destroyedBuilding.isResearching())
-            {
-                debugMessage("Building was researching: " + destroyedBuilding.getTech().toString());
-                for (ProductionOrder currentOrder : allOrders)
-                {
-                    if (currentOrder instanceof ResearchOrder)
-                    {
-                        if (((ResearchOrder) currentOrder).toProduce == destroyedBuilding.getTech())
-                        {
-                            currentOrder.setStatus(OrderStatus.commissioned);
-                            debugMessage("ORDER RESET: " + currentOrder.toString());
-                            return;
-                        }
-                    }
-                }
-            }
-            if (destroyedBuilding.isUpgrading())
-            {
-                debugMessage("Building was upgrading: " + destroyedBuilding.getUpgrade().toString());
-                for (ProductionOrder currentOrder : allOrders)
-                {
-                    if (currentOrder instanceof UpgradeOrder)
-                    {
-                        if (((UpgradeOrder) currentOrder).toProduce == destroyedBuilding.getUpgrade())
-                        {
-                            currentOrder.setStatus(OrderStatus.commissioned);
-                            debugMessage("ORDER RESET: " + currentOrder.toString());
-                            return;
-                        }
-                    }
-                }
+        //Only the research or upgrade the building was given is reset. Any other order of the same type may be waiting, or cancelled and not yet taken off.
+        if (((producerOrder instanceof ResearchOrder) || (producerOrder instanceof UpgradeOrder))
+                && ((producerOrder.getStatus() == OrderStatus.ordered) || (producerOrder.getStatus() == OrderStatus.started))) {
+            if (producerOrder instanceof ResearchOrder)
+                debugMessage("Building was researching: " + typeData.getName(((ResearchOrder) producerOrder).getToProduce()));
+            else
+                debugMessage("Building was upgrading: " + typeData.getName(((UpgradeOrder) producerOrder).getToProduce()));
+            producerOrder.setStatus(OrderStatus.commissioned);
+            debugMessage("ORDER RESET: " + producerOrder.toString());
+        }
+    }
+
+    /**
+     * Adds an order to the queue. The queue keeps itself in priority order, then by time. Oldest first.
+     * @param order The order to add
+     */
+    private void addOrder(ProductionOrder order)
+    {
+        order.queue = this;
+        if (order.orderTime < 0)
+            order.orderTime = model.getFrameCount();
+        allOrders.add(order);
+        ordersByID.put(order.getOrderID(), order);
+        order.lane = getLane(order.getProducerType());
+        order.lane.add(order);
+        queueChanged("ADDED: ", order);
+    }
+
+    /**
+     * Removes an order from the queue.
+     * @param order The order to remove
+     */
+    private void removeOrder(ProductionOrder order)
+    {
+        if (allOrders.remove(order)) {
+            ordersByID.remove(order.getOrderID());
+            if (order.getStatus() == OrderStatus.ordered) {
+                commit(order, -1);
+                orderedChanged(order, false);
             }
+            order.lane.remove(order);
+            producers.release(order);
+            order.queue = null;
+            timers.cancel(order);
+            if ((order instanceof UnitBuildingOrder) && (((UnitBuildingOrder) order).getStartedUnitID() != -1))
+                startedUnitOrders.remove(((UnitBuildingOrder) order).getStartedUnitID());
+            queueChanged("REMOVED: ", order);
         }
     }
 
     /**
-     * Sorts the Construction Queue by priority, then by time. Oldest first.
+     * Called by an order in the queue whenever its status changes, so the indexes can be kept up to date.
+     * @param order The order that has changed
+     * @param oldStatus The status it had before the change
      */
-    private void sortQueue()
+    void orderStatusChanged(ProductionOrder order, OrderStatus oldStatus)
     {
-        Collections.sort(allOrders);
-        debugMessage("Queue Sorted");
-        for (ProductionOrder currentOrder : allOrders)
+        allOrders.statusChanged(order, oldStatus);
+        if (order.lane != null)
+            order.lane.statusChanged(order, oldStatus);
+        overlayChanged = true;
+        snapshotChanged = true;
+
+        if (oldStatus == OrderStatus.ordered) {
+            commit(order, -1);
+            orderedChanged(order, false);
+        }
+        else if (order.getStatus() == OrderStatus.ordered) {
+            commit(order, 1);
+            orderedChanged(order, true);
+        }
+
+        if ((oldStatus == OrderStatus.started) && (order instanceof UnitBuildingOrder)) {
+            int startedUnitID = ((UnitBuildingOrder) order).getStartedUnitID();
+            if (startedUnitID != -1)
+                startedUnitOrders.remove(startedUnitID);
+        }
+
+        switch (order.getStatus())
         {
-            debugMessage(currentOrder.toString());
+            case ordered:
+                //Units and buildings are confirmed by the unit create or morph event, so their timer is only for timing out.
+                //Research and upgrades have no event so are checked on a timer until they start or time out.
+                order.orderedFrame = model.getFrameCount();
+                if (order instanceof UnitBuildingOrder)
+                    timers.schedule(order, order.orderedFrame + getConfirmationTimeout(order));
+                else
+                    timers.schedule(order, order.orderedFrame + START_CHECK_FRAMES);
+                break;
+            case started:
+                if (order instanceof UnitBuildingOrder) {
+                    int startedUnitID = ((UnitBuildingOrder) order).getStartedUnitID();
+                    if (startedUnitID != -1)
+                        startedUnitOrders.put(startedUnitID, (UnitBuildingOrder) order);
+                }
+                timers.schedule(order, model.getFrameCount() + order.getProductionTime() + FINISH_CHECK_FRAMES);
+                break;
+            default:
+                timers.cancel(order);
+                //The order's producer is free for another order once it is done with this one or it has been reset
+                producers.release(order);
+                break;
         }
+
+        if ((order instanceof UnitBuildingOrder) && (((UnitBuildingOrder) order).parent != null))
+            unitStatusChanged((UnitBuildingOrder) order, oldStatus);
     }
 
     /**
-     * Runs a check to see if the player owns at least one of the given type of unit or building
-     * @param toCheck The type to check if the player owns
-     * @return Boolean : True if the player owns at least one. False if they don't own any.
+     * Keeps a quantity order up to date with the order for one of its units.
+     * A unit that is put back to commissioned is given back to the quantity order, and the quantity order is finished once all its units are done.
+     * @param unitOrder The order for one unit of a quantity order
+     * @param oldStatus The status it had before the change
      */
-    private boolean checkIfPlayerHasUnitBuilding(UnitType toCheck)
+    private void unitStatusChanged(UnitBuildingOrder unitOrder, OrderStatus oldStatus)
     {
-        for (Unit unit : BaseAPI.baseAPI.self.getUnits())
-        {
-            if ((unit.getType() == toCheck) && (unit.isCompleted()))
-                return true;
+        UnitQuantityOrder quantityOrder = unitOrder.parent;
+        quantityOrder.unitStatusChanged(oldStatus, unitOrder.getStatus());
+        if ((quantityOrder.queue != this) || (quantityOrder.getStatus() == OrderStatus.aborted)) {
+            //A cancelled quantity order takes no units back, so a unit reset after it was cancelled is cancelled too
+            if (unitOrder.getStatus() == OrderStatus.commissioned)
+                cancelOrder(unitOrder);
+            return;
+        }
+
+        if (unitOrder.getStatus() == OrderStatus.commissioned) {
+            quantityOrder.giveBack();
+            allOrders.waitingUnitsChanged(quantityOrder, 1);
+            removeOrder(unitOrder);
+        }
+        else if (quantityOrder.isComplete()) {
+            quantityOrder.setStatus(OrderStatus.finished);
+            debugMessage("FINISHED: " + quantityOrder.toString());
+            removeOrder(quantityOrder);
         }
-        return false;
     }
 
+    /**
+     * Makes the order for the next unit of a quantity order and puts it on the queue.
+     * @param quantityOrder The quantity order to hand out a unit from
+     * @return The order for the unit
+     */
+    private UnitBuildingOrder handOutUnit(UnitQuantityOrder quantityOrder)
+    {
+        UnitBuildingOrder unitOrder = quantityOrder.handOut();
+        allOrders.waitingUnitsChanged(quantityOrder, -1);
+        addOrder(unitOrder);
+        return unitOrder;
+    }
 
     /**
-     * Runs a check to see if the player currently has one of this unit or building in the production queue
-     * @param toCheck The unit or building to check
-     * @return True if one is in the queue. False if it isn't.
+     * Called when an order's timer runs out. Ordered research and upgrades are checked to see if they have started yet.
+     * Ordered orders that still haven't started once their confirmation timeout is up are put back to be passed back again.
+     * Started orders are past their expected finish, so are checked for being finished, or for having been lost without the queue hearing about it.
+     * @param order The order whose timer has run out
      */
-    public boolean checkIfHaveInProduction(UnitType toCheck)
+    private void orderTimerExpired(ProductionOrder order)
     {
-        for (ProductionOrder order : allOrders)
-        {
-            if (order instanceof UnitBuildingOrder)
-            {
-                if (((UnitBuildingOrder)order).getToProduce() == toCheck)
-                {
-                    return true;
-                }
+        if (order.queue != this)
+            return;
+
+        if (order.getStatus() == OrderStatus.ordered) {
+            if (!(order instanceof UnitBuildingOrder) && order.checkHasStarted()) {
+                debugMessage("STARTED: " + order.toString());
+                return;
+            }
+            int timeoutFrame = order.orderedFrame + getConfirmationTimeout(order);
+            if (model.getFrameCount() >= timeoutFrame) {
+                order.setStatus(OrderStatus.commissioned);
+                debugMessage("ORDER TIMED OUT: " + order.toString());
+            }
+            else
+                timers.schedule(order, Math.min(timeoutFrame, model.getFrameCount() + START_CHECK_FRAMES));
+        }
+        else if (order.getStatus() == OrderStatus.started) {
+            if (order.checkHasFinished()) {
+                debugMessage("FINISHED: " + order.toString());
+                removeOrder(order);
+            }
+            else if ((order instanceof UnitBuildingOrder) && !((UnitBuildingOrder) order).checkIfStillTraining()) {
+                debugMessage("ORDER RESET: " + order.toString());
+            }
+            else {
+                timers.schedule(order, model.getFrameCount() + FINISH_CHECK_FRAMES);
             }
         }
-        return false;
     }
 
     /**
-     * Runs a check of the production queue to see how many of a certain unit are currently in the queue
-     * @param toCheck The unit type to check how many are there
-     * @return The integer value of how many are in the queue
+     * Adds or takes away a unit order from the ordered orders of its type, as it is passed back or stops waiting to start.
      */
-    public int checkHowManyInProduction(UnitType toCheck)
+    private void orderedChanged(ProductionOrder order, boolean isOrdered)
     {
-        int toReturn = 0;
-        for (ProductionOrder order : allOrders) {
-            if (order instanceof UnitBuildingOrder) {
-                if (((UnitBuildingOrder) order).getToProduce() == toCheck) {
-                    toReturn++;
-                }
+        if (!(order instanceof UnitBuildingOrder))
+            return;
+        UnitType type = ((UnitBuildingOrder) order).getToProduce();
+        LinkedHashSet<UnitBuildingOrder> ordered = orderedUnitOrders.get(type);
+        if (isOrdered) {
+            if (ordered == null) {
+                ordered = new LinkedHashSet<>();
+                orderedUnitOrders.put(type, ordered);
             }
+            ordered.add((UnitBuildingOrder) order);
         }
-        return toReturn;
+        else if (ordered != null)
+            ordered.remove(order);
     }
 
     /**
-     * Runs a check to see if the player currently has one of this upgrade in the production queue
-     * @param toCheck The research to check
-     * @return True if one is in the queue. False if it isn't.
+     * Adds or takes away an order's costs from the committed totals.
+     * @param order The order that has been passed back, or is no longer waiting to start
+     * @param direction 1 to add the costs, -1 to take them away
      */
-    public boolean checkIfHaveInProduction(TechType toCheck)
+    private void commit(ProductionOrder order, int direction)
     {
-        for (ProductionOrder order : allOrders)
-        {
-            if (order instanceof ResearchOrder)
-            {
-                if (((ResearchOrder)order).getToProduce() == toCheck)
-                {
-                    return true;
-                }
-            }
-        }
-        return false;
+        committedMinerals += direction * order.getMineralPrice();
+        committedGas += direction * order.getGasPrice();
+        committedSupply += direction * order.getSupplyRequired();
     }
 
     /**
-     * Runs a check to see if the player currently has one of this upgrade in the production queue
-     * @param toCheck The upgrade to check
-     * @return True if one is in the queue. False if it isn't.
+     * Gets how long an order is given to start after it is passed back.
      */
-    public boolean checkIfHaveInProduction(UpgradeType toCheck, int level)
+    private int getConfirmationTimeout(ProductionOrder order)
     {
-        for (ProductionOrder order : allOrders)
-        {
-            if (order instanceof UpgradeOrder)
-            {
-                UpgradeOrder tempUpgradeOrder = (UpgradeOrder)order;
-                if ((tempUpgradeOrder.getToProduce() == toCheck) && (tempUpgradeOrder.getUpgradeLevel() == level))
-                {
-                    return true;
-                }
-            }
+        return order.lane.isWorkerBuilt() ? workerBuiltTimeoutFrames : trainedTimeoutFrames;
+    }
+
+    /**
+     * Gets the lane for a producer type, making it if this is the first order for that producer.
+     */
+    private ProductionLane getLane(UnitType producer)
+    {
+        ProductionLane lane = lanes.get(producer);
+        if (lane == null) {
+            lane = new ProductionLane(producer, typeData.isWorker(producer));
+            lanes.put(producer, lane);
         }
-        return false;
+        return lane;
     }
 
     /**
-     * Gets all the prerequisites for building a unit or building
-     * @param toCheck the UnitType to ge the prerequisites for
-     * @return ArrayList of UnitTypes containing all prerequisites
+     * Notes a change to the queue. The on screen text is rebuilt next frame, and the change is kept to be printed if debug messages are on.
+     * @param change What happened to the order
+     * @param order The order that changed
      */
-    private ArrayList<UnitType> getAllPrereq(UnitType toCheck)
+    private void queueChanged(String change, ProductionOrder order)
     {
-        Set<UnitType> toReturn = new HashSet<>();
-        if (toCheck.whatBuilds().first!= UnitType.None)
-            toReturn.add(toCheck.whatBuilds().first);
+        overlayChanged = true;
+        snapshotChanged = true;
+        if (!debugMessagesOn)
+            return;
+        if (queueChanges.size() < MAX_PRINTED_CHANGES)
+            queueChanges.add(change + order.toString());
+        else
+            queueChangesLeftOut++;
+    }
 
-        for (UnitType requirement : toCheck.requiredUnits().keySet())
+    /**
+     * Prints the changes to the queue since it was last printed, rather than the whole queue.
+     */
+    private void printQueue()
+    {
+        if (queueChanges.isEmpty())
+            return;
+        debugMessage("Queue Changed. " + allOrders.size() + " orders");
+        for (String currentChange : queueChanges)
         {
-            if (requirement != UnitType.None)
-                toReturn.add(requirement);
+            debugMessage(currentChange);
         }
-
-        return new ArrayList<>(toReturn);
+        if (queueChangesLeftOut > 0)
+            debugMessage("... " + queueChangesLeftOut + " more changes");
+        queueChanges.clear();
+        queueChangesLeftOut = 0;
     }
 
     /**
-     * Gets all the prerequisites for researching a technology
-     * @param toCheck the TechType to ge the prerequisites for
-     * @return ArrayList of UnitTypes containing all prerequisites
+     * Runs a check to see if the player currently has one of this unit or building in the production queue
+     * @param toCheck The unit or building to check
+     * @return True if one is in the queue. False if it isn't.
      */
-    private ArrayList<UnitType> getAllPrereq(TechType toCheck)
+    public boolean checkIfHaveInProduction(UnitType toCheck)
     {
-        Set<UnitType> toReturn = new HashSet<>();
-        if (toCheck.whatResearches()!= UnitType.None)
-            toReturn.add(toCheck.whatResearches());
-        if (toCheck.requiredUnit()!= UnitType.None)
-            toReturn.add(toCheck.requiredUnit());
+        return allOrders.count(toCheck) > 0;
+    }
 
-        return new ArrayList<>(toReturn);
+    /**
+     * Runs a check of the production queue to see how many of a certain unit are currently in the queue
+     * @param toCheck The unit type to check how many are there
+     * @return The integer value of how many are in the queue
+     */
+    public int checkHowManyInProduction(UnitType toCheck)
+    {
+        return allOrders.count(toCheck);
     }
 
+    /**
+     * Gets the minerals still to be spent on the queue: the cost of every order waiting to be passed back, and of those passed back that haven't started yet.
+     * @return The minerals needed
+     */
+    public int getPendingMinerals() {return committedMinerals + allOrders.getWaitingMinerals();}
 
     /**
-     * Gets all the prerequisites for researching a technology
-     * @param toCheck the TechType to ge the prerequisites for
-     * @return ArrayList of UnitTypes containing all prerequisites
+     * Gets the gas still to be spent on the queue: the cost of every order waiting to be passed back, and of those passed back that haven't started yet.
+     * @return The gas needed
      */
-    private ArrayList<UnitType> getAllPrereq(UpgradeType toCheck, int level)
+    public int getPendingGas() {return committedGas + allOrders.getWaitingGas();}
+
+    /**
+     * Gets the buildings put up by workers that are waiting for money and are expected to be passed back within the given number of frames, from their predicted start frames.
+     * Used to send a builder to the site ahead of the money. Only orders that can be predicted are included, see ProductionOrder.getPredictedStartFrame.
+     * @param withinFrames How far ahead to look
+     * @return The waiting building orders, highest priority first within each lane
+     */
+    public ArrayList<UnitBuildingOrder> getUpcomingBuildings(int withinFrames)
     {
-        Set<UnitType> toReturn = new HashSet<>();
-        if (toCheck.whatUpgrades()!= UnitType.None)
-            toReturn.add(toCheck.whatUpgrades());
-        if (toCheck.whatsRequired()!= UnitType.None)
-            toReturn.add(toCheck.whatsRequired(level));
+        int lastFrame = model.getFrameCount() + withinFrames;
+        ArrayList<UnitBuildingOrder> upcoming = new ArrayList<>();
+        for (ProductionLane currentLane : lanes.values()) {
+            if (!currentLane.isWorkerBuilt() || (currentLane.getWaitingCount() == 0))
+                continue;
+            Iterator<ProductionOrder> orders = currentLane.waitingOrders();
+            while (orders.hasNext()) {
+                ProductionOrder currentOrder = orders.next();
+                if ((currentOrder.getStatus() != OrderStatus.commissioned) || !(currentOrder instanceof UnitBuildingOrder))
+                    continue;
+                if ((currentOrder.predictedStartFrame != -1) && (currentOrder.predictedStartFrame <= lastFrame))
+                    upcoming.add((UnitBuildingOrder) currentOrder);
+            }
+        }
+        return upcoming;
+    }
 
-        return new ArrayList<>(toReturn);
+    /**
+     * Runs a check to see if the player currently has one of this upgrade in the production queue
+     * @param toCheck The research to check
+     * @return True if one is in the queue. False if it isn't.
+     */
+    public boolean checkIfHaveInProduction(TechType toCheck)
+    {
+        return allOrders.count(toCheck) > 0;
     }
 
+    /**
+     * Runs a check to see if the player currently has one of this upgrade in the production queue
+     * @param toCheck The upgrade to check
+     * @return True if one is in the queue. False if it isn't.
+     */
+    public boolean checkIfHaveInProduction(UpgradeType toCheck, int level)
+    {
+        return allOrders.count(toCheck, level) > 0;
+    }
 
     /**
      * Checks to see if the player has all the prerequisites listed
@@ -594,49 +1514,27 @@ public class ProductionQueue {
      */
     private boolean checkHaveAllPrereq(ProductionOrder orderToCheck)
     {
+        return techTree.hasAllPrereq(orderToCheck);
+    }
 
-        if (orderToCheck instanceof UnitBuildingOrder)
-        {
-            for(UnitType currentReq : getAllPrereq(((UnitBuildingOrder) orderToCheck).getToProduce()))
-            {
-                if (currentReq != UnitType.None) {
-                    if (!checkIfPlayerHasUnitBuilding(currentReq)) {
-                        //System.out.println("Still need" + currentReq.toString());
-                        return false;
-                    }
-                }
-            }
-            return true;
-        }
-        if (orderToCheck instanceof ResearchOrder)
-        {
-            for(UnitType currentReq : getAllPrereq(((ResearchOrder) orderToCheck).getToProduce()))
-            {
-                if (currentReq != UnitType.None) {
-                    if (!checkIfPlayerHasUnitBuilding(currentReq)) {
-                        //System.out.println("Still need" + currentReq.toString());
-
-                        return false;
-                    }
-                }
-            }
-            return true;
-        }
-        if (orderToCheck instanceof UpgradeOrder)
+    /**
+     * Adds an order for every prerequisite in the closure that the player doesn't own and doesn't already have in the queue.
+     * The closure lists each prerequisite after its own prerequisites, so they are added in the order they need building.
+     * @param closure The prerequisite closure from the TechTree
+     * @param priority The priority to give the added orders
+     */
+    private void addMissingPrereq(int[] closure, int priority)
+    {
+        for (int currentReq : closure)
         {
-            UpgradeOrder tempOrder = (UpgradeOrder)orderToCheck;
-            for(UnitType currentReq : getAllPrereq(tempOrder.getToProduce(),tempOrder.getUpgradeLevel()))
-            {
-                if (currentReq != UnitType.None) {
-                    if (!checkIfPlayerHasUnitBuilding(currentReq)) {
-                        //System.out.println("Still need" + currentReq.toString());
-                        return false;
-                    }
+            if (!techTree.isOwned(currentReq)) {
+                UnitType reqType = techTree.getUnitType(currentReq);
+                if (!checkIfHaveInProduction(reqType)) {
+                    addOrder(new UnitBuildingOrder(reqType, priority));
+                    debugMessage("Added Prerequisite To List: " + typeData.getName(reqType));
                 }
             }
-            return true;
         }
-        return false;
     }
 
     private void debugMessage(String message){
@@ -0,0 +1,88 @@
+package ProductionQueue;
+
+import ProductionQueue.ProductionOrder.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read only copy of the ProductionQueue's state, published by the queue on the game thread for other threads to read, such as planners working off the frame loop.
+ * Nothing in a snapshot changes once it is published, so it can be read from any thread without locking. It shows the queue as it was on the frame it was taken.
+ * Get the latest with ProductionQueue.getSnapshot.
+ */
+public class QueueSnapshot {
+
+    /**
+     * One order as it was when the snapshot was taken.
+     */
+    public static class OrderEntry {
+        public final int orderID;
+        public final String name;
+        public final int priority;
+        public final OrderStatus status;
+        //Units still to be handed out for a quantity order. 1 for any other order.
+        public final int waitingCount;
+        public final int predictedStartFrame;
+        public final int producerID;
+
+        OrderEntry(int orderID, String name, int priority, OrderStatus status, int waitingCount, int predictedStartFrame, int producerID)
+        {
+            this.orderID = orderID;
+            this.name = name;
+            this.priority = priority;
+            this.status = status;
+            this.waitingCount = waitingCount;
+            this.predictedStartFrame = predictedStartFrame;
+            this.producerID = producerID;
+        }
+    }
+
+    //Published before the queue has updated for the first time
+    static final QueueSnapshot EMPTY = new QueueSnapshot(-1, new ArrayList<OrderEntry>(), new int[OrderStatus.values().length], 0, 0, 0);
+
+    private final int frame;
+    private final List<OrderEntry> orders;
+    private final int[] statusCounts;
+    private final int committedMinerals;
+    private final int committedGas;
+    private final int committedSupply;
+
+    QueueSnapshot(int frame, ArrayList<OrderEntry> orders, int[] statusCounts, int committedMinerals, int committedGas, int committedSupply)
+    {
+        this.frame = frame;
+        this.orders = Collections.unmodifiableList(orders);
+        this.statusCounts = statusCounts;
+        this.committedMinerals = committedMinerals;
+        this.committedGas = committedGas;
+        this.committedSupply = committedSupply;
+    }
+
+    /**
+     * Gets the frame the snapshot was taken on
+     * @return The frame. -1 if the queue hasn't updated yet.
+     */
+    public int getFrame() {return frame;}
+
+    /**
+     * Gets every order on the queue, from the highest priority to the lowest
+     * @return Read only list of the orders
+     */
+    public List<OrderEntry> getOrders() {return orders;}
+
+    /**
+     * Gets how many orders had the given status
+     * @param status The status to count
+     * @return The number of orders with that status
+     */
+    public int getCount(OrderStatus status) {return statusCounts[status.ordinal()];}
+
+    /**
+     * Gets the minerals held for orders that had been passed back but not started
+     */
+    public int getCommittedMinerals() {return committedMinerals;}
+
+    public int getCommittedGas() {return committedGas;}
+
+    public int getCommittedSupply() {return committedSupply;}
+}
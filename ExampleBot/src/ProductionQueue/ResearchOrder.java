@@ -1,10 +1,7 @@
 package ProductionQueue;
 
 import bwapi.TechType;
-import bwapi.Unit;
-import main.BaseAPI;
-
-import java.util.List;
+import bwapi.UnitType;
 
 /**
  * Specialization class for a production order to start researching a technology
@@ -17,7 +14,6 @@ public class ResearchOrder extends ProductionOrder {
     {
         this.priority = priority;
         this.toProduce = techToResearch;
-        this.orderTime = BaseAPI.getGameTime();
         this.status = OrderStatus.commissioned;
     }
 
@@ -26,14 +22,14 @@ public class ResearchOrder extends ProductionOrder {
     @Override
     public String toString()
     {
-        return "Research: Tech - " + toProduce.toString() + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
+        return "Research: Tech - " + getTypeData().getName(toProduce) + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
     }
 
     @Override
     public boolean canAfford()
     {
-        if ((BaseAPI.baseAPI.self.minerals()>= toProduce.mineralPrice()) &&
-                (BaseAPI.baseAPI.self.gas() >= toProduce.gasPrice())){
+        if ((getModel().minerals() >= getMineralPrice()) &&
+                (getModel().gas() >= getGasPrice())){
             return true;
         }
 
@@ -43,22 +39,25 @@ public class ResearchOrder extends ProductionOrder {
     @Override
     public boolean isToProduceFree()
     {
-        List<Unit> allUnits = BaseAPI.baseAPI.self.getUnits();
-        for (Unit currentUnit : allUnits) {
-            if (currentUnit.getType() == this.toProduce.whatResearches()) {
-                if (currentUnit.isIdle() && currentUnit.isCompleted()){
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return hasFreeProducer();
     }
 
+    @Override
+    public int getProductionTime() {return getTypeData().researchTime(toProduce);}
+
+    @Override
+    public int getMineralPrice() {return getTypeData().mineralPrice(toProduce);}
+
+    @Override
+    public int getGasPrice() {return getTypeData().gasPrice(toProduce);}
+
+    @Override
+    public UnitType getProducerType() {return getTypeData().whatResearches(toProduce);}
+
     @Override
     public boolean checkHasStarted()
     {
-        if (BaseAPI.baseAPI.self.isResearching(toProduce)) {
+        if (getModel().isResearching(toProduce)) {
             this.setStatus(OrderStatus.started);
             return true;
         }
@@ -68,7 +67,7 @@ public class ResearchOrder extends ProductionOrder {
     @Override
     public boolean checkHasFinished()
     {
-        if (BaseAPI.baseAPI.self.hasResearched(toProduce)){
+        if (getModel().hasResearched(toProduce)){
             this.setStatus(OrderStatus.finished);
             return true;
         }
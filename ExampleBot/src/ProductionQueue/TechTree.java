@@ -0,0 +1,336 @@
+package ProductionQueue;
+
+import GameModel.TypeData;
+import UnitCensus.UnitCensus;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The prerequisite graph for every unit, building, technology and upgrade of a race, built once at game start.
+ * Each UnitType is given a small ID, and prerequisites are stored as bitmasks of those IDs, both the direct prerequisites and the full transitive closure.
+ * A mask of the types the player owns a completed unit of is kept up to date from the UnitCensus, so checking an order's prerequisites is a mask AND.
+ *
+ * BWAPI has no list of all its types, so the race's types are found from the public constants on UnitType, TechType and UpgradeType.
+ * Types from outside the race are added the first time they are asked for.
+ */
+class TechTree implements UnitCensus.CensusListener {
+
+    private static final long[] NO_PREREQ = new long[0];
+    private static final int[] NO_CLOSURE = new int[0];
+    //Found once and shared, as the reflection is slow next to building the tree. Games simulated in parallel each build their own tree from these.
+    private static final List<UnitType> UNIT_TYPES = constantsOf(UnitType.class);
+    private static final List<TechType> TECH_TYPES = constantsOf(TechType.class);
+    private static final List<UpgradeType> UPGRADE_TYPES = constantsOf(UpgradeType.class);
+
+    private HashMap<UnitType, Integer> unitIDs;
+    private ArrayList<UnitType> unitsByID;
+    private ArrayList<long[]> unitDirect;
+    private ArrayList<int[]> unitDirectIDs;
+    //Filled the first time each is asked for, as a type's prerequisites can need the type itself, such as an SCV and its Command Center
+    private ArrayList<int[]> unitClosure;
+
+    private HashMap<TechType, long[]> techDirect;
+    private HashMap<TechType, int[]> techClosure;
+    private HashMap<UpgradeType, long[][]> upgradeDirect;
+    private HashMap<UpgradeType, int[][]> upgradeClosure;
+
+    private long[] owned;
+    private UnitCensus census;
+    private TypeData typeData;
+
+    /**
+     * Builds the tree for every type of the given race and seeds the owned mask from the census.
+     * @param race The player's race
+     * @param census The census to follow for owned types
+     * @param typeData Where to read each type's prerequisites from
+     */
+    TechTree(Race race, UnitCensus census, TypeData typeData)
+    {
+        unitIDs = new HashMap<>();
+        unitsByID = new ArrayList<>();
+        unitDirect = new ArrayList<>();
+        unitDirectIDs = new ArrayList<>();
+        unitClosure = new ArrayList<>();
+        techDirect = new HashMap<>();
+        techClosure = new HashMap<>();
+        upgradeDirect = new HashMap<>();
+        upgradeClosure = new HashMap<>();
+        owned = new long[1];
+        this.census = census;
+        this.typeData = typeData;
+
+        for (UnitType type : UNIT_TYPES) {
+            if (typeData.getRace(type) == race)
+                getUnitID(type);
+        }
+        for (TechType type : TECH_TYPES) {
+            if (typeData.getRace(type) == race)
+                getDirect(type);
+        }
+        for (UpgradeType type : UPGRADE_TYPES) {
+            if (typeData.getRace(type) == race)
+                getDirect(type, 1);
+        }
+
+        census.addListener(this);
+    }
+
+    /**
+     * Checks the player owns a completed unit of every direct prerequisite of the order.
+     * @param order The order to check
+     * @return True if every prerequisite is owned. False if not.
+     */
+    boolean hasAllPrereq(ProductionOrder order)
+    {
+        if (order.prerequisites == null)
+            order.prerequisites = getDirect(order);
+        long[] needed = order.prerequisites;
+        for (int word = 0; word < needed.length; word++) {
+            long ownedWord = word < owned.length ? owned[word] : 0L;
+            if ((needed[word] & ~ownedWord) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the player owns a completed unit of the type with the given ID.
+     * @param unitID The ID of the type
+     * @return True if one is owned
+     */
+    boolean isOwned(int unitID) {return ((unitID >> 6) < owned.length) && ((owned[unitID >> 6] & (1L << unitID)) != 0);}
+
+    /**
+     * Gets the unit or building type for an ID.
+     * @param unitID The ID
+     * @return The type
+     */
+    UnitType getUnitType(int unitID) {return unitsByID.get(unitID);}
+
+    /**
+     * Gets every unit and building needed, directly or indirectly, before the type can be made, not counting the type itself.
+     * Each one comes after its own prerequisites, unless they need each other.
+     * @param type The unit or building
+     * @return The IDs of all the prerequisites
+     */
+    int[] getClosure(UnitType type)
+    {
+        int id = getUnitID(type);
+        if (unitClosure.get(id) == null)
+            unitClosure.set(id, toClosure(unitDirectIDs.get(id), id));
+        return unitClosure.get(id);
+    }
+
+    /**
+     * Gets every unit and building needed, directly or indirectly, before the technology can be researched. Each one comes after its own prerequisites.
+     * @param type The technology
+     * @return The IDs of all the prerequisites
+     */
+    int[] getClosure(TechType type)
+    {
+        getDirect(type);
+        return techClosure.get(type);
+    }
+
+    /**
+     * Gets every unit and building needed, directly or indirectly, before the upgrade level can be researched. Each one comes after its own prerequisites.
+     * @param type The upgrade
+     * @param level The level of the upgrade
+     * @return The IDs of all the prerequisites
+     */
+    int[] getClosure(UpgradeType type, int level)
+    {
+        getDirect(type, level);
+        int[][] levels = upgradeClosure.get(type);
+        return level < levels.length ? levels[level] : NO_CLOSURE;
+    }
+
+    @Override
+    public void completedTypeGained(UnitType type)
+    {
+        int id = getUnitID(type);
+        if ((id >> 6) >= owned.length)
+            owned = Arrays.copyOf(owned, (id >> 6) + 1);
+        owned[id >> 6] |= 1L << id;
+    }
+
+    @Override
+    public void completedTypeLost(UnitType type)
+    {
+        int id = getUnitID(type);
+        if ((id >> 6) < owned.length)
+            owned[id >> 6] &= ~(1L << id);
+    }
+
+    private long[] getDirect(ProductionOrder order)
+    {
+        if (order instanceof UnitBuildingOrder)
+            return unitDirect.get(getUnitID(((UnitBuildingOrder) order).getToProduce()));
+        if (order instanceof ResearchOrder)
+            return getDirect(((ResearchOrder) order).getToProduce());
+        if (order instanceof UpgradeOrder)
+            return getDirect(((UpgradeOrder) order).getToProduce(), ((UpgradeOrder) order).getUpgradeLevel());
+        return NO_PREREQ;
+    }
+
+    /**
+     * Gets the ID of a type, adding it and everything it needs to the tree if it isn't there yet.
+     */
+    private int getUnitID(UnitType type)
+    {
+        Integer known = unitIDs.get(type);
+        if (known != null)
+            return known;
+
+        int id = unitsByID.size();
+        unitIDs.put(type, id);
+        unitsByID.add(type);
+        unitDirect.add(NO_PREREQ);
+        unitDirectIDs.add(NO_CLOSURE);
+        unitClosure.add(null);
+
+        ArrayList<UnitType> direct = new ArrayList<>();
+        if (typeData.whatBuilds(type) != UnitType.None)
+            direct.add(typeData.whatBuilds(type));
+        for (UnitType requirement : typeData.requiredUnits(type).keySet()) {
+            if ((requirement != UnitType.None) && !direct.contains(requirement))
+                direct.add(requirement);
+        }
+        unitDirect.set(id, toMask(direct));
+        unitDirectIDs.set(id, toIDs(direct));
+        if ((id >> 6) >= owned.length)
+            owned = Arrays.copyOf(owned, (id >> 6) + 1);
+        if (census.hasCompleted(type))
+            owned[id >> 6] |= 1L << id;
+        return id;
+    }
+
+    private long[] getDirect(TechType type)
+    {
+        long[] known = techDirect.get(type);
+        if (known != null)
+            return known;
+
+        ArrayList<UnitType> direct = new ArrayList<>();
+        if (typeData.whatResearches(type) != UnitType.None)
+            direct.add(typeData.whatResearches(type));
+        if ((typeData.requiredUnit(type) != UnitType.None) && !direct.contains(typeData.requiredUnit(type)))
+            direct.add(typeData.requiredUnit(type));
+        long[] mask = toMask(direct);
+        techDirect.put(type, mask);
+        techClosure.put(type, toClosure(toIDs(direct), -1));
+        return mask;
+    }
+
+    private long[] getDirect(UpgradeType type, int level)
+    {
+        long[][] known = upgradeDirect.get(type);
+        if (known == null) {
+            int maxLevel = Math.max(1, typeData.maxRepeats(type));
+            known = new long[maxLevel + 1][];
+            int[][] closures = new int[maxLevel + 1][];
+            known[0] = NO_PREREQ;
+            closures[0] = NO_CLOSURE;
+            for (int currentLevel = 1; currentLevel <= maxLevel; currentLevel++) {
+                ArrayList<UnitType> direct = new ArrayList<>();
+                if (typeData.whatUpgrades(type) != UnitType.None)
+                    direct.add(typeData.whatUpgrades(type));
+                UnitType required = typeData.whatsRequired(type, currentLevel);
+                if ((required != UnitType.None) && !direct.contains(required))
+                    direct.add(required);
+                known[currentLevel] = toMask(direct);
+                closures[currentLevel] = toClosure(toIDs(direct), -1);
+            }
+            upgradeDirect.put(type, known);
+            upgradeClosure.put(type, closures);
+        }
+        return level < known.length ? known[level] : NO_PREREQ;
+    }
+
+    private long[] toMask(ArrayList<UnitType> types)
+    {
+        long[] mask = NO_PREREQ;
+        for (UnitType type : types) {
+            int id = getUnitID(type);
+            if ((id >> 6) >= mask.length)
+                mask = Arrays.copyOf(mask, (id >> 6) + 1);
+            mask[id >> 6] |= 1L << id;
+        }
+        return mask;
+    }
+
+    private int[] toIDs(ArrayList<UnitType> types)
+    {
+        int[] ids = new int[types.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = getUnitID(types.get(i));
+        return ids;
+    }
+
+    /**
+     * Walks down from the direct prerequisites, listing each prerequisite after its own prerequisites.
+     * Only called once every type that can be reached is in the tree, so no type's prerequisites are half known.
+     * @param direct The IDs of the direct prerequisites
+     * @param self The ID of the type the closure is for, which is left out. -1 for a technology or upgrade.
+     */
+    private int[] toClosure(int[] direct, int self)
+    {
+        ArrayList<Integer> ordered = new ArrayList<>();
+        long[] seen = new long[(unitsByID.size() >> 6) + 1];
+        if (self >= 0)
+            seen[self >> 6] |= 1L << self;
+        for (int id : direct)
+            visit(id, seen, ordered);
+        int[] closure = new int[ordered.size()];
+        for (int i = 0; i < closure.length; i++)
+            closure[i] = ordered.get(i);
+        return closure;
+    }
+
+    private void visit(int id, long[] seen, ArrayList<Integer> ordered)
+    {
+        if ((seen[id >> 6] & (1L << id)) != 0)
+            return;
+        seen[id >> 6] |= 1L << id;
+        for (int deeper : unitDirectIDs.get(id))
+            visit(deeper, seen, ordered);
+        ordered.add(id);
+    }
+
+    /**
+     * Gets all the public constants of a BWAPI type class, sorted by name so IDs are the same every game.
+     */
+    private static <T> List<T> constantsOf(Class<T> typeClass)
+    {
+        ArrayList<Field> fields = new ArrayList<>();
+        for (Field field : typeClass.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && (field.getType() == typeClass))
+                fields.add(field);
+        }
+        Collections.sort(fields, new Comparator<Field>() {
+            @Override
+            public int compare(Field a, Field b) {return a.getName().compareTo(b.getName());}
+        });
+
+        ArrayList<T> constants = new ArrayList<>();
+        for (Field field : fields) {
+            try {
+                constants.add(typeClass.cast(field.get(null)));
+            } catch (IllegalAccessException e) {
+                //Public fields, so this doesn't happen
+            }
+        }
+        return Collections.unmodifiableList(constants);
+    }
+}
@@ -0,0 +1,106 @@
+package ProductionQueue;
+
+import java.util.ArrayList;
+
+/**
+ * Hashed timer wheel used by the ProductionQueue to wake up orders on a given frame.
+ * Each frame maps to one slot, so scheduling is O(1) and each frame only looks at the orders due in its slot.
+ * An order can only have one timer at a time. Rescheduling or cancelling leaves the old entry in place, and it is ignored when its slot comes round.
+ */
+class TimerWheel {
+
+    /**
+     * Called for each order whose timer has come due.
+     */
+    interface TimerListener {
+        void timerExpired(ProductionOrder order);
+    }
+
+    private static final int WHEEL_SIZE = 256; //Must be a power of two
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+
+    private ArrayList<ArrayList<Entry>> slots;
+    private ArrayList<ProductionOrder> expired;
+    private int lastFrameProcessed;
+
+    private static class Entry {
+        final ProductionOrder order;
+        final int dueFrame;
+
+        Entry(ProductionOrder order, int dueFrame)
+        {
+            this.order = order;
+            this.dueFrame = dueFrame;
+        }
+    }
+
+    TimerWheel(int currentFrame)
+    {
+        slots = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            slots.add(new ArrayList<Entry>());
+        expired = new ArrayList<>();
+        lastFrameProcessed = currentFrame;
+    }
+
+    /**
+     * Sets the order's timer to go off on the given frame, replacing any timer it already had.
+     * @param order The order to wake up
+     * @param dueFrame The frame to wake it up on. Frames that have already passed will go off on the next advance.
+     */
+    void schedule(ProductionOrder order, int dueFrame)
+    {
+        if (dueFrame <= lastFrameProcessed)
+            dueFrame = lastFrameProcessed + 1;
+        order.timerDueFrame = dueFrame;
+        slots.get(dueFrame & SLOT_MASK).add(new Entry(order, dueFrame));
+    }
+
+    /**
+     * Stops the order's timer if it has one.
+     * @param order The order to cancel the timer for
+     */
+    void cancel(ProductionOrder order) {order.timerDueFrame = -1;}
+
+    /**
+     * Moves the wheel on to the current frame, informing the listener of every order that has come due.
+     * Only the slots for the frames that have passed are looked at.
+     * @param currentFrame The current frame
+     * @param listener Informed of each expired order, in the order they came due
+     */
+    void advance(int currentFrame, TimerListener listener)
+    {
+        if (currentFrame <= lastFrameProcessed)
+            return;
+
+        int firstFrame = lastFrameProcessed + 1;
+        if (currentFrame - firstFrame >= WHEEL_SIZE)
+            firstFrame = currentFrame - WHEEL_SIZE + 1;
+
+        expired.clear();
+        for (int frame = firstFrame; frame <= currentFrame; frame++)
+        {
+            ArrayList<Entry> slot = slots.get(frame & SLOT_MASK);
+            int kept = 0;
+            for (int i = 0; i < slot.size(); i++)
+            {
+                Entry entry = slot.get(i);
+                if (entry.order.timerDueFrame != entry.dueFrame)
+                    continue; //Rescheduled or cancelled since this entry was made
+                if (entry.dueFrame > currentFrame) {
+                    slot.set(kept++, entry); //Due on a later turn of the wheel
+                    continue;
+                }
+                entry.order.timerDueFrame = -1;
+                expired.add(entry.order);
+            }
+            for (int i = slot.size() - 1; i >= kept; i--)
+                slot.remove(i);
+        }
+        lastFrameProcessed = currentFrame;
+
+        for (int i = 0; i < expired.size(); i++)
+            listener.timerExpired(expired.get(i));
+        expired.clear();
+    }
+}
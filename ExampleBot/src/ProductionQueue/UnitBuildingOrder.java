@@ -2,9 +2,6 @@ package ProductionQueue;
 
 import bwapi.Unit;
 import bwapi.UnitType;
-import main.BaseAPI;
-
-import java.util.List;
 
 /**
  * Specialisation class for the production order to make a unit or building
@@ -13,12 +10,14 @@ public class UnitBuildingOrder extends ProductionOrder {
 
     UnitType toProduce;
     Unit startedUnit;
+    int startedUnitID = -1;
+    //The quantity order this unit was handed out by. NULL if it was ordered on its own.
+    UnitQuantityOrder parent;
 
     public UnitBuildingOrder(UnitType unitBuildingToProduce, int priority)
     {
         this.priority = priority;
         this.toProduce = unitBuildingToProduce;
-        this.orderTime = BaseAPI.getGameTime();
         this.status = OrderStatus.commissioned;
     }
 
@@ -28,25 +27,51 @@ public class UnitBuildingOrder extends ProductionOrder {
      * Set the unit that is being produced in the order. Used to check if it is finished.
      * @param unitIn The unit that has just started for this order.
      */
-    public void setStartedUnit(Unit unitIn) {this.startedUnit = unitIn;}
+    public void setStartedUnit(Unit unitIn)
+    {
+        this.startedUnit = unitIn;
+        this.startedUnitID = unitIn.getID();
+    }
+
+    /**
+     * Set the ID of the unit that is being produced in the order, for when there is no BWAPI unit, such as in a simulated game.
+     * @param unitID The ID of the unit that has just started for this order.
+     */
+    void setStartedUnitID(int unitID)
+    {
+        this.startedUnit = null;
+        this.startedUnitID = unitID;
+    }
 
     /**
      * Get the unit that is being produced or built.
-     * @return The unit that is being produced or built.
+     * @return The unit that is being produced or built. NULL if it hasn't started, or in a simulated game.
      */
     public Unit getStartedUnit() {return startedUnit;}
 
+    /**
+     * Get the ID of the unit that is being produced or built.
+     * @return The unit's ID. -1 if it hasn't started.
+     */
+    public int getStartedUnitID() {return startedUnitID;}
+
+    /**
+     * Get the quantity order this unit was handed out by.
+     * @return The quantity order. NULL if this unit was ordered on its own.
+     */
+    public UnitQuantityOrder getQuantityOrder() {return parent;}
+
     @Override
     public String toString()
     {
-        return "Create: Unit/Building - " + toProduce.toString() + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
+        return "Create: Unit/Building - " + getTypeData().getName(toProduce) + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
     }
 
     @Override
     public boolean canAfford()
     {
-        if ((BaseAPI.baseAPI.self.minerals()>= toProduce.mineralPrice()) &&
-                (BaseAPI.baseAPI.self.gas() >= toProduce.gasPrice())){
+        if ((getModel().minerals() >= getMineralPrice()) &&
+                (getModel().gas() >= getGasPrice())){
             return true;
         }
         return false;
@@ -54,7 +79,7 @@ public class UnitBuildingOrder extends ProductionOrder {
 
     public boolean enoughSupply()
     {
-        if (BaseAPI.baseAPI.self.supplyUsed()+toProduce.supplyRequired() <= BaseAPI.baseAPI.self.supplyTotal()){
+        if (getModel().supplyUsed() + getSupplyRequired() <= getModel().supplyTotal()){
             return true;
         }
         return false;
@@ -65,24 +90,30 @@ public class UnitBuildingOrder extends ProductionOrder {
     @Override
     public boolean isToProduceFree()
     {
-        if (this.toProduce.whatBuilds().first.isWorker())
+        if (getTypeData().isWorker(getProducerType()))
         {
             //producing building that requires worker
             return true;
         }
 
-        List<Unit> allUnits = BaseAPI.baseAPI.self.getUnits();
-        for (Unit currentUnit : allUnits) {
-            if (currentUnit.getType() == this.toProduce.whatBuilds().first) {
-                if (currentUnit.isIdle() && currentUnit.isCompleted()){
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return hasFreeProducer();
     }
 
+    @Override
+    public int getProductionTime() {return getTypeData().buildTime(toProduce);}
+
+    @Override
+    public int getMineralPrice() {return getTypeData().mineralPrice(toProduce);}
+
+    @Override
+    public int getGasPrice() {return getTypeData().gasPrice(toProduce);}
+
+    @Override
+    public int getSupplyRequired() {return getTypeData().supplyRequired(toProduce);}
+
+    @Override
+    public UnitType getProducerType() {return getTypeData().whatBuilds(toProduce);}
+
     @Override
     public boolean checkHasStarted()
     {
@@ -92,7 +123,7 @@ public class UnitBuildingOrder extends ProductionOrder {
     @Override
     public boolean checkHasFinished()
     {
-        if (startedUnit.isCompleted())
+        if (getModel().isCompleted(startedUnitID))
         {
             setStatus(OrderStatus.finished);
             return true;
@@ -106,7 +137,7 @@ public class UnitBuildingOrder extends ProductionOrder {
      */
     public boolean checkIfStillTraining()
     {
-        if(!startedUnit.exists()){
+        if(!getModel().exists(startedUnitID)){
             this.setStatus(OrderStatus.commissioned);
             return false;
         }
@@ -0,0 +1,134 @@
+package ProductionQueue;
+
+import bwapi.UnitType;
+
+/**
+ * Specialisation of the unit order for making a number of the same unit, such as 8 Marines.
+ * The order stays on the queue as one entry while it hands out its units one at a time, each as a plain UnitBuildingOrder, whenever a producer is free.
+ * The units it hands out are tracked through the orders it made for them, so it knows how many are still waiting, ordered, started and done.
+ * A unit whose order is reset, such as when it is killed while being trained, is given back to be handed out again. A unit whose order is cancelled is taken off.
+ * The order is finished once every unit is done.
+ */
+public class UnitQuantityOrder extends UnitBuildingOrder {
+
+    private int quantity;
+    private int waiting;
+    private int ordered;
+    private int started;
+    private int done;
+
+    //How many units the queue is handing out this frame. Only used while the queue picks orders.
+    int handingOut;
+
+    public UnitQuantityOrder(UnitType unitBuildingToProduce, int priority, int quantity)
+    {
+        super(unitBuildingToProduce, priority);
+        this.quantity = quantity;
+        this.waiting = quantity;
+    }
+
+    /**
+     * Gets how many units the order was made for, less any taken off the queue
+     * @return The number of units
+     */
+    public int getQuantity() {return quantity;}
+
+    /**
+     * Gets how many units haven't been handed out yet
+     * @return The number of units waiting
+     */
+    public int getWaitingCount() {return waiting;}
+
+    /**
+     * Gets how many units have been handed out but not started yet
+     * @return The number of units ordered
+     */
+    public int getOrderedCount() {return ordered;}
+
+    /**
+     * Gets how many units are being made
+     * @return The number of units started
+     */
+    public int getStartedCount() {return started;}
+
+    /**
+     * Gets how many units have been made
+     * @return The number of units done
+     */
+    public int getDoneCount() {return done;}
+
+    /**
+     * Checks whether every unit is done, or taken off the queue.
+     * @return True if there is nothing left for the order to do
+     */
+    boolean isComplete() {return (waiting == 0) && (ordered == 0) && (started == 0);}
+
+    /**
+     * Makes the order for one of the waiting units.
+     * @return The order for the unit
+     */
+    UnitBuildingOrder handOut()
+    {
+        waiting--;
+        UnitBuildingOrder unitOrder = new UnitBuildingOrder(toProduce, priority);
+        unitOrder.orderTime = orderTime;
+        unitOrder.prerequisites = prerequisites;
+        unitOrder.parent = this;
+        return unitOrder;
+    }
+
+    /**
+     * Gives back a unit whose order was reset, to be handed out again.
+     */
+    void giveBack() {waiting++;}
+
+    /**
+     * Takes waiting units off the order.
+     * @param count The most units to take off
+     * @return The number of units taken off
+     */
+    int takeOff(int count)
+    {
+        int taken = Math.min(count, waiting);
+        waiting -= taken;
+        quantity -= taken;
+        return taken;
+    }
+
+    /**
+     * Keeps the unit counts up to date when the order for one of this order's units changes status.
+     */
+    void unitStatusChanged(OrderStatus oldStatus, OrderStatus newStatus)
+    {
+        track(oldStatus, -1);
+        track(newStatus, 1);
+    }
+
+    private void track(OrderStatus status, int change)
+    {
+        switch (status)
+        {
+            case ordered:
+                ordered += change;
+                break;
+            case started:
+                started += change;
+                break;
+            case finished:
+                done += change;
+                break;
+            case aborted:
+                quantity -= change;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Create: Unit/Building - " + getTypeData().getName(toProduce) + " x" + quantity + " (" + waiting + " waiting, " + ordered + " ordered, " + started + " started, " + done + " done)"
+                + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
+    }
+}
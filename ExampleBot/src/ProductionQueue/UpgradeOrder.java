@@ -1,10 +1,7 @@
 package ProductionQueue;
 
-import bwapi.Unit;
+import bwapi.UnitType;
 import bwapi.UpgradeType;
-import main.BaseAPI;
-
-import java.util.List;
 
 /**
  * Specialization class for the production order to start researching an upgrade
@@ -18,7 +15,6 @@ public class UpgradeOrder extends ProductionOrder {
     {
         this.priority = priority;
         this.toProduce = techToResearch;
-        this.orderTime = BaseAPI.getGameTime();
         this.status = OrderStatus.commissioned;
         this.upgradeLevel = level;
     }
@@ -29,15 +25,15 @@ public class UpgradeOrder extends ProductionOrder {
     @Override
     public String toString()
     {
-        return "Upgrade: Tech - " + toProduce.toString() + " " + upgradeLevel + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
+        return "Upgrade: Tech - " + getTypeData().getName(toProduce) + " " + upgradeLevel + ", Priority - " + priority + ", Time - " + orderTime + ", Status - " + status.toString();
     }
 
 
     @Override
     public boolean canAfford()
     {
-        if ((BaseAPI.baseAPI.self.minerals()>= toProduce.mineralPrice(upgradeLevel)) &&
-                (BaseAPI.baseAPI.self.gas() >= toProduce.gasPrice(upgradeLevel))){
+        if ((getModel().minerals() >= getMineralPrice()) &&
+                (getModel().gas() >= getGasPrice())){
             return true;
         }
 
@@ -48,22 +44,25 @@ public class UpgradeOrder extends ProductionOrder {
     @Override
     public boolean isToProduceFree()
     {
-        List<Unit> allUnits = BaseAPI.baseAPI.self.getUnits();
-        for (Unit currentUnit : allUnits) {
-            if (currentUnit.getType() == this.toProduce.whatUpgrades()) {
-                if (currentUnit.isIdle()&&currentUnit.isCompleted()){
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return hasFreeProducer();
     }
 
+    @Override
+    public int getProductionTime() {return getTypeData().upgradeTime(toProduce, upgradeLevel);}
+
+    @Override
+    public int getMineralPrice() {return getTypeData().mineralPrice(toProduce, upgradeLevel);}
+
+    @Override
+    public int getGasPrice() {return getTypeData().gasPrice(toProduce, upgradeLevel);}
+
+    @Override
+    public UnitType getProducerType() {return getTypeData().whatUpgrades(toProduce);}
+
     @Override
     public boolean checkHasStarted()
     {
-        if (BaseAPI.baseAPI.self.isUpgrading(toProduce)) {
+        if (getModel().isUpgrading(toProduce)) {
             this.setStatus(OrderStatus.started);
             return true;
         }
@@ -74,7 +73,7 @@ public class UpgradeOrder extends ProductionOrder {
     @Override
     public boolean checkHasFinished()
     {
-        if (BaseAPI.baseAPI.self.getUpgradeLevel(toProduce) == upgradeLevel)
+        if (getModel().getUpgradeLevel(toProduce) == upgradeLevel)
         {
             setStatus(OrderStatus.finished);
             return true;
@@ -0,0 +1,101 @@
+package Simulator;
+
+import ProductionQueue.ProductionQueue;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A build order to try out in the Simulator. A list of steps, each added to the ProductionQueue once the player's supply reaches the step's trigger.
+ * Steps are added in the order they were given, so a step isn't added until every step before it has been.
+ */
+public class BuildOrder {
+
+    /**
+     * One thing to add to the queue.
+     */
+    static class Step {
+        //Supply in BWAPI's units, double what is shown in game
+        final int triggerSupply;
+        final UnitType unit;
+        final TechType tech;
+        final UpgradeType upgrade;
+        final int priority;
+        //How many units, or the level of an upgrade
+        final int amount;
+
+        Step(int triggerSupply, UnitType unit, TechType tech, UpgradeType upgrade, int priority, int amount)
+        {
+            this.triggerSupply = triggerSupply;
+            this.unit = unit;
+            this.tech = tech;
+            this.upgrade = upgrade;
+            this.priority = priority;
+            this.amount = amount;
+        }
+
+        void addTo(ProductionQueue queue)
+        {
+            if (unit != null)
+                queue.AddToQueue(unit, priority, amount);
+            else if (tech != null)
+                queue.AddToQueue(tech, priority);
+            else
+                queue.AddToQueue(upgrade, priority, amount);
+        }
+    }
+
+    private final String name;
+    private final ArrayList<Step> steps = new ArrayList<>();
+
+    public BuildOrder(String name)
+    {
+        this.name = name;
+    }
+
+    public String getName() {return name;}
+
+    List<Step> getSteps() {return steps;}
+
+    /**
+     * Adds units to the queue as soon as the steps before have been added
+     * @param type The unit or building to make
+     * @param priority The priority to add it with
+     * @param quantity How many to make
+     * @return This build order, so steps can be chained
+     */
+    public BuildOrder add(UnitType type, int priority, int quantity) {return addAtSupply(0, type, priority, quantity);}
+
+    /**
+     * Adds units to the queue once the player's supply reaches the given amount
+     * @param supply The supply as shown in game, such as 9 for the 9th worker
+     * @param type The unit or building to make
+     * @param priority The priority to add it with
+     * @param quantity How many to make
+     * @return This build order, so steps can be chained
+     */
+    public BuildOrder addAtSupply(int supply, UnitType type, int priority, int quantity)
+    {
+        steps.add(new Step(supply * 2, type, null, null, priority, quantity));
+        return this;
+    }
+
+    public BuildOrder add(TechType tech, int priority) {return addAtSupply(0, tech, priority);}
+
+    public BuildOrder addAtSupply(int supply, TechType tech, int priority)
+    {
+        steps.add(new Step(supply * 2, null, tech, null, priority, 1));
+        return this;
+    }
+
+    public BuildOrder add(UpgradeType upgrade, int priority, int level) {return addAtSupply(0, upgrade, priority, level);}
+
+    public BuildOrder addAtSupply(int supply, UpgradeType upgrade, int priority, int level)
+    {
+        steps.add(new Step(supply * 2, null, null, upgrade, priority, level));
+        return this;
+    }
+}
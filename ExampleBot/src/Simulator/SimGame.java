@@ -0,0 +1,499 @@
+package Simulator;
+
+import GameModel.GameModel;
+import GameModel.TypeData;
+import ProductionQueue.ProductionOrder;
+import ProductionQueue.ProductionQueue;
+import ProductionQueue.ResearchOrder;
+import ProductionQueue.UnitBuildingOrder;
+import ProductionQueue.UpgradeOrder;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * A simulated Terran game, standing in for BWAPI so a ProductionQueue can be run without StarCraft.
+ * Only the economy and production are simulated. Workers gather at fixed rates, producers are busy for the build time, and there is no map, combat or enemy.
+ * Orders passed back by the queue are carried out with execute. Buildings use a simplified builder policy that does not model the BuilderManager:
+ * the lowest ID worker on minerals is taken, and it reaches the site after a fixed travel time from the settings.
+ * The queue is told about started and completed units the same way a bot would tell it from BWAPI's events.
+ */
+public class SimGame implements GameModel {
+
+    /**
+     * Told when the orders carried out by the game start and finish.
+     */
+    public interface SimListener {
+        void orderStarted(ProductionOrder order, int frame);
+        void orderFinished(ProductionOrder order, int frame);
+    }
+
+    private enum Task {
+        IDLE, MINERALS, GAS, BUSY
+    }
+
+    private static class SimUnit {
+        final int id;
+        final UnitType type;
+        boolean completed;
+        Task task = Task.IDLE;
+        //What the unit is making, if it isn't a worker putting up a building
+        UnitType training = UnitType.None;
+        TechType tech = TechType.None;
+        UpgradeType upgrade = UpgradeType.None;
+
+        SimUnit(int id, UnitType type)
+        {
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    private enum EventType {
+        UNIT_COMPLETED, RESEARCH_COMPLETED, UPGRADE_COMPLETED, BUILDER_ARRIVED
+    }
+
+    private static class SimEvent implements Comparable<SimEvent> {
+        final int frame;
+        final long sequence;
+        final EventType eventType;
+        //The unit the event happens to. For a builder arriving, the worker.
+        final int unitID;
+        final ProductionOrder order;
+
+        SimEvent(int frame, long sequence, EventType eventType, int unitID, ProductionOrder order)
+        {
+            this.frame = frame;
+            this.sequence = sequence;
+            this.eventType = eventType;
+            this.unitID = unitID;
+            this.order = order;
+        }
+
+        //Earliest frame first, then in the order the events were made
+        @Override
+        public int compareTo(SimEvent other)
+        {
+            if (frame != other.frame)
+                return Integer.compare(frame, other.frame);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final int MAX_SUPPLY = 400;
+
+    private final SimSettings settings;
+    private final TypeData typeData;
+    private ProductionQueue queue;
+    private SimListener listener;
+
+    private int frame = 0;
+    //Resources are kept in thousandths so fractions of a mineral gathered each frame aren't lost
+    private long milliMinerals;
+    private long milliGas;
+    private long gatheredMilliMinerals = 0;
+    private long gatheredMilliGas = 0;
+    private int supplyUsed = 0;
+    private int supplyTotal = 0;
+    private int mineralWorkers = 0;
+    private int gasWorkers = 0;
+    private int gasSlots = 0;
+    private int freeGeysers;
+
+    //Sorted by ID so the lowest ID unit is always picked first and every run of a build order plays out the same
+    private final TreeMap<Integer, SimUnit> units = new TreeMap<>();
+    private int nextUnitID = 0;
+    //Which unit is busy making each unfinished unit
+    private final HashMap<Integer, Integer> producerOf = new HashMap<>();
+    private final PriorityQueue<SimEvent> events = new PriorityQueue<>();
+    private long nextEventSequence = 0;
+
+    private final HashSet<TechType> researched = new HashSet<>();
+    private final HashSet<TechType> researching = new HashSet<>();
+    private final HashMap<UpgradeType, Integer> upgradeLevels = new HashMap<>();
+    private final HashSet<UpgradeType> upgrading = new HashSet<>();
+
+    /**
+     * Sets up a game on frame 0 with a finished Command Center and the starting workers on minerals
+     * @param settings The settings of the game
+     */
+    public SimGame(SimSettings settings)
+    {
+        this.settings = settings;
+        this.typeData = new SimTypeData();
+        this.milliMinerals = settings.getStartMinerals() * 1000L;
+        this.freeGeysers = settings.getGeysers();
+
+        completeUnit(createUnit(UnitType.Terran_Command_Center));
+        for (int i = 0; i < settings.getStartWorkers(); i++) {
+            SimUnit worker = createUnit(UnitType.Terran_SCV);
+            supplyUsed += typeData.supplyRequired(worker.type);
+            completeUnit(worker);
+        }
+    }
+
+    /**
+     * Sets the queue that is told about started and completed units. It should already have been started on this game with onGameStart.
+     * @param queue The queue running on this game
+     */
+    public void setQueue(ProductionQueue queue) {this.queue = queue;}
+
+    /**
+     * Sets the listener told when orders start and finish
+     * @param listener The listener. NULL for none.
+     */
+    public void setListener(SimListener listener) {this.listener = listener;}
+
+    /**
+     * Gets the frame of the next thing that will happen in the game, such as a unit finishing or a builder getting to its site
+     * @return The frame of the next event. -1 if nothing is going to happen.
+     */
+    public int getNextEventFrame() {return events.isEmpty() ? -1 : events.peek().frame;}
+
+    /**
+     * Moves the game forward to the given frame. Resources are gathered and events are carried out on the frame they happen.
+     * @param targetFrame The frame to move to. Nothing happens if it has already passed.
+     */
+    public void advanceTo(int targetFrame)
+    {
+        while (!events.isEmpty() && events.peek().frame <= targetFrame) {
+            SimEvent event = events.poll();
+            gather(event.frame);
+            handleEvent(event);
+        }
+        gather(targetFrame);
+    }
+
+    /**
+     * Carries out an order passed back by the queue. Units and addons start straight away at the producer the queue gave the order, research and upgrades at the building it gave.
+     * Buildings are given to a worker on minerals, which starts it once it gets to the site.
+     * @param order The order to carry out
+     * @return True if the order was started or given to a worker. False if there was no producer for it, in which case the queue will time it out.
+     */
+    public boolean execute(ProductionOrder order)
+    {
+        if (order instanceof UnitBuildingOrder) {
+            UnitType toBuild = ((UnitBuildingOrder) order).getToProduce();
+            if (typeData.isWorker(order.getProducerType()))
+                return sendBuilder(order);
+            SimUnit producer = producerOf(order);
+            if (producer == null)
+                return false;
+            spend(order);
+            startUnit(toBuild, producer, order);
+            return true;
+        }
+
+        SimUnit producer = producerOf(order);
+        if (producer == null)
+            return false;
+
+        if (order instanceof ResearchOrder) {
+            TechType tech = ((ResearchOrder) order).getToProduce();
+            spend(order);
+            producer.task = Task.BUSY;
+            producer.tech = tech;
+            researching.add(tech);
+            schedule(frame + order.getProductionTime(), EventType.RESEARCH_COMPLETED, producer.id, order);
+            orderStarted(order);
+            return true;
+        }
+
+        if (order instanceof UpgradeOrder) {
+            UpgradeType upgrade = ((UpgradeOrder) order).getToProduce();
+            spend(order);
+            producer.task = Task.BUSY;
+            producer.upgrade = upgrade;
+            upgrading.add(upgrade);
+            schedule(frame + order.getProductionTime(), EventType.UPGRADE_COMPLETED, producer.id, order);
+            orderStarted(order);
+            return true;
+        }
+        return false;
+    }
+
+    //Simplified builder policy, not the BuilderManager's: the lowest ID worker on minerals is taken and arrives after a fixed travel time
+    private boolean sendBuilder(ProductionOrder order)
+    {
+        for (SimUnit currentUnit : units.values()) {
+            if (currentUnit.task == Task.MINERALS) {
+                setTask(currentUnit, Task.BUSY);
+                schedule(frame + settings.getBuilderTravelFrames(), EventType.BUILDER_ARRIVED, currentUnit.id, order);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //The unit the queue gave the order, if it is still there and idle
+    private SimUnit producerOf(ProductionOrder order)
+    {
+        SimUnit producer = units.get(order.getProducerID());
+        if ((producer == null) || !producer.completed || (producer.task != Task.IDLE))
+            return null;
+        return producer;
+    }
+
+    private void spend(ProductionOrder order)
+    {
+        milliMinerals -= order.getMineralPrice() * 1000L;
+        milliGas -= order.getGasPrice() * 1000L;
+    }
+
+    private boolean canAfford(ProductionOrder order)
+    {
+        return (milliMinerals >= order.getMineralPrice() * 1000L) && (milliGas >= order.getGasPrice() * 1000L);
+    }
+
+    private void startUnit(UnitType toBuild, SimUnit producer, ProductionOrder order)
+    {
+        producer.task = Task.BUSY;
+        if (!typeData.isWorker(producer.type))
+            producer.training = toBuild;
+        SimUnit started = createUnit(toBuild);
+        supplyUsed += typeData.supplyRequired(toBuild);
+        if (queue != null)
+            queue.unitStructureStarted(started.id);
+        orderStarted(order);
+        schedule(frame + typeData.buildTime(toBuild), EventType.UNIT_COMPLETED, started.id, order);
+        //The producer is freed by the unit completing
+        producerOf.put(started.id, producer.id);
+    }
+
+    private void handleEvent(SimEvent event)
+    {
+        SimUnit unit = units.get(event.unitID);
+        switch (event.eventType) {
+            case UNIT_COMPLETED:
+                completeUnit(unit);
+                Integer producerID = producerOf.remove(unit.id);
+                if (producerID != null)
+                    freeProducer(units.get(producerID));
+                if (queue != null)
+                    queue.unitCompleted(unit.id);
+                orderFinished(event.order);
+                break;
+            case RESEARCH_COMPLETED:
+                researching.remove(unit.tech);
+                researched.add(unit.tech);
+                unit.tech = TechType.None;
+                unit.task = Task.IDLE;
+                orderFinished(event.order);
+                break;
+            case UPGRADE_COMPLETED:
+                upgrading.remove(unit.upgrade);
+                Integer level = upgradeLevels.get(unit.upgrade);
+                upgradeLevels.put(unit.upgrade, level == null ? 1 : level + 1);
+                unit.upgrade = UpgradeType.None;
+                unit.task = Task.IDLE;
+                orderFinished(event.order);
+                break;
+            case BUILDER_ARRIVED:
+                builderArrived(unit, event.order);
+                break;
+        }
+    }
+
+    private void builderArrived(SimUnit builder, ProductionOrder order)
+    {
+        UnitType toBuild = ((UnitBuildingOrder) order).getToProduce();
+        if (typeData.isRefinery(toBuild) && (freeGeysers == 0)) {
+            //Nowhere to put it. The queue will time the order out.
+            setTask(builder, Task.MINERALS);
+            return;
+        }
+        if (!canAfford(order)) {
+            //Waits at the site for the money
+            schedule(frame + 1, EventType.BUILDER_ARRIVED, builder.id, order);
+            return;
+        }
+        if (typeData.isRefinery(toBuild))
+            freeGeysers--;
+        spend(order);
+        startUnit(toBuild, builder, order);
+    }
+
+    private void freeProducer(SimUnit producer)
+    {
+        producer.training = UnitType.None;
+        if (typeData.isWorker(producer.type))
+            setTask(producer, Task.MINERALS);
+        else
+            producer.task = Task.IDLE;
+    }
+
+    private SimUnit createUnit(UnitType type)
+    {
+        SimUnit created = new SimUnit(nextUnitID++, type);
+        units.put(created.id, created);
+        return created;
+    }
+
+    private void completeUnit(SimUnit unit)
+    {
+        unit.completed = true;
+        supplyTotal = Math.min(MAX_SUPPLY, supplyTotal + typeData.supplyProvided(unit.type));
+        if (typeData.isWorker(unit.type)) {
+            setTask(unit, gasWorkers < gasSlots ? Task.GAS : Task.MINERALS);
+        }
+        else if (typeData.isRefinery(unit.type)) {
+            gasSlots += settings.getGasWorkersPerRefinery();
+            for (SimUnit currentUnit : units.values()) {
+                if (gasWorkers >= gasSlots)
+                    break;
+                if (currentUnit.task == Task.MINERALS)
+                    setTask(currentUnit, Task.GAS);
+            }
+        }
+    }
+
+    //Keeps the counts of gathering workers in step with their tasks
+    private void setTask(SimUnit worker, Task task)
+    {
+        if (worker.task == Task.MINERALS)
+            mineralWorkers--;
+        else if (worker.task == Task.GAS)
+            gasWorkers--;
+        worker.task = task;
+        if (task == Task.MINERALS)
+            mineralWorkers++;
+        else if (task == Task.GAS)
+            gasWorkers++;
+    }
+
+    private void schedule(int eventFrame, EventType eventType, int unitID, ProductionOrder order)
+    {
+        events.add(new SimEvent(eventFrame, nextEventSequence++, eventType, unitID, order));
+    }
+
+    //Gathers the resources for the frames up to the given one. The workers can't change in between as nothing else happens.
+    private void gather(int toFrame)
+    {
+        if (toFrame <= frame)
+            return;
+        int frames = toFrame - frame;
+        int patches = settings.getMineralPatches();
+        int firstTwo = Math.min(mineralWorkers, 2 * patches);
+        int thirds = Math.min(Math.max(mineralWorkers - (2 * patches), 0), patches);
+        long mineralsGathered = ((long) firstTwo * settings.getMineralRate() + (long) thirds * settings.getThirdWorkerMineralRate()) * frames;
+        long gasGathered = (long) gasWorkers * settings.getGasRate() * frames;
+        milliMinerals += mineralsGathered;
+        milliGas += gasGathered;
+        gatheredMilliMinerals += mineralsGathered;
+        gatheredMilliGas += gasGathered;
+        frame = toFrame;
+    }
+
+    private void orderStarted(ProductionOrder order)
+    {
+        if (listener != null)
+            listener.orderStarted(order, frame);
+    }
+
+    private void orderFinished(ProductionOrder order)
+    {
+        if (listener != null)
+            listener.orderFinished(order, frame);
+    }
+
+    @Override
+    public int getFrameCount() {return frame;}
+
+    @Override
+    public TypeData getTypeData() {return typeData;}
+
+    @Override
+    public Race getRace() {return Race.Terran;}
+
+    @Override
+    public int minerals() {return (int) (milliMinerals / 1000);}
+
+    @Override
+    public int gas() {return (int) (milliGas / 1000);}
+
+    @Override
+    public int supplyUsed() {return supplyUsed;}
+
+    @Override
+    public int supplyTotal() {return supplyTotal;}
+
+    @Override
+    public int gatheredMinerals() {return (int) (gatheredMilliMinerals / 1000);}
+
+    @Override
+    public int gatheredGas() {return (int) (gatheredMilliGas / 1000);}
+
+    @Override
+    public boolean hasResearched(TechType tech) {return researched.contains(tech);}
+
+    @Override
+    public boolean isResearching(TechType tech) {return researching.contains(tech);}
+
+    @Override
+    public int getUpgradeLevel(UpgradeType upgrade)
+    {
+        Integer level = upgradeLevels.get(upgrade);
+        return level == null ? 0 : level;
+    }
+
+    @Override
+    public boolean isUpgrading(UpgradeType upgrade) {return upgrading.contains(upgrade);}
+
+    @Override
+    public Collection<Integer> getOwnUnitIDs() {return units.keySet();}
+
+    @Override
+    public boolean isOwned(int unitID) {return units.containsKey(unitID);}
+
+    @Override
+    public UnitType getUnitType(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return unit == null ? UnitType.None : unit.type;
+    }
+
+    @Override
+    public boolean exists(int unitID) {return units.containsKey(unitID);}
+
+    @Override
+    public boolean isCompleted(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return (unit != null) && unit.completed;
+    }
+
+    @Override
+    public boolean isIdle(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return (unit != null) && unit.completed && (unit.task == Task.IDLE);
+    }
+
+    @Override
+    public UnitType getTraining(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return unit == null ? UnitType.None : unit.training;
+    }
+
+    @Override
+    public TechType getTech(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return unit == null ? TechType.None : unit.tech;
+    }
+
+    @Override
+    public UpgradeType getUpgrade(int unitID)
+    {
+        SimUnit unit = units.get(unitID);
+        return unit == null ? UpgradeType.None : unit.upgrade;
+    }
+}
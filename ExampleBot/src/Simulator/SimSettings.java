@@ -0,0 +1,82 @@
+package Simulator;
+
+/**
+ * The settings of a simulated game. The defaults are a standard Terran start on a main base with 8 mineral patches and 1 geyser.
+ * Income rates are in thousandths of a mineral or gas per frame, for one worker. They are approximations of a worker's gathering on an average base.
+ */
+public class SimSettings {
+
+    private int maxFrames = 24 * 60 * 20;
+    private int maxFrameStep = 8;
+    private int mineralPatches = 8;
+    private int geysers = 1;
+    private int mineralRate = 45;
+    private int thirdWorkerMineralRate = 20;
+    private int gasRate = 40;
+    private int gasWorkersPerRefinery = 3;
+    private int builderTravelFrames = 150;
+    private int startMinerals = 50;
+    private int startWorkers = 4;
+
+    /**
+     * Gets the frame the game is stopped on if the build order hasn't finished. 20 minutes by default.
+     * @return The last frame
+     */
+    public int getMaxFrames() {return maxFrames;}
+    public void setMaxFrames(int maxFrames) {this.maxFrames = maxFrames;}
+
+    /**
+     * Gets the most frames passed over in one step when nothing happens. The queue is updated once a step.
+     * 1 updates the queue every frame like a real bot. Higher runs faster, but the queue sees changes a few frames late.
+     * @return The largest step
+     */
+    public int getMaxFrameStep() {return maxFrameStep;}
+    public void setMaxFrameStep(int maxFrameStep) {this.maxFrameStep = Math.max(1, maxFrameStep);}
+
+    public int getMineralPatches() {return mineralPatches;}
+    public void setMineralPatches(int mineralPatches) {this.mineralPatches = mineralPatches;}
+
+    public int getGeysers() {return geysers;}
+    public void setGeysers(int geysers) {this.geysers = geysers;}
+
+    /**
+     * Gets the minerals gathered by each of the first two workers on a patch, in thousandths of a mineral per frame
+     * @return The mineral rate
+     */
+    public int getMineralRate() {return mineralRate;}
+    public void setMineralRate(int mineralRate) {this.mineralRate = mineralRate;}
+
+    /**
+     * Gets the minerals gathered by a third worker on a patch, in thousandths of a mineral per frame. Workers past the third gather nothing.
+     * @return The third worker's mineral rate
+     */
+    public int getThirdWorkerMineralRate() {return thirdWorkerMineralRate;}
+    public void setThirdWorkerMineralRate(int thirdWorkerMineralRate) {this.thirdWorkerMineralRate = thirdWorkerMineralRate;}
+
+    /**
+     * Gets the gas gathered by each worker on a refinery, in thousandths of a gas per frame
+     * @return The gas rate
+     */
+    public int getGasRate() {return gasRate;}
+    public void setGasRate(int gasRate) {this.gasRate = gasRate;}
+
+    /**
+     * Gets how many workers are moved from minerals to each refinery once it is finished
+     * @return The workers per refinery
+     */
+    public int getGasWorkersPerRefinery() {return gasWorkersPerRefinery;}
+    public void setGasWorkersPerRefinery(int gasWorkersPerRefinery) {this.gasWorkersPerRefinery = gasWorkersPerRefinery;}
+
+    /**
+     * Gets how long a worker takes to get from the minerals to a building site
+     * @return The travel time in frames
+     */
+    public int getBuilderTravelFrames() {return builderTravelFrames;}
+    public void setBuilderTravelFrames(int builderTravelFrames) {this.builderTravelFrames = builderTravelFrames;}
+
+    public int getStartMinerals() {return startMinerals;}
+    public void setStartMinerals(int startMinerals) {this.startMinerals = startMinerals;}
+
+    public int getStartWorkers() {return startWorkers;}
+    public void setStartWorkers(int startWorkers) {this.startWorkers = startWorkers;}
+}
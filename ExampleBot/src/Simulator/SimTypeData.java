@@ -0,0 +1,373 @@
+package Simulator;
+
+import GameModel.TypeData;
+import bwapi.Race;
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Type data for simulated games, from tables rather than BWAPI, which can't be asked without StarCraft running.
+ * Only the Terran units, buildings, technologies and upgrades are in the tables. Every other type is treated as costing nothing and needing nothing.
+ * Times are in frames and supply is in BWAPI's units, as BWAPI gives them.
+ * The tables are built once and shared by every simulated game.
+ */
+public class SimTypeData implements TypeData {
+
+    private static class UnitData {
+        String name;
+        int minerals;
+        int gas;
+        int time;
+        int supply;
+        int supplyProvided;
+        UnitType builder;
+        Map<UnitType, Integer> required;
+        boolean worker;
+        boolean building;
+        boolean addon;
+        boolean refinery;
+    }
+
+    private static class TechData {
+        String name;
+        int minerals;
+        int gas;
+        int time;
+        UnitType researcher;
+    }
+
+    private static class UpgradeData {
+        String name;
+        int minerals;
+        int mineralFactor;
+        int gas;
+        int gasFactor;
+        int time;
+        int timeFactor;
+        int maxRepeats;
+        UnitType upgrader;
+        UnitType laterLevelsNeed;
+    }
+
+    private static final HashMap<UnitType, UnitData> UNITS = new HashMap<>();
+    private static final HashMap<TechType, TechData> TECHS = new HashMap<>();
+    private static final HashMap<UpgradeType, UpgradeData> UPGRADES = new HashMap<>();
+
+    static {
+        UnitType cc = UnitType.Terran_Command_Center;
+        UnitType scv = UnitType.Terran_SCV;
+        UnitType barracks = UnitType.Terran_Barracks;
+        UnitType factory = UnitType.Terran_Factory;
+        UnitType starport = UnitType.Terran_Starport;
+        UnitType academy = UnitType.Terran_Academy;
+        UnitType armory = UnitType.Terran_Armory;
+        UnitType scienceFacility = UnitType.Terran_Science_Facility;
+        UnitType controlTower = UnitType.Terran_Control_Tower;
+        UnitType machineShop = UnitType.Terran_Machine_Shop;
+        UnitType covertOps = UnitType.Terran_Covert_Ops;
+        UnitType physicsLab = UnitType.Terran_Physics_Lab;
+        UnitType engineeringBay = UnitType.Terran_Engineering_Bay;
+
+        unit(scv, "Terran_SCV", 50, 0, 300, 2, cc).worker = true;
+        unit(UnitType.Terran_Marine, "Terran_Marine", 50, 0, 360, 2, barracks);
+        unit(UnitType.Terran_Firebat, "Terran_Firebat", 50, 25, 360, 2, barracks, academy);
+        unit(UnitType.Terran_Medic, "Terran_Medic", 50, 25, 450, 2, barracks, academy);
+        unit(UnitType.Terran_Ghost, "Terran_Ghost", 25, 75, 750, 2, barracks, academy, covertOps);
+        unit(UnitType.Terran_Vulture, "Terran_Vulture", 75, 0, 450, 4, factory);
+        unit(UnitType.Terran_Siege_Tank_Tank_Mode, "Terran_Siege_Tank_Tank_Mode", 150, 100, 750, 4, factory, machineShop);
+        unit(UnitType.Terran_Goliath, "Terran_Goliath", 100, 50, 600, 4, factory, armory);
+        unit(UnitType.Terran_Wraith, "Terran_Wraith", 150, 100, 900, 4, starport);
+        unit(UnitType.Terran_Dropship, "Terran_Dropship", 100, 100, 750, 4, starport, controlTower);
+        unit(UnitType.Terran_Science_Vessel, "Terran_Science_Vessel", 100, 225, 1200, 4, starport, controlTower, scienceFacility);
+        unit(UnitType.Terran_Battlecruiser, "Terran_Battlecruiser", 400, 300, 2000, 12, starport, controlTower, physicsLab);
+        unit(UnitType.Terran_Valkyrie, "Terran_Valkyrie", 250, 125, 750, 6, starport, controlTower, armory);
+
+        UnitData data = building(cc, "Terran_Command_Center", 400, 0, 1800, scv);
+        data.supplyProvided = 20;
+        building(UnitType.Terran_Supply_Depot, "Terran_Supply_Depot", 100, 0, 600, scv).supplyProvided = 16;
+        building(UnitType.Terran_Refinery, "Terran_Refinery", 100, 0, 600, scv).refinery = true;
+        building(barracks, "Terran_Barracks", 150, 0, 1200, scv, cc);
+        building(engineeringBay, "Terran_Engineering_Bay", 125, 0, 900, scv, cc);
+        building(UnitType.Terran_Bunker, "Terran_Bunker", 100, 0, 450, scv, barracks);
+        building(academy, "Terran_Academy", 150, 0, 1200, scv, barracks);
+        building(UnitType.Terran_Missile_Turret, "Terran_Missile_Turret", 75, 0, 450, scv, engineeringBay);
+        building(factory, "Terran_Factory", 200, 100, 1200, scv, barracks);
+        building(starport, "Terran_Starport", 150, 100, 1050, scv, factory);
+        building(armory, "Terran_Armory", 100, 50, 1200, scv, factory);
+        building(scienceFacility, "Terran_Science_Facility", 100, 150, 900, scv, starport);
+
+        building(UnitType.Terran_Comsat_Station, "Terran_Comsat_Station", 50, 50, 600, cc, academy).addon = true;
+        building(UnitType.Terran_Nuclear_Silo, "Terran_Nuclear_Silo", 100, 100, 600, cc, covertOps).addon = true;
+        building(machineShop, "Terran_Machine_Shop", 50, 50, 600, factory).addon = true;
+        building(controlTower, "Terran_Control_Tower", 50, 50, 600, starport).addon = true;
+        building(covertOps, "Terran_Covert_Ops", 50, 50, 600, scienceFacility).addon = true;
+        building(physicsLab, "Terran_Physics_Lab", 50, 50, 600, scienceFacility).addon = true;
+
+        tech(TechType.Stim_Packs, "Stim_Packs", 100, 100, 1200, academy);
+        tech(TechType.Restoration, "Restoration", 100, 100, 1200, academy);
+        tech(TechType.Optical_Flare, "Optical_Flare", 100, 100, 1800, academy);
+        tech(TechType.Tank_Siege_Mode, "Tank_Siege_Mode", 150, 150, 1200, machineShop);
+        tech(TechType.Spider_Mines, "Spider_Mines", 100, 100, 1200, machineShop);
+        tech(TechType.Personnel_Cloaking, "Personnel_Cloaking", 100, 100, 1200, covertOps);
+        tech(TechType.Lockdown, "Lockdown", 200, 200, 1500, covertOps);
+        tech(TechType.Cloaking_Field, "Cloaking_Field", 150, 150, 1500, controlTower);
+        tech(TechType.EMP_Shockwave, "EMP_Shockwave", 200, 200, 1800, scienceFacility);
+        tech(TechType.Irradiate, "Irradiate", 200, 200, 1200, scienceFacility);
+        tech(TechType.Yamato_Gun, "Yamato_Gun", 100, 100, 1800, physicsLab);
+
+        upgrade(UpgradeType.Terran_Infantry_Weapons, "Terran_Infantry_Weapons", 100, 75, 100, 75, 4000, 480, 3, engineeringBay, scienceFacility);
+        upgrade(UpgradeType.Terran_Infantry_Armor, "Terran_Infantry_Armor", 100, 75, 100, 75, 4000, 480, 3, engineeringBay, scienceFacility);
+        upgrade(UpgradeType.Terran_Vehicle_Weapons, "Terran_Vehicle_Weapons", 100, 75, 100, 75, 4000, 480, 3, armory, scienceFacility);
+        upgrade(UpgradeType.Terran_Vehicle_Plating, "Terran_Vehicle_Plating", 100, 75, 100, 75, 4000, 480, 3, armory, scienceFacility);
+        upgrade(UpgradeType.Terran_Ship_Weapons, "Terran_Ship_Weapons", 100, 50, 100, 50, 4000, 480, 3, armory, scienceFacility);
+        upgrade(UpgradeType.Terran_Ship_Plating, "Terran_Ship_Plating", 150, 75, 150, 75, 4000, 480, 3, armory, scienceFacility);
+        upgrade(UpgradeType.U_238_Shells, "U_238_Shells", 150, 0, 150, 0, 1500, 0, 1, academy, UnitType.None);
+        upgrade(UpgradeType.Caduceus_Reactor, "Caduceus_Reactor", 150, 0, 150, 0, 2500, 0, 1, academy, UnitType.None);
+        upgrade(UpgradeType.Ion_Thrusters, "Ion_Thrusters", 100, 0, 100, 0, 1500, 0, 1, machineShop, UnitType.None);
+        upgrade(UpgradeType.Charon_Boosters, "Charon_Boosters", 100, 0, 100, 0, 2000, 0, 1, machineShop, armory);
+        upgrade(UpgradeType.Ocular_Implants, "Ocular_Implants", 100, 0, 100, 0, 2500, 0, 1, covertOps, UnitType.None);
+        upgrade(UpgradeType.Moebius_Reactor, "Moebius_Reactor", 150, 0, 150, 0, 2500, 0, 1, covertOps, UnitType.None);
+        upgrade(UpgradeType.Apollo_Reactor, "Apollo_Reactor", 200, 0, 200, 0, 2500, 0, 1, controlTower, UnitType.None);
+        upgrade(UpgradeType.Titan_Reactor, "Titan_Reactor", 150, 0, 150, 0, 2500, 0, 1, scienceFacility, UnitType.None);
+        upgrade(UpgradeType.Colossus_Reactor, "Colossus_Reactor", 150, 0, 150, 0, 2500, 0, 1, physicsLab, UnitType.None);
+    }
+
+    private static UnitData unit(UnitType type, String name, int minerals, int gas, int time, int supply, UnitType builder, UnitType... required)
+    {
+        UnitData data = new UnitData();
+        data.name = name;
+        data.minerals = minerals;
+        data.gas = gas;
+        data.time = time;
+        data.supply = supply;
+        data.builder = builder;
+        LinkedHashMap<UnitType, Integer> requiredUnits = new LinkedHashMap<>();
+        requiredUnits.put(builder, 1);
+        for (UnitType currentRequired : required)
+            requiredUnits.put(currentRequired, 1);
+        data.required = Collections.unmodifiableMap(requiredUnits);
+        UNITS.put(type, data);
+        return data;
+    }
+
+    private static UnitData building(UnitType type, String name, int minerals, int gas, int time, UnitType builder, UnitType... required)
+    {
+        UnitData data = unit(type, name, minerals, gas, time, 0, builder, required);
+        data.building = true;
+        return data;
+    }
+
+    private static void tech(TechType type, String name, int minerals, int gas, int time, UnitType researcher)
+    {
+        TechData data = new TechData();
+        data.name = name;
+        data.minerals = minerals;
+        data.gas = gas;
+        data.time = time;
+        data.researcher = researcher;
+        TECHS.put(type, data);
+    }
+
+    private static void upgrade(UpgradeType type, String name, int minerals, int mineralFactor, int gas, int gasFactor, int time, int timeFactor,
+                                int maxRepeats, UnitType upgrader, UnitType laterLevelsNeed)
+    {
+        UpgradeData data = new UpgradeData();
+        data.name = name;
+        data.minerals = minerals;
+        data.mineralFactor = mineralFactor;
+        data.gas = gas;
+        data.gasFactor = gasFactor;
+        data.time = time;
+        data.timeFactor = timeFactor;
+        data.maxRepeats = maxRepeats;
+        data.upgrader = upgrader;
+        data.laterLevelsNeed = laterLevelsNeed;
+        UPGRADES.put(type, data);
+    }
+
+    @Override
+    public String getName(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? "Unknown unit" : data.name;
+    }
+
+    @Override
+    public Race getRace(UnitType type) {return UNITS.containsKey(type) ? Race.Terran : Race.None;}
+
+    @Override
+    public int mineralPrice(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? 0 : data.minerals;
+    }
+
+    @Override
+    public int gasPrice(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? 0 : data.gas;
+    }
+
+    @Override
+    public int buildTime(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? 0 : data.time;
+    }
+
+    @Override
+    public int supplyRequired(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? 0 : data.supply;
+    }
+
+    @Override
+    public int supplyProvided(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? 0 : data.supplyProvided;
+    }
+
+    @Override
+    public boolean isWorker(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return (data != null) && data.worker;
+    }
+
+    @Override
+    public boolean isBuilding(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return (data != null) && data.building;
+    }
+
+    @Override
+    public boolean isAddon(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return (data != null) && data.addon;
+    }
+
+    @Override
+    public boolean isRefinery(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return (data != null) && data.refinery;
+    }
+
+    @Override
+    public UnitType whatBuilds(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? UnitType.None : data.builder;
+    }
+
+    @Override
+    public Map<UnitType, Integer> requiredUnits(UnitType type)
+    {
+        UnitData data = UNITS.get(type);
+        return data == null ? Collections.<UnitType, Integer>emptyMap() : data.required;
+    }
+
+    @Override
+    public String getName(TechType type)
+    {
+        TechData data = TECHS.get(type);
+        return data == null ? "Unknown tech" : data.name;
+    }
+
+    @Override
+    public Race getRace(TechType type) {return TECHS.containsKey(type) ? Race.Terran : Race.None;}
+
+    @Override
+    public int mineralPrice(TechType type)
+    {
+        TechData data = TECHS.get(type);
+        return data == null ? 0 : data.minerals;
+    }
+
+    @Override
+    public int gasPrice(TechType type)
+    {
+        TechData data = TECHS.get(type);
+        return data == null ? 0 : data.gas;
+    }
+
+    @Override
+    public int researchTime(TechType type)
+    {
+        TechData data = TECHS.get(type);
+        return data == null ? 0 : data.time;
+    }
+
+    @Override
+    public UnitType whatResearches(TechType type)
+    {
+        TechData data = TECHS.get(type);
+        return data == null ? UnitType.None : data.researcher;
+    }
+
+    @Override
+    public UnitType requiredUnit(TechType type) {return UnitType.None;}
+
+    @Override
+    public String getName(UpgradeType type)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? "Unknown upgrade" : data.name;
+    }
+
+    @Override
+    public Race getRace(UpgradeType type) {return UPGRADES.containsKey(type) ? Race.Terran : Race.None;}
+
+    @Override
+    public int mineralPrice(UpgradeType type, int level)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? 0 : data.minerals + (data.mineralFactor * (level - 1));
+    }
+
+    @Override
+    public int gasPrice(UpgradeType type, int level)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? 0 : data.gas + (data.gasFactor * (level - 1));
+    }
+
+    @Override
+    public int upgradeTime(UpgradeType type, int level)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? 0 : data.time + (data.timeFactor * (level - 1));
+    }
+
+    @Override
+    public int maxRepeats(UpgradeType type)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? 0 : data.maxRepeats;
+    }
+
+    @Override
+    public UnitType whatUpgrades(UpgradeType type)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return data == null ? UnitType.None : data.upgrader;
+    }
+
+    @Override
+    public UnitType whatsRequired(UpgradeType type, int level)
+    {
+        UpgradeData data = UPGRADES.get(type);
+        return (data == null) || (level < 2) ? UnitType.None : data.laterLevelsNeed;
+    }
+}
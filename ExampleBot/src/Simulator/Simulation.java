@@ -0,0 +1,125 @@
+package Simulator;
+
+import GameModel.TypeData;
+import ProductionQueue.ProductionOrder;
+import ProductionQueue.ProductionQueue;
+import ProductionQueue.ResearchOrder;
+import ProductionQueue.UnitBuildingOrder;
+import ProductionQueue.UpgradeOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Plays one build order through a ProductionQueue on a SimGame, the way a bot would use the queue in a real game.
+ * Each step the build order's triggered steps are added, UpdateBatch is called and every order it passes back is carried out.
+ * The game then moves on to its next event, or by at most the settings' largest frame step, so quiet stretches are passed over quickly.
+ */
+public class Simulation implements SimGame.SimListener {
+
+    private final BuildOrder buildOrder;
+    private final SimSettings settings;
+    private final SimGame game;
+    private final ProductionQueue queue;
+
+    private final ArrayList<SimulationResult.OrderTiming> timings = new ArrayList<>();
+    private final HashMap<ProductionOrder, SimulationResult.OrderTiming> timingsByOrder = new HashMap<>();
+
+    public Simulation(BuildOrder buildOrder, SimSettings settings)
+    {
+        this.buildOrder = buildOrder;
+        this.settings = settings;
+        this.game = new SimGame(settings);
+        this.queue = new ProductionQueue(false, false);
+        queue.onGameStart(game);
+        game.setQueue(queue);
+        game.setListener(this);
+    }
+
+    /**
+     * Gets the queue being simulated, so its settings can be changed before the game is run
+     * @return The queue
+     */
+    public ProductionQueue getQueue() {return queue;}
+
+    /**
+     * Runs the game until the build order has been finished or the frame limit is reached.
+     * @return The result of the game
+     */
+    public SimulationResult run()
+    {
+        List<BuildOrder.Step> steps = buildOrder.getSteps();
+        int nextStep = 0;
+        boolean completed = false;
+
+        while (true) {
+            while ((nextStep < steps.size()) && (steps.get(nextStep).triggerSupply <= game.supplyUsed())) {
+                steps.get(nextStep).addTo(queue);
+                nextStep++;
+            }
+
+            for (ProductionOrder currentOrder : queue.UpdateBatch()) {
+                orderDispatched(currentOrder);
+                game.execute(currentOrder);
+            }
+
+            if ((nextStep == steps.size()) && queue.isEmpty()) {
+                completed = true;
+                break;
+            }
+            int frame = game.getFrameCount();
+            if (frame >= settings.getMaxFrames())
+                break;
+
+            int nextFrame = Math.min(frame + settings.getMaxFrameStep(), settings.getMaxFrames());
+            int nextEvent = game.getNextEventFrame();
+            if ((nextEvent != -1) && (nextEvent < nextFrame))
+                nextFrame = Math.max(nextEvent, frame + 1);
+            game.advanceTo(nextFrame);
+        }
+
+        return new SimulationResult(buildOrder.getName(), timings, game.getFrameCount(), completed, game);
+    }
+
+    private void orderDispatched(ProductionOrder order)
+    {
+        SimulationResult.OrderTiming timing = timingsByOrder.get(order);
+        if (timing == null) {
+            timing = new SimulationResult.OrderTiming(nameOf(order), order.getOrderID());
+            timingsByOrder.put(order, timing);
+            timings.add(timing);
+        }
+        //An order passed back again after timing out keeps its first frame
+        if (timing.dispatchedFrame == -1)
+            timing.dispatchedFrame = game.getFrameCount();
+    }
+
+    @Override
+    public void orderStarted(ProductionOrder order, int frame)
+    {
+        SimulationResult.OrderTiming timing = timingsByOrder.get(order);
+        if (timing != null)
+            timing.startedFrame = frame;
+    }
+
+    @Override
+    public void orderFinished(ProductionOrder order, int frame)
+    {
+        SimulationResult.OrderTiming timing = timingsByOrder.get(order);
+        if (timing != null)
+            timing.finishedFrame = frame;
+    }
+
+    private String nameOf(ProductionOrder order)
+    {
+        TypeData typeData = game.getTypeData();
+        if (order instanceof UnitBuildingOrder)
+            return typeData.getName(((UnitBuildingOrder) order).getToProduce());
+        if (order instanceof ResearchOrder)
+            return typeData.getName(((ResearchOrder) order).getToProduce());
+        if (order instanceof UpgradeOrder)
+            return typeData.getName(((UpgradeOrder) order).getToProduce()) + " " + ((UpgradeOrder) order).getUpgradeLevel();
+        return order.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package Simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What happened when a build order was simulated. Holds when each order was passed back, started and finished, and how the game ended.
+ */
+public class SimulationResult {
+
+    /**
+     * The timings of one order. Frames are -1 if it never got that far.
+     */
+    public static class OrderTiming {
+        private final String name;
+        private final int orderID;
+        int dispatchedFrame = -1;
+        int startedFrame = -1;
+        int finishedFrame = -1;
+
+        OrderTiming(String name, int orderID)
+        {
+            this.name = name;
+            this.orderID = orderID;
+        }
+
+        public String getName() {return name;}
+        public int getOrderID() {return orderID;}
+        public int getDispatchedFrame() {return dispatchedFrame;}
+        public int getStartedFrame() {return startedFrame;}
+        public int getFinishedFrame() {return finishedFrame;}
+    }
+
+    private final String buildOrderName;
+    private final ArrayList<OrderTiming> timings;
+    private final int endFrame;
+    private final boolean completed;
+    private final int minerals;
+    private final int gas;
+    private final int supplyUsed;
+    private final int supplyTotal;
+
+    SimulationResult(String buildOrderName, ArrayList<OrderTiming> timings, int endFrame, boolean completed, SimGame game)
+    {
+        this.buildOrderName = buildOrderName;
+        this.timings = timings;
+        this.endFrame = endFrame;
+        this.completed = completed;
+        this.minerals = game.minerals();
+        this.gas = game.gas();
+        this.supplyUsed = game.supplyUsed();
+        this.supplyTotal = game.supplyTotal();
+    }
+
+    public String getBuildOrderName() {return buildOrderName;}
+
+    /**
+     * Gets the timings of every order that was passed back, in the order they were first passed back
+     * @return The order timings
+     */
+    public List<OrderTiming> getTimings() {return Collections.unmodifiableList(timings);}
+
+    /**
+     * Gets the frame the game stopped on. If the build order completed, this is the frame its last order finished.
+     * @return The last frame
+     */
+    public int getEndFrame() {return endFrame;}
+
+    /**
+     * Checks whether every step of the build order was added and finished before the frame limit
+     * @return True if the build order completed
+     */
+    public boolean isCompleted() {return completed;}
+
+    public int getMinerals() {return minerals;}
+    public int getGas() {return gas;}
+    public int getSupplyUsed() {return supplyUsed;}
+    public int getSupplyTotal() {return supplyTotal;}
+
+    /**
+     * Gets a text report of the game, with a line for each order
+     * @return The report
+     */
+    public String report()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(buildOrderName).append(completed ? " - completed at " : " - stopped unfinished at ").append(formatFrame(endFrame))
+                .append(", Minerals - ").append(minerals).append(", Gas - ").append(gas)
+                .append(", Supply - ").append(supplyUsed / 2).append("/").append(supplyTotal / 2).append("\n");
+        for (OrderTiming currentTiming : timings)
+        {
+            report.append("  ").append(currentTiming.name)
+                    .append(": Ordered - ").append(formatFrame(currentTiming.dispatchedFrame))
+                    .append(", Started - ").append(formatFrame(currentTiming.startedFrame))
+                    .append(", Finished - ").append(formatFrame(currentTiming.finishedFrame)).append("\n");
+        }
+        return report.toString();
+    }
+
+    //Frames as game time, at 24 frames a second on fastest
+    private static String formatFrame(int frame)
+    {
+        if (frame < 0)
+            return "never";
+        int seconds = frame / 24;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
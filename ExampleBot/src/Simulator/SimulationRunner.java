@@ -0,0 +1,79 @@
+package Simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs many build orders through the Simulator at once, spread over every core.
+ * Each game is independent, with its own queue and SimGame, so they can safely run on different threads.
+ */
+public class SimulationRunner {
+
+    //Below this many games a task runs them itself rather than splitting
+    private static final int GAMES_PER_TASK = 4;
+
+    private final SimSettings settings;
+    private final ForkJoinPool pool;
+
+    public SimulationRunner(SimSettings settings)
+    {
+        this(settings, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SimulationRunner(SimSettings settings, int threads)
+    {
+        this.settings = settings;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Simulates every build order
+     * @param buildOrders The build orders to try
+     * @return The results, in the same order as the build orders
+     */
+    public List<SimulationResult> runAll(List<BuildOrder> buildOrders)
+    {
+        return pool.invoke(new SimulationTask(buildOrders, 0, buildOrders.size()));
+    }
+
+    /**
+     * Stops the runner's threads once it is no longer needed
+     */
+    public void shutdown() {pool.shutdown();}
+
+    private class SimulationTask extends RecursiveTask<List<SimulationResult>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<BuildOrder> buildOrders;
+        private final int from;
+        private final int to;
+
+        SimulationTask(List<BuildOrder> buildOrders, int from, int to)
+        {
+            this.buildOrders = buildOrders;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SimulationResult> compute()
+        {
+            if (to - from <= GAMES_PER_TASK) {
+                ArrayList<SimulationResult> results = new ArrayList<>();
+                for (int i = from; i < to; i++)
+                    results.add(new Simulation(buildOrders.get(i), settings).run());
+                return results;
+            }
+
+            int middle = (from + to) / 2;
+            SimulationTask firstHalf = new SimulationTask(buildOrders, from, middle);
+            SimulationTask secondHalf = new SimulationTask(buildOrders, middle, to);
+            firstHalf.fork();
+            List<SimulationResult> results = new ArrayList<>(secondHalf.compute());
+            results.addAll(0, firstHalf.join());
+            return results;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package Simulator;
+
+import bwapi.TechType;
+import bwapi.UnitType;
+import bwapi.UpgradeType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a few sample Terran build orders through the Simulator and prints how they went, then how many games a second it can simulate.
+ * Needs only the bwmirror jar on the classpath, not StarCraft.
+ */
+public class SimulatorMain {
+
+    private static final int TIMED_GAMES = 2000;
+
+    public static void main(String[] args)
+    {
+        SimSettings settings = new SimSettings();
+        List<BuildOrder> samples = sampleBuildOrders();
+
+        SimulationRunner runner = new SimulationRunner(settings);
+        for (SimulationResult currentResult : runner.runAll(samples))
+            System.out.println(currentResult.report());
+
+        ArrayList<BuildOrder> timed = new ArrayList<>();
+        for (int i = 0; i < TIMED_GAMES; i++)
+            timed.add(samples.get(i % samples.size()));
+        //The first run warms up the JIT
+        runner.runAll(timed);
+        long start = System.nanoTime();
+        runner.runAll(timed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%d games in %.2fs - %.0f games a second", TIMED_GAMES, seconds, TIMED_GAMES / seconds));
+        runner.shutdown();
+    }
+
+    private static List<BuildOrder> sampleBuildOrders()
+    {
+        ArrayList<BuildOrder> buildOrders = new ArrayList<>();
+
+        buildOrders.add(new BuildOrder("Bio")
+                .add(UnitType.Terran_SCV, 5, 14)
+                .addAtSupply(9, UnitType.Terran_Supply_Depot, 6, 1)
+                .addAtSupply(11, UnitType.Terran_Barracks, 6, 1)
+                .addAtSupply(12, UnitType.Terran_Refinery, 6, 1)
+                .addAtSupply(13, UnitType.Terran_Barracks, 6, 1)
+                .addAtSupply(14, UnitType.Terran_Academy, 6, 1)
+                .addAtSupply(15, UnitType.Terran_Supply_Depot, 6, 3)
+                .addAtSupply(15, UnitType.Terran_Marine, 3, 12)
+                .addAtSupply(20, TechType.Stim_Packs, 4)
+                .addAtSupply(20, UnitType.Terran_Medic, 3, 4)
+                .addAtSupply(24, UpgradeType.U_238_Shells, 4, 1));
+
+        buildOrders.add(new BuildOrder("Siege Expand")
+                .add(UnitType.Terran_SCV, 5, 16)
+                .addAtSupply(9, UnitType.Terran_Supply_Depot, 6, 1)
+                .addAtSupply(11, UnitType.Terran_Barracks, 6, 1)
+                .addAtSupply(12, UnitType.Terran_Refinery, 6, 1)
+                .addAtSupply(14, UnitType.Terran_Factory, 6, 1)
+                .addAtSupply(15, UnitType.Terran_Command_Center, 6, 1)
+                .addAtSupply(16, UnitType.Terran_Machine_Shop, 6, 1)
+                .addAtSupply(16, UnitType.Terran_Supply_Depot, 6, 2)
+                .addAtSupply(18, TechType.Tank_Siege_Mode, 4)
+                .addAtSupply(18, UnitType.Terran_Siege_Tank_Tank_Mode, 3, 4));
+
+        buildOrders.add(new BuildOrder("Two Port Wraith")
+                .add(UnitType.Terran_SCV, 5, 14)
+                .addAtSupply(9, UnitType.Terran_Supply_Depot, 6, 1)
+                .addAtSupply(10, UnitType.Terran_Barracks, 6, 1)
+                .addAtSupply(11, UnitType.Terran_Refinery, 6, 1)
+                .addAtSupply(13, UnitType.Terran_Factory, 6, 1)
+                .addAtSupply(15, UnitType.Terran_Starport, 6, 2)
+                .addAtSupply(16, UnitType.Terran_Supply_Depot, 6, 3)
+                .addAtSupply(18, UnitType.Terran_Wraith, 3, 6)
+                .addAtSupply(20, UnitType.Terran_Control_Tower, 4, 1)
+                .addAtSupply(24, TechType.Cloaking_Field, 4));
+
+        return buildOrders;
+    }
+}
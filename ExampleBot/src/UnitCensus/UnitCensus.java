@@ -0,0 +1,279 @@
+package UnitCensus;
+
+import GameModel.GameModel;
+import bwapi.Unit;
+import bwapi.UnitType;
+import main.BaseAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * UNIT CENSUS
+ * Keeps a running count of the player's own units, split into completed and in progress for each type, kept up to date from unit events.
+ * Completed units are also grouped by type, so a check for an idle producer of a type only looks at units of that type rather than at every unit the player owns.
+ * Units are kept by their ID and looked up through a GameModel, so the census can also be run without StarCraft.
+ *
+ * REQUIRED USER BOT CALLS
+ * The ProductionQueue owns a census and forwards its unit events to it, so nothing extra is needed when using the queue.
+ * When used on its own:
+ * onGameStart: call Constructor
+ * onUnitCreate: call unitCreated
+ * onUnitMorph: call unitCreated
+ * onUnitComplete: call unitCompleted
+ * onUnitDestroy: call unitDestroyed
+ */
+public class UnitCensus {
+
+    private GameModel model;
+    private HashMap<Integer, CensusEntry> allUnits;
+    private HashMap<UnitType, Integer> completedCounts;
+    private HashMap<UnitType, Integer> inProgressCounts;
+    private HashMap<UnitType, LinkedHashSet<Integer>> completedByType;
+    private ArrayList<CensusListener> listeners;
+
+    /**
+     * Informed whenever the player goes from owning no completed units of a type to owning one, or back again.
+     */
+    public interface CensusListener {
+        void completedTypeGained(UnitType type);
+        void completedTypeLost(UnitType type);
+    }
+
+    private static class CensusEntry {
+        final int unitID;
+        UnitType type;
+        boolean completed;
+
+        CensusEntry(int unitID, UnitType type, boolean completed)
+        {
+            this.unitID = unitID;
+            this.type = type;
+            this.completed = completed;
+        }
+    }
+
+    /**
+     * Sets up the census and takes a count of all the units the player already owns. Should be made on game start.
+     */
+    public UnitCensus() {this(BaseAPI.getGameModel());}
+
+    /**
+     * Sets up the census on the given game model and takes a count of all the units the player already owns.
+     * @param model The game to count the units of
+     */
+    public UnitCensus(GameModel model)
+    {
+        this.model = model;
+        allUnits = new HashMap<>();
+        completedCounts = new HashMap<>();
+        inProgressCounts = new HashMap<>();
+        completedByType = new HashMap<>();
+        listeners = new ArrayList<>();
+
+        for (int currentUnit : model.getOwnUnitIDs())
+            unitCreated(currentUnit);
+    }
+
+    /**
+     * Call when a unit is created or morphs. Units that aren't the player's are ignored.
+     * A unit that is already known is moved over to its new type.
+     * @param created The created or morphed unit
+     */
+    public void unitCreated(Unit created) {unitCreated(created.getID());}
+
+    /**
+     * Call when a unit is created or morphs, by the unit's ID.
+     * @param createdID The ID of the created or morphed unit
+     */
+    public void unitCreated(int createdID)
+    {
+        if (!model.isOwned(createdID)) {
+            //A unit we owned can change hands, such as a refinery's geyser when the refinery dies
+            unitDestroyed(createdID);
+            return;
+        }
+
+        CensusEntry entry = allUnits.get(createdID);
+        if (entry != null)
+            uncount(entry);
+        else {
+            entry = new CensusEntry(createdID, model.getUnitType(createdID), model.isCompleted(createdID));
+            allUnits.put(createdID, entry);
+        }
+        entry.type = model.getUnitType(createdID);
+        entry.completed = model.isCompleted(createdID);
+        count(entry);
+    }
+
+    /**
+     * Call when a unit is completed. Units that aren't the player's are ignored.
+     * @param completed The completed unit
+     */
+    public void unitCompleted(Unit completed) {unitCompleted(completed.getID());}
+
+    /**
+     * Call when a unit is completed, by the unit's ID.
+     * @param completedID The ID of the completed unit
+     */
+    public void unitCompleted(int completedID)
+    {
+        CensusEntry entry = allUnits.get(completedID);
+        if (entry == null) {
+            unitCreated(completedID);
+            return;
+        }
+        if (entry.completed)
+            return;
+        uncount(entry);
+        entry.completed = true;
+        count(entry);
+    }
+
+    /**
+     * Call when a unit is destroyed. Units that aren't in the census are ignored.
+     * @param destroyed The destroyed unit
+     */
+    public void unitDestroyed(Unit destroyed) {unitDestroyed(destroyed.getID());}
+
+    /**
+     * Call when a unit is destroyed, by the unit's ID.
+     * @param destroyedID The ID of the destroyed unit
+     */
+    public void unitDestroyed(int destroyedID)
+    {
+        CensusEntry entry = allUnits.remove(destroyedID);
+        if (entry != null)
+            uncount(entry);
+    }
+
+    /**
+     * Gets how many completed units of a type the player owns. O(1)
+     * @param type The unit or building type
+     * @return The number of completed units of that type
+     */
+    public int getCompletedCount(UnitType type)
+    {
+        Integer current = completedCounts.get(type);
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Gets how many units of a type the player has that are still being built, trained or morphed. O(1)
+     * @param type The unit or building type
+     * @return The number of units of that type in progress
+     */
+    public int getInProgressCount(UnitType type)
+    {
+        Integer current = inProgressCounts.get(type);
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Checks if the player owns at least one completed unit of a type. O(1)
+     * @param type The unit or building type
+     * @return True if they own one. False if not.
+     */
+    public boolean hasCompleted(UnitType type) {return getCompletedCount(type) > 0;}
+
+    /**
+     * Gets the IDs of all the completed units of a type the player owns.
+     * @param type The unit or building type
+     * @return Read only collection of the IDs of the completed units of that type
+     */
+    public Collection<Integer> getCompletedUnitIDs(UnitType type)
+    {
+        LinkedHashSet<Integer> ofType = completedByType.get(type);
+        if (ofType == null)
+            return Collections.emptyList();
+        return Collections.unmodifiableCollection(ofType);
+    }
+
+    /**
+     * Finds a completed unit of the given type that is idle. Only the units of that type are checked.
+     * @param producerType The type of producer wanted
+     * @return The ID of an idle producer. -1 if there isn't one.
+     */
+    public int getIdleProducerID(UnitType producerType)
+    {
+        LinkedHashSet<Integer> ofType = completedByType.get(producerType);
+        if (ofType == null)
+            return -1;
+        for (int currentUnit : ofType) {
+            if (model.isIdle(currentUnit))
+                return currentUnit;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether there is a completed unit of the given type that is idle.
+     * @param producerType The type of producer wanted
+     * @return True if one is idle. False if not.
+     */
+    public boolean hasIdleProducer(UnitType producerType) {return getIdleProducerID(producerType) != -1;}
+
+    /**
+     * Counts the completed units of the given type that are idle. Only the units of that type are checked.
+     * @param producerType The type of producer wanted
+     * @return The number of idle producers of that type
+     */
+    public int getIdleProducerCount(UnitType producerType)
+    {
+        LinkedHashSet<Integer> ofType = completedByType.get(producerType);
+        if (ofType == null)
+            return 0;
+        int idle = 0;
+        for (int currentUnit : ofType) {
+            if (model.isIdle(currentUnit))
+                idle++;
+        }
+        return idle;
+    }
+
+    /**
+     * Adds a listener to be told when the player gains their first, or loses their last, completed unit of a type.
+     * @param listener The listener to add
+     */
+    public void addListener(CensusListener listener) {listeners.add(listener);}
+
+    private void count(CensusEntry entry)
+    {
+        if (entry.completed) {
+            int newCount = getCompletedCount(entry.type) + 1;
+            completedCounts.put(entry.type, newCount);
+            if (newCount == 1) {
+                for (CensusListener listener : listeners)
+                    listener.completedTypeGained(entry.type);
+            }
+            LinkedHashSet<Integer> ofType = completedByType.get(entry.type);
+            if (ofType == null) {
+                ofType = new LinkedHashSet<>();
+                completedByType.put(entry.type, ofType);
+            }
+            ofType.add(entry.unitID);
+        }
+        else
+            inProgressCounts.put(entry.type, getInProgressCount(entry.type) + 1);
+    }
+
+    private void uncount(CensusEntry entry)
+    {
+        if (entry.completed) {
+            int newCount = getCompletedCount(entry.type) - 1;
+            completedCounts.put(entry.type, newCount);
+            if (newCount == 0) {
+                for (CensusListener listener : listeners)
+                    listener.completedTypeLost(entry.type);
+            }
+            LinkedHashSet<Integer> ofType = completedByType.get(entry.type);
+            if (ofType != null)
+                ofType.remove(entry.unitID);
+        }
+        else
+            inProgressCounts.put(entry.type, getInProgressCount(entry.type) - 1);
+    }
+}
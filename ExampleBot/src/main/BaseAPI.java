@@ -1,5 +1,7 @@
 package main;
 
+import GameModel.BWAPIGameModel;
+import GameModel.GameModel;
 import bwapi.*;
 import bwta.BWTA;
 
@@ -11,6 +13,7 @@ public class BaseAPI extends DefaultBWListener {
     public Mirror mirror = new Mirror();
     public Game game;
     public Player self;
+    private static GameModel gameModel;
 
     public void run() {
         mirror.getModule().setEventListener(this);
@@ -27,6 +30,7 @@ public class BaseAPI extends DefaultBWListener {
         baseAPI = this;
         game = mirror.getGame();
         self = game.self();
+        gameModel = new BWAPIGameModel(game);
 
         //Use BWTA to analyze map
         //This may take a few minutes if the map is processed first time!
@@ -55,4 +59,10 @@ public class BaseAPI extends DefaultBWListener {
      */
     public static int getGameTime() {return baseAPI.game.getFrameCount();}
 
+    /**
+     * Gets the model of the current game, which passes everything on to BWAPI. Made on start.
+     * @return GameModel : The game model
+     */
+    public static GameModel getGameModel() {return gameModel;}
+
 }
\ No newline at end of file
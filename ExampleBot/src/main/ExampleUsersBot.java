@@ -1,24 +1,52 @@
 package main;
 
 import BuilderManager.BuilderManager;
+import BuilderManager.ConstructionJob;
+import BuildingPlacer.BuildingPlacer;
 import ProductionQueue.*;
 import EnemyBaseTracker.EnemyBaseTrackerManager;
+import FrameProfiler.FrameProfiler;
+import OpeningBook.Opening;
+import OpeningBook.OpeningBook;
 import SquadManager.*;
 import bwapi.*;
 import bwta.BWTA;
 import bwta.BaseLocation;
 
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 
 
 public class ExampleUsersBot extends BaseAPI {
 
+    //How far ahead buildings the queue expects to pay for are given a site and a reserved job, so a builder can be sent there before the money is
+    static final int RESERVE_AHEAD_FRAMES = 720;
+
     ProductionQueue productionQueue;
     EnemyBaseTrackerManager enemyBaseTrackerManager;
     BuilderManager builderManager;
+    BuildingPlacer buildingPlacer;
     SquadManager squadManager;
+    FrameProfiler frameProfiler;
     boolean testingBool ;
+    boolean openingFromBook;
+    //Sites picked for buildings still waiting on the queue, and the buildings they are for, by order ID
+    HashMap<Integer, TilePosition> reservedSites;
+    HashMap<Integer, UnitType> reservedTypes;
+    //Jobs given to the BuilderManager for buildings the queue has passed back, by order ID. An order that times out is passed back again while its job may still be going.
+    HashMap<Integer, ConstructionJob> buildingJobs;
+
+    int onFrameSection;
+    int enemyTrackerSection;
+    int builderManagerSection;
+    int buildingPlacerSection;
+    int squadManagerSection;
+    int queueUpdateSection;
+    int unitCreateSection;
+    int unitMorphSection;
+    int unitCompleteSection;
+    int unitDestroySection;
+    int unitDiscoverSection;
 
     int targetBuilderNum;
     int gameProgressionTrack;
@@ -43,6 +71,20 @@ public class ExampleUsersBot extends BaseAPI {
 
         System.out.println("UsersBot Setup");
 
+        //FRAME PROFILER
+        frameProfiler = new FrameProfiler(true);
+        onFrameSection = frameProfiler.addSection("onFrame");
+        enemyTrackerSection = frameProfiler.addSection("EnemyBaseTrackerManager.onFrame");
+        builderManagerSection = frameProfiler.addSection("BuilderManager.onFrame");
+        buildingPlacerSection = frameProfiler.addSection("BuildingPlacer.onFrame");
+        squadManagerSection = frameProfiler.addSection("SquadManager.onFrame");
+        queueUpdateSection = frameProfiler.addSection("ProductionQueue.Update");
+        unitCreateSection = frameProfiler.addSection("onUnitCreate");
+        unitMorphSection = frameProfiler.addSection("onUnitMorph");
+        unitCompleteSection = frameProfiler.addSection("onUnitComplete");
+        unitDestroySection = frameProfiler.addSection("onUnitDestroy");
+        unitDiscoverSection = frameProfiler.addSection("onUnitDiscover");
+
         /**
          * Simple Testing Variables.
          */
@@ -53,14 +95,28 @@ public class ExampleUsersBot extends BaseAPI {
         //SQUAD MANAGER
         squadManager = new SquadManager(true);
 
+        //BUILDING PLACER
+        buildingPlacer = new BuildingPlacer(false);
+
         //BUILDER MANAGER
-        builderManager = new BuilderManager(false);
+        builderManager = new BuilderManager(false, buildingPlacer);
+        reservedSites = new HashMap<>();
+        reservedTypes = new HashMap<>();
+        buildingJobs = new HashMap<>();
 
 
         //CONSTRUCTION QUEUE
         productionQueue = new ProductionQueue(false,true);
         productionQueue.onGameStart();
 
+        //OPENING BOOK
+        Opening opening = OpeningBook.load("bwapi-data/read/openingBook.bin").find(self.getRace(), game.enemy().getRace(), game.mapHash());
+        openingFromBook = opening != null;
+        if (openingFromBook) {
+            System.out.println("Opening: " + opening.getName());
+            opening.addTo(productionQueue);
+        }
+
 
         //ENEMY BASE TRACKER
         enemyBaseTrackerManager = new EnemyBaseTrackerManager(true);
@@ -72,36 +128,68 @@ public class ExampleUsersBot extends BaseAPI {
     @Override
     public void onFrame()
     {
+        frameProfiler.start(onFrameSection);
+
+        frameProfiler.start(enemyTrackerSection);
         enemyBaseTrackerManager.onFrame();
+        frameProfiler.stop(enemyTrackerSection);
+
+        frameProfiler.start(builderManagerSection);
         builderManager.onFrame();
+        frameProfiler.stop(builderManagerSection);
+
+        frameProfiler.start(buildingPlacerSection);
+        buildingPlacer.onFrame();
+        frameProfiler.stop(buildingPlacerSection);
+
+        frameProfiler.start(squadManagerSection);
         squadManager.onFrame();
+        frameProfiler.stop(squadManagerSection);
+
+        //Jobs the BuilderManager has finished with are let go of, so their orders get a new job if they are passed back again
+        Iterator<HashMap.Entry<Integer, ConstructionJob>> handedOut = buildingJobs.entrySet().iterator();
+        while (handedOut.hasNext()) {
+            if (!builderManager.hasJob(handedOut.next().getValue()))
+                handedOut.remove();
+        }
 
 
         ProductionOrder toExecute;
+        frameProfiler.start(queueUpdateSection);
         toExecute = productionQueue.Update();
+        frameProfiler.stop(queueUpdateSection);
+        builderManager.setPendingCosts(productionQueue.getPendingMinerals(), productionQueue.getPendingGas());
 
         if (toExecute != null){
             if (toExecute instanceof UnitBuildingOrder) {
-                if (((UnitBuildingOrder) toExecute).getToProduce().isBuilding())
-                    builderManager.addJob(((UnitBuildingOrder) toExecute).getToProduce(), getBuildTile(((UnitBuildingOrder) toExecute).getToProduce(), BaseAPI.baseAPI.self.getStartLocation()));
-                else
-                {
-                    UnitType needed = ((UnitBuildingOrder) toExecute).getToProduce().whatBuilds().first;
-                    getFree(needed).train(((UnitBuildingOrder) toExecute).getToProduce());
+                UnitType toBuild = ((UnitBuildingOrder) toExecute).getToProduce();
+                if (toBuild.isBuilding()) {
+                    ConstructionJob job = buildingJobs.get(toExecute.getOrderID());
+                    //A timed out order whose job is still going is left to that job, rather than building it twice
+                    if ((job == null) || !builderManager.hasJob(job)) {
+                        TilePosition buildTile = reservedSites.remove(toExecute.getOrderID());
+                        reservedTypes.remove(toExecute.getOrderID());
+                        if (buildTile == null)
+                            buildTile = pickBuildTile(toBuild);
+                        job = builderManager.addJob(toBuild, buildTile);
+                        if (job != null)
+                            buildingJobs.put(toExecute.getOrderID(), job);
+                    }
                 }
+                else
+                    toExecute.getProducer().train(((UnitBuildingOrder) toExecute).getToProduce());
             }
             else if(toExecute instanceof ResearchOrder) {
                 TechType toResearch = ((ResearchOrder) toExecute).getToProduce();
-                UnitType needed = ((ResearchOrder) toExecute).getToProduce().whatResearches();
-                getFree(needed).research(toResearch);
+                toExecute.getProducer().research(toResearch);
             }
             else if(toExecute instanceof UpgradeOrder) {
                 UpgradeType toUpgrade = ((UpgradeOrder) toExecute).getToProduce();
-                UnitType needed = ((UpgradeOrder) toExecute).getToProduce().whatUpgrades();
-                getFree(needed).upgrade(toUpgrade);
+                toExecute.getProducer().upgrade(toUpgrade);
             }
         }
 
+        reserveUpcomingBuildings();
 
         if ((self.supplyTotal() - self.supplyUsed()) <= 6 && (self.supplyTotal() != 400)) { //Supply in BWAPI is doubled so that zerglings tat are normally 0.5 supply in StarCraft can have a full supply. Every value is doubled
             if (!productionQueue.checkIfHaveInProduction(UnitType.Terran_Supply_Depot)){
@@ -116,6 +204,16 @@ public class ExampleUsersBot extends BaseAPI {
         }
 
         gameProgressionUpdate();
+
+        frameProfiler.stop(onFrameSection);
+        frameProfiler.frameEnded();
+    }
+
+    @Override
+    public void onEnd(boolean isWinner)
+    {
+        frameProfiler.writeReport("bwapi-data/write/frameProfile.txt");
+        builderManager.getConstructionStats().writeReport("bwapi-data/write/constructionProfile.txt");
     }
 
 
@@ -136,13 +234,11 @@ public class ExampleUsersBot extends BaseAPI {
                 makeup = new HashMap<>();
                 makeup.put(UnitType.Terran_Marine, 4);
                 bunkerSquadRef = squadManager.createSquad(makeup);
-                for (HashMap.Entry<UnitType, Integer> entry : squadManager.getSquad(bunkerSquadRef).getSquadNeeds().entrySet())
-                {
-                    for (int i = 0; i < entry.getValue(); i++)
-                        productionQueue.AddToQueue(entry.getKey(),3);
+                productionQueue.AddToQueue(squadManager.getSquad(bunkerSquadRef).getSquadNeeds(),3);
+                if (!openingFromBook) {
+                    productionQueue.AddToQueue(UnitType.Terran_Refinery, 4);
+                    productionQueue.AddToQueue(UnitType.Terran_Bunker, 2);
                 }
-                productionQueue.AddToQueue(UnitType.Terran_Refinery, 4);
-                productionQueue.AddToQueue(UnitType.Terran_Bunker,2);
                 targetBuilderNum = 15;
 
                 //squad 4 marines - bunker squad
@@ -160,17 +256,14 @@ public class ExampleUsersBot extends BaseAPI {
                 gameProgressionTrack = 2;
 
                 squadManager.getSquad(bunkerSquadRef).setSquadRightClick(getType(UnitType.Terran_Bunker));
-                productionQueue.AddToQueue(UnitType.Terran_Barracks, 2);
+                if (!openingFromBook)
+                    productionQueue.AddToQueue(UnitType.Terran_Barracks, 2);
 
                 makeup = new HashMap<>();
                 makeup.put(UnitType.Terran_Marine, 6);
                 makeup.put(UnitType.Terran_Medic, 2);
                 scoutSquadRef = squadManager.createSquad(makeup);
-                for (HashMap.Entry<UnitType, Integer> entry : squadManager.getSquad(scoutSquadRef).getSquadNeeds().entrySet())
-                {
-                    for (int i = 0; i < entry.getValue(); i++)
-                        productionQueue.AddToQueue(entry.getKey(),3);
-                }
+                productionQueue.AddToQueue(squadManager.getSquad(scoutSquadRef).getSquadNeeds(),3);
 
                 //on squad + bunker complete
                 //put squad in bunker
@@ -194,17 +287,14 @@ public class ExampleUsersBot extends BaseAPI {
                             squadManager.getSquad(scoutSquadRef).setSquadMoveTarget(b.getPosition(), true);
                     }
                 }
-                productionQueue.AddToQueue(TechType.Stim_Packs, 2);
+                if (!openingFromBook)
+                    productionQueue.AddToQueue(TechType.Stim_Packs, 2);
 
                 makeup = new HashMap<>();
                 makeup.put(UnitType.Terran_Marine, 6);
                 makeup.put(UnitType.Terran_Medic, 2);
                 defenseSquadRef = squadManager.createSquad(makeup);
-                for (HashMap.Entry<UnitType, Integer> entry : squadManager.getSquad(defenseSquadRef).getSquadNeeds().entrySet())
-                {
-                    for (int i = 0; i < entry.getValue(); i++)
-                        productionQueue.AddToQueue(entry.getKey(),3);
-                }
+                productionQueue.AddToQueue(squadManager.getSquad(defenseSquadRef).getSquadNeeds(),3);
 
                 //squad + academy complete
                 //send squad exploring
@@ -216,7 +306,8 @@ public class ExampleUsersBot extends BaseAPI {
                     break;
                 }
                 gameProgressionTrack = 4;
-                productionQueue.AddToQueue(UpgradeType.Terran_Infantry_Weapons, 3, 1);
+                if (!openingFromBook)
+                    productionQueue.AddToQueue(UpgradeType.Terran_Infantry_Weapons, 3, 1);
                 //squad and stim complete
                 //weap +1
                 break;
@@ -227,37 +318,49 @@ public class ExampleUsersBot extends BaseAPI {
     @Override
     public void onUnitCreate(Unit unit)
     {
+        frameProfiler.start(unitCreateSection);
+        buildingPlacer.unitCreated(unit);
         productionQueue.unitStructureStarted(unit);
         builderManager.unitBuildingStarted(unit);
+        frameProfiler.stop(unitCreateSection);
     }
 
     @Override
     public void onUnitMorph(Unit unit)
     {
+        frameProfiler.start(unitMorphSection);
+        buildingPlacer.unitMorphed(unit);
         builderManager.unitBuildingStarted(unit);
         productionQueue.unitStructureStarted(unit);
+        frameProfiler.stop(unitMorphSection);
     }
 
     @Override
     public void onUnitComplete(Unit unit)
     {
+        frameProfiler.start(unitCompleteSection);
+        productionQueue.unitCompleted(unit);
         builderManager.unitBuildingComplete(unit);
+        buildingPlacer.unitCompleted(unit);
 
         for (Squad currentSquad : squadManager.getAllSquads()) {
             if (currentSquad.getSquadNeeds().get(unit.getType()) != null) {
                 if (currentSquad.getSquadNeeds().get(unit.getType()) > 0) {
                     currentSquad.addUnitToSquad(unit);
-                    return;
+                    break;
                 }
             }
         }
+        frameProfiler.stop(unitCompleteSection);
     }
 
     @Override
     public void onUnitDestroy(Unit unit)
     {
+        frameProfiler.start(unitDestroySection);
         productionQueue.unitStructureDestroyed(unit);
         builderManager.unitBuildingKilled(unit);
+        buildingPlacer.unitDestroyed(unit);
         enemyBaseTrackerManager.unitDestroyed(unit);
         squadManager.onUnitDestroy(unit);
 
@@ -265,30 +368,57 @@ public class ExampleUsersBot extends BaseAPI {
         int currentCount = 0;
         for (HashMap.Entry<UnitType, Integer> entry : allSquadNeeds.entrySet()) {
             currentCount = productionQueue.checkHowManyInProduction(entry.getKey());
-            if (currentCount < entry.getValue()){
-                for (int i = currentCount; i < entry.getValue(); i++)
-                    productionQueue.AddToQueue(entry.getKey(),3);
-            }
+            if (currentCount < entry.getValue())
+                productionQueue.AddToQueue(entry.getKey(),3, entry.getValue() - currentCount);
         }
+        frameProfiler.stop(unitDestroySection);
     }
 
     @Override
     public void onUnitDiscover(Unit unit)
     {
-
+        frameProfiler.start(unitDiscoverSection);
         enemyBaseTrackerManager.unitFound(unit);
+        buildingPlacer.unitCreated(unit);
+        frameProfiler.stop(unitDiscoverSection);
     }
 
 
-    private Unit getFree(UnitType ofType)
+    /**
+     * Picks a site for each building the queue expects to be able to pay for soon and reserves a job there with the BuilderManager, so a builder is there when the money is.
+     * Sites of orders that have left the queue without being passed back have their reserved jobs cancelled.
+     */
+    private void reserveUpcomingBuildings()
     {
-        List<Unit> allUnits = BaseAPI.baseAPI.self.getUnits();
-        for (Unit currentUnit : allUnits) {
-            if (currentUnit.getType() == ofType && currentUnit.isIdle() && currentUnit.isCompleted()) {
-                return currentUnit;
+        for (UnitBuildingOrder currentOrder : productionQueue.getUpcomingBuildings(RESERVE_AHEAD_FRAMES)) {
+            TilePosition site = reservedSites.get(currentOrder.getOrderID());
+            if (site == null) {
+                site = pickBuildTile(currentOrder.getToProduce());
+                if (site == null)
+                    continue;
+                reservedSites.put(currentOrder.getOrderID(), site);
+                reservedTypes.put(currentOrder.getOrderID(), currentOrder.getToProduce());
             }
+            builderManager.reserveJob(currentOrder.getToProduce(), site, currentOrder.getPredictedStartFrame());
         }
-        return null;
+
+        Iterator<HashMap.Entry<Integer, TilePosition>> sites = reservedSites.entrySet().iterator();
+        while (sites.hasNext()) {
+            HashMap.Entry<Integer, TilePosition> entry = sites.next();
+            ProductionOrder order = productionQueue.getOrder(entry.getKey());
+            if ((order == null) || (order.getStatus() == ProductionOrder.OrderStatus.aborted)) {
+                builderManager.cancelReservedJob(reservedTypes.remove(entry.getKey()), entry.getValue());
+                sites.remove();
+            }
+        }
+    }
+
+    private TilePosition pickBuildTile(UnitType toBuild)
+    {
+        TilePosition buildTile = buildingPlacer.getPlannedTile(toBuild, self.getStartLocation());
+        if (buildTile == null)
+            buildTile = buildingPlacer.getBuildTile(toBuild, self.getStartLocation());
+        return buildTile;
     }
 
     private Unit getType(UnitType ofType)
@@ -301,67 +431,6 @@ public class ExampleUsersBot extends BaseAPI {
         return null;
     }
 
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    //Example BuildTile Function provided by http://sscaitournament.com/index.php?action=tutorial
-    //This example is a simple and inefficient search based implementation, as creating a good building
-    //placement algorithm is a complicated procedure
-
-    //example has been edited to make static for easier use
-
-    // Returns a suitable TilePosition to build a given building type near
-    // specified TilePosition aroundTile, or null if not found. (builder parameter is our worker)
-    public static TilePosition getBuildTile(UnitType buildingType, TilePosition aroundTile) {
-        TilePosition ret = null;
-        int maxDist = 3;
-        int stopDist = 40;
-
-        // Refinery, Assimilator, Extractor
-        if (buildingType.isRefinery()) {
-            for (Unit n : BaseAPI.baseAPI.game.neutral().getUnits()) {
-                if ((n.getType() == UnitType.Resource_Vespene_Geyser) &&
-                        ( Math.abs(n.getTilePosition().getX() - aroundTile.getX()) < stopDist ) &&
-                        ( Math.abs(n.getTilePosition().getY() - aroundTile.getY()) < stopDist )
-                        ) return n.getTilePosition();
-            }
-        }
-
-        while ((maxDist < stopDist) && (ret == null)) {
-            for (int i=aroundTile.getX()-maxDist; i<=aroundTile.getX()+maxDist; i++) {
-                for (int j=aroundTile.getY()-maxDist; j<=aroundTile.getY()+maxDist; j++) {
-                    if (BaseAPI.baseAPI.game.canBuildHere(new TilePosition(i,j), buildingType)) {
-                        // units that are blocking the tile
-                        boolean unitsInWay = false;
-                        for (Unit u : BaseAPI.baseAPI.game.getAllUnits()) {
-                            //if (u.getID() == builder.getID()) continue;
-                            if ((Math.abs(u.getTilePosition().getX()-i) < 4) && (Math.abs(u.getTilePosition().getY()-j) < 4)) unitsInWay = true;
-                        }
-                        if (!unitsInWay) {
-                            return new TilePosition(i, j);
-                        }
-                        // creep for Zerg
-                        if (buildingType.requiresCreep()) {
-                            boolean creepMissing = false;
-                            for (int k=i; k<=i+buildingType.tileWidth(); k++) {
-                                for (int l=j; l<=j+buildingType.tileHeight(); l++) {
-                                    if (!BaseAPI.baseAPI.game.hasCreep(k, l)) creepMissing = true;
-                                    break;
-                                }
-                            }
-                            if (creepMissing) continue;
-                        }
-                    }
-                }
-            }
-            maxDist += 2;
-        }
-
-        if (ret == null) BaseAPI.baseAPI.game.printf("Unable to find suitable build position for "+buildingType.toString());
-        return ret;
-    }
-    //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
 
 
 }